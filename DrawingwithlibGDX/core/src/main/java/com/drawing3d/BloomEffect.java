@@ -0,0 +1,241 @@
+package com.drawing3d;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.glutils.FrameBuffer;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * Post-proceso de brillo (bloom): la escena se dibuja en un framebuffer, se
+ * extraen los píxeles más brillantes que {@code threshold} a media
+ * resolución, se desenfocan con un gaussiano separable (horizontal y
+ * vertical) y se suman a la escena al dibujarla en pantalla.
+ * <pre>
+ * bloom.begin(r, g, b);  ...dibujar la escena...  bloom.end();
+ * </pre>
+ * Desactivado, {@link #begin} sólo limpia la pantalla, {@link #end()} no
+ * hace nada y la escena va directa a pantalla. Con {@link #setProfiling} el
+ * tiempo de las pasadas incluye la GPU (con {@code glFinish}), para ver
+ * cuánto cuesta.
+ */
+public class BloomEffect implements Disposable {
+    // 1. Shaders: todos usan los atributos y uniforms de SpriteBatch
+    private static final String VERTEX_SHADER = ""
+            + "attribute vec4 a_position;\n"
+            + "attribute vec2 a_texCoord0;\n"
+            + "uniform mat4 u_projTrans;\n"
+            + "varying vec2 v_texCoords;\n"
+            + "void main() {\n"
+            + "    v_texCoords = a_texCoord0;\n"
+            + "    gl_Position = u_projTrans * a_position;\n"
+            + "}\n";
+
+    private static final String PRECISION = ""
+            + "#ifdef GL_ES\n"
+            + "precision mediump float;\n"
+            + "#endif\n";
+
+    private static final String BRIGHT_SHADER = PRECISION
+            + "varying vec2 v_texCoords;\n"
+            + "uniform sampler2D u_texture;\n"
+            + "uniform float u_threshold;\n"
+            + "void main() {\n"
+            + "    vec3 color = texture2D(u_texture, v_texCoords).rgb;\n"
+            + "    float brightness = max(color.r, max(color.g, color.b));\n"
+            + "    gl_FragColor = vec4(color * smoothstep(u_threshold, 1.0, brightness), 1.0);\n"
+            + "}\n";
+
+    // Gaussiano de 9 muestras (sigma ~2) en la dirección u_direction (en texels)
+    private static final String BLUR_SHADER = PRECISION
+            + "varying vec2 v_texCoords;\n"
+            + "uniform sampler2D u_texture;\n"
+            + "uniform vec2 u_direction;\n"
+            + "void main() {\n"
+            + "    vec3 sum = texture2D(u_texture, v_texCoords).rgb * 0.2270270;\n"
+            + "    sum += texture2D(u_texture, v_texCoords + u_direction * 1.3846154).rgb * 0.3162162;\n"
+            + "    sum += texture2D(u_texture, v_texCoords - u_direction * 1.3846154).rgb * 0.3162162;\n"
+            + "    sum += texture2D(u_texture, v_texCoords + u_direction * 3.2307692).rgb * 0.0702703;\n"
+            + "    sum += texture2D(u_texture, v_texCoords - u_direction * 3.2307692).rgb * 0.0702703;\n"
+            + "    gl_FragColor = vec4(sum, 1.0);\n"
+            + "}\n";
+
+    private static final String COMPOSITE_SHADER = PRECISION
+            + "varying vec2 v_texCoords;\n"
+            + "uniform sampler2D u_texture;\n"
+            + "uniform sampler2D u_bloom;\n"
+            + "uniform float u_intensity;\n"
+            + "void main() {\n"
+            + "    vec3 scene = texture2D(u_texture, v_texCoords).rgb;\n"
+            + "    vec3 bloom = texture2D(u_bloom, v_texCoords).rgb;\n"
+            + "    gl_FragColor = vec4(scene + bloom * u_intensity, 1.0);\n"
+            + "}\n";
+
+    // 2. Ajustes
+    private boolean enabled = true;
+    private boolean profiling;
+    private float threshold = 0.8f;
+    private float intensity = 1.2f;
+    private int blurPasses = 2;
+
+    // 3. Recursos: escena a resolución completa, brillo y desenfoque a la mitad
+    private final SpriteBatch batch = new SpriteBatch(1);
+    private final ShaderProgram brightShader;
+    private final ShaderProgram blurShader;
+    private final ShaderProgram compositeShader;
+    private FrameBuffer sceneBuffer;
+    private FrameBuffer pingBuffer;
+    private FrameBuffer pongBuffer;
+    private int width, height;
+    private boolean capturing;
+    private long lastPassNanos;
+
+    public BloomEffect(int width, int height) {
+        brightShader = compile(BRIGHT_SHADER);
+        blurShader = compile(BLUR_SHADER);
+        compositeShader = compile(COMPOSITE_SHADER);
+        resize(width, height);
+    }
+
+    private static ShaderProgram compile(String fragmentShader) {
+        ShaderProgram shader = new ShaderProgram(VERTEX_SHADER, fragmentShader);
+        if (!shader.isCompiled())
+            throw new GdxRuntimeException("Shader de bloom: " + shader.getLog());
+        return shader;
+    }
+
+    /** Recrea los framebuffers; llamar desde {@code resize()}. */
+    public void resize(int width, int height) {
+        if (width <= 0 || height <= 0 || (width == this.width && height == this.height))
+            return;
+        disposeBuffers();
+        this.width = width;
+        this.height = height;
+        sceneBuffer = new FrameBuffer(Pixmap.Format.RGBA8888, width, height, true);
+        pingBuffer = new FrameBuffer(Pixmap.Format.RGBA8888, Math.max(1, width / 2), Math.max(1, height / 2), false);
+        pongBuffer = new FrameBuffer(Pixmap.Format.RGBA8888, Math.max(1, width / 2), Math.max(1, height / 2), false);
+        for (FrameBuffer buffer : new FrameBuffer[] { sceneBuffer, pingBuffer, pongBuffer })
+            buffer.getColorBufferTexture().setFilter(Texture.TextureFilter.Linear, Texture.TextureFilter.Linear);
+        batch.getProjectionMatrix().setToOrtho2D(0, 0, 1, 1);
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setProfiling(boolean profiling) {
+        this.profiling = profiling;
+    }
+
+    public void setThreshold(float threshold) {
+        this.threshold = threshold;
+    }
+
+    public void setIntensity(float intensity) {
+        this.intensity = intensity;
+    }
+
+    public void setBlurPasses(int blurPasses) {
+        this.blurPasses = blurPasses;
+    }
+
+    /** Redirige el dibujo al framebuffer de la escena (y lo limpia con el color dado). */
+    public void begin(float r, float g, float b) {
+        capturing = enabled;
+        if (capturing)
+            sceneBuffer.begin();
+        Gdx.gl.glClearColor(r, g, b, 1f);
+        Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT | GL20.GL_DEPTH_BUFFER_BIT);
+    }
+
+    /** Aplica el bloom y dibuja el resultado en pantalla. */
+    public void end() {
+        if (!capturing) {
+            lastPassNanos = 0;
+            return;
+        }
+        sceneBuffer.end();
+        if (profiling)
+            Gdx.gl.glFinish();
+        long start = System.nanoTime();
+        Gdx.gl.glDisable(GL20.GL_DEPTH_TEST);
+        Gdx.gl.glDisable(GL20.GL_CULL_FACE);
+
+        // 4. Brillo: escena -> ping (media resolución)
+        batch.disableBlending();
+        pass(pingBuffer, brightShader, sceneBuffer.getColorBufferTexture(), 0f, 0f);
+
+        // 5. Desenfoque: ping -> pong (horizontal) -> ping (vertical)
+        for (int i = 0; i < blurPasses; i++) {
+            pass(pongBuffer, blurShader, pingBuffer.getColorBufferTexture(), 1f / pingBuffer.getWidth(), 0f);
+            pass(pingBuffer, blurShader, pongBuffer.getColorBufferTexture(), 0f, 1f / pingBuffer.getHeight());
+        }
+
+        // 6. Composición en pantalla
+        Gdx.gl.glViewport(0, 0, Gdx.graphics.getBackBufferWidth(), Gdx.graphics.getBackBufferHeight());
+        pingBuffer.getColorBufferTexture().bind(1);
+        Gdx.gl.glActiveTexture(GL20.GL_TEXTURE0);
+        batch.setShader(compositeShader);
+        batch.begin();
+        compositeShader.setUniformi("u_bloom", 1);
+        compositeShader.setUniformf("u_intensity", intensity);
+        draw(sceneBuffer.getColorBufferTexture());
+        batch.end();
+        batch.enableBlending();
+
+        if (profiling)
+            Gdx.gl.glFinish();
+        lastPassNanos = System.nanoTime() - start;
+    }
+
+    // Dibuja source a pantalla completa en target con shader (la dirección
+    // sólo la usa el desenfoque)
+    private void pass(FrameBuffer target, ShaderProgram shader, Texture source,
+                      float directionX, float directionY) {
+        target.begin();
+        batch.setShader(shader);
+        batch.begin();
+        if (shader == brightShader)
+            shader.setUniformf("u_threshold", threshold);
+        else
+            shader.setUniformf("u_direction", directionX, directionY);
+        draw(source);
+        batch.end();
+        target.end();
+    }
+
+    // Las texturas de FrameBuffer están invertidas en Y
+    private void draw(Texture texture) {
+        batch.draw(texture, 0, 0, 1, 1, 0, 0, texture.getWidth(), texture.getHeight(), false, true);
+    }
+
+    /** Tiempo de las pasadas de bloom en el último {@link #end()} (con GPU si hay profiling). */
+    public long getLastPassNanos() {
+        return lastPassNanos;
+    }
+
+    private void disposeBuffers() {
+        if (sceneBuffer == null)
+            return;
+        sceneBuffer.dispose();
+        pingBuffer.dispose();
+        pongBuffer.dispose();
+    }
+
+    @Override
+    public void dispose() {
+        disposeBuffers();
+        batch.dispose();
+        brightShader.dispose();
+        blurShader.dispose();
+        compositeShader.dispose();
+    }
+}
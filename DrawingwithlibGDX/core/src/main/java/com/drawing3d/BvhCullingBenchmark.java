@@ -0,0 +1,108 @@
+package com.drawing3d;
+
+import com.badlogic.gdx.graphics.PerspectiveCamera;
+import com.badlogic.gdx.math.Frustum;
+import com.badlogic.gdx.utils.GdxNativesLoader;
+import com.badlogic.gdx.utils.IntArray;
+
+import java.util.Random;
+
+/**
+ * Prueba sin ventana del culling con {@link SphereBvh}: genera un cinturón de
+ * asteroides de N esferas alrededor del origen, construye el árbol y mide el
+ * tiempo de culling y el tamaño del conjunto visible para varias
+ * orientaciones de cámara, comparando con probar esfera por esfera.
+ * El frustum usa código nativo de libGDX, así que hay que lanzarlo con los
+ * natives de escritorio en el classpath, como hace la tarea del módulo headless:
+ * <pre>
+ * ./gradlew headless:bvhCullingBenchmark --args='[objetos=1000000] [vistas=200]'
+ * </pre>
+ */
+public class BvhCullingBenchmark {
+    private static final float BELT_INNER_RADIUS = 200f;
+    private static final float BELT_OUTER_RADIUS = 400f;
+    private static final float BELT_THICKNESS = 20f;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int views = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        // Sin aplicación no hay backend que cargue los natives (Matrix4.prj)
+        GdxNativesLoader.load();
+
+        // 1. Cinturón de asteroides
+        Random random = new Random(42);
+        float[] x = new float[count], y = new float[count], z = new float[count];
+        float[] radius = new float[count];
+        for (int i = 0; i < count; i++) {
+            double angle = random.nextDouble() * Math.PI * 2;
+            double distance = BELT_INNER_RADIUS + random.nextDouble() * (BELT_OUTER_RADIUS - BELT_INNER_RADIUS);
+            x[i] = (float) (Math.cos(angle) * distance);
+            y[i] = (float) (random.nextGaussian() * BELT_THICKNESS / 2);
+            z[i] = (float) (Math.sin(angle) * distance);
+            radius[i] = 0.1f + random.nextFloat() * 0.9f;
+        }
+
+        // 2. Construcción del árbol
+        SphereBvh bvh = new SphereBvh();
+        long buildStart = System.nanoTime();
+        bvh.build(x, y, z, radius, count);
+        long buildNanos = System.nanoTime() - buildStart;
+        long refitStart = System.nanoTime();
+        bvh.refit();
+        long refitNanos = System.nanoTime() - refitStart;
+        System.out.printf("%d esferas, %d nodos: construcción %.1f ms, refit %.1f ms%n",
+                count, bvh.getNodeCount(), buildNanos / 1e6, refitNanos / 1e6);
+
+        // 3. Cámara dentro del cinturón mirando en direcciones al azar
+        PerspectiveCamera camera = new PerspectiveCamera(67, 1280, 720);
+        camera.near = 0.1f;
+        camera.far = 500f;
+        IntArray visible = new IntArray(count);
+        long bvhNanos = 0;
+        long bruteNanos = 0;
+        long visibleTotal = 0;
+        int mismatches = 0;
+        for (int pass = -1; pass < views; pass++) {
+            float angle = random.nextFloat() * 360f;
+            camera.position.set(
+                    (float) Math.cos(Math.toRadians(angle)) * 300f,
+                    5f,
+                    (float) Math.sin(Math.toRadians(angle)) * 300f);
+            camera.direction.set(random.nextFloat() - 0.5f, (random.nextFloat() - 0.5f) * 0.3f,
+                    random.nextFloat() - 0.5f).nor();
+            camera.up.set(0f, 1f, 0f);
+            camera.update();
+
+            visible.clear();
+            long start = System.nanoTime();
+            bvh.query(camera.frustum, visible);
+            long bvhPass = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int bruteVisible = bruteForce(camera.frustum, x, y, z, radius, count);
+            long brutePass = System.nanoTime() - start;
+
+            if (pass < 0)
+                continue; // calentamiento
+            bvhNanos += bvhPass;
+            bruteNanos += brutePass;
+            visibleTotal += visible.size;
+            if (visible.size != bruteVisible)
+                mismatches++;
+        }
+
+        System.out.printf("Culling BVH: %.3f ms/vista, esfera por esfera: %.3f ms/vista (%.0fx)%n",
+                bvhNanos / 1e6 / views, bruteNanos / 1e6 / views, bruteNanos / (double) bvhNanos);
+        System.out.printf("Visibles: %d de media (%.1f%%), %d vistas con resultado distinto%n",
+                visibleTotal / views, 100.0 * visibleTotal / views / count, mismatches);
+    }
+
+    private static int bruteForce(Frustum frustum, float[] x, float[] y, float[] z, float[] radius, int count) {
+        int visible = 0;
+        for (int i = 0; i < count; i++) {
+            if (frustum.sphereInFrustum(x[i], y[i], z[i], radius[i]))
+                visible++;
+        }
+        return visible;
+    }
+}
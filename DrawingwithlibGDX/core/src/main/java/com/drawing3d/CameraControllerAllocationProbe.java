@@ -0,0 +1,91 @@
+package com.drawing3d;
+
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.graphics.PerspectiveCamera;
+import com.badlogic.gdx.utils.GdxNativesLoader;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Comprueba sin ventana que {@link FirstPersonCameraController#update} no
+ * reserva memoria: simula teclas y arrastres de ratón durante muchos frames
+ * y mide con el contador de bytes por hilo de HotSpot lo que se reservó.
+ * Calienta el JIT con varias rondas completas y mide otras tantas: el JIT y
+ * el OSR también reservan en este hilo mientras compilan, así que solo cuenta
+ * la ronda más limpia. Sale con código 1 si en ella se reservó algo.
+ * <pre>
+ * ./gradlew headless:cameraControllerAllocationProbe --args='[frames=1000000] [rondas=3]'
+ * </pre>
+ */
+public class CameraControllerAllocationProbe {
+    private static final int[] KEYS = {
+            Input.Keys.W, Input.Keys.A, Input.Keys.S, Input.Keys.D,
+            Input.Keys.LEFT, Input.Keys.RIGHT, Input.Keys.UP, Input.Keys.DOWN };
+
+    public static void main(String[] args) {
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int rounds = Math.max(1, args.length > 1 ? Integer.parseInt(args[1]) : 3);
+        // Sin aplicación no hay backend que cargue los natives (Matrix4.prj)
+        GdxNativesLoader.load();
+
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)
+                || !((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            System.out.println("Esta JVM no cuenta los bytes reservados por hilo");
+            return;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        threads.setThreadAllocatedMemoryEnabled(true);
+        long thread = Thread.currentThread().getId();
+
+        PerspectiveCamera camera = new PerspectiveCamera(67, 1280, 720);
+        camera.position.set(10f, 10f, 10f);
+        camera.lookAt(0f, 0f, 0f);
+        camera.update();
+        FirstPersonCameraController controller = new FirstPersonCameraController(camera);
+
+        // Calentar el JIT con rondas completas de la misma secuencia
+        for (int round = 0; round < rounds; round++)
+            run(controller, frames);
+
+        // Medir varias rondas y quedarse con la mínima
+        long bytes = Long.MAX_VALUE;
+        long nanos = Long.MAX_VALUE;
+        for (int round = 0; round < rounds; round++) {
+            long before = threads.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            run(controller, frames);
+            long roundNanos = System.nanoTime() - start;
+            long roundBytes = threads.getThreadAllocatedBytes(thread) - before;
+            System.out.printf("Ronda %d: %d bytes reservados, %.1f ns/update%n",
+                    round + 1, roundBytes, roundNanos / (double) frames);
+            bytes = Math.min(bytes, roundBytes);
+            nanos = Math.min(nanos, roundNanos);
+        }
+
+        System.out.printf("%d updates: %d bytes reservados (%.4f por update), %.1f ns/update%n",
+                frames, bytes, bytes / (double) frames, nanos / (double) frames);
+        System.out.printf("Cámara final: posición %s, dirección %s%n", camera.position, camera.direction);
+        if (bytes != 0)
+            System.exit(1);
+    }
+
+    // Cambia de tecla cada 30 frames y arrastra el ratón en círculos
+    private static void run(FirstPersonCameraController controller, int frames) {
+        controller.touchDown(640, 360, 0, Input.Buttons.LEFT);
+        for (int frame = 0; frame < frames; frame++) {
+            if (frame % 30 == 0) {
+                int key = KEYS[(frame / 30) % KEYS.length];
+                controller.keyUp(KEYS[(frame / 30 + KEYS.length - 1) % KEYS.length]);
+                controller.keyDown(key);
+            }
+            double angle = frame * 0.05;
+            controller.touchDragged(640 + (int) (Math.cos(angle) * 40), 360 + (int) (Math.sin(angle) * 40), 0);
+            controller.update(1 / 60f);
+        }
+        controller.touchUp(640, 360, 0, Input.Buttons.LEFT);
+        for (int key : KEYS)
+            controller.keyUp(key);
+    }
+}
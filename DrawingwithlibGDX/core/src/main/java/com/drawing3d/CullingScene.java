@@ -0,0 +1,124 @@
+package com.drawing3d;
+
+import com.badlogic.gdx.graphics.Camera;
+import com.badlogic.gdx.graphics.g3d.Environment;
+import com.badlogic.gdx.graphics.g3d.ModelBatch;
+import com.badlogic.gdx.graphics.g3d.ModelInstance;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.math.collision.BoundingBox;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+
+import java.util.Arrays;
+
+/**
+ * Conjunto de {@link ModelInstance}s con culling por frustum. Cada instancia
+ * guarda su esfera envolvente local (calculada una vez al añadirla); en cada
+ * frame se lleva a mundo con el transform de la instancia y se reajusta la
+ * {@link SphereBvh}, que luego devuelve sólo lo que ve la cámara.
+ */
+public class CullingScene {
+    // 1. Instancias y sus esferas locales (cacheadas)
+    private final Array<ModelInstance> instances = new Array<>();
+    private float[] localX = new float[16], localY = new float[16], localZ = new float[16];
+    private float[] localRadius = new float[16];
+
+    // 2. Esferas en mundo y árbol
+    private float[] x = new float[16], y = new float[16], z = new float[16];
+    private float[] radius = new float[16];
+    private final SphereBvh bvh = new SphereBvh();
+    private boolean rebuild = true;
+
+    // 3. Resultado del último culling
+    private final IntArray visibleIds = new IntArray();
+    private final Array<ModelInstance> visible = new Array<>();
+    private long lastCullNanos;
+
+    private final BoundingBox box = new BoundingBox();
+    private final Vector3 tmp = new Vector3();
+
+    /** Añade una instancia; su esfera local se calcula aquí una sola vez. */
+    public void add(ModelInstance instance) {
+        int id = instances.size;
+        if (id == localX.length)
+            grow(id * 2);
+        instances.add(instance);
+
+        instance.calculateBoundingBox(box);
+        box.getCenter(tmp);
+        localX[id] = tmp.x;
+        localY[id] = tmp.y;
+        localZ[id] = tmp.z;
+        localRadius[id] = box.getDimensions(tmp).len() / 2f;
+        rebuild = true;
+    }
+
+    private void grow(int capacity) {
+        localX = Arrays.copyOf(localX, capacity);
+        localY = Arrays.copyOf(localY, capacity);
+        localZ = Arrays.copyOf(localZ, capacity);
+        localRadius = Arrays.copyOf(localRadius, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        z = Arrays.copyOf(z, capacity);
+        radius = Arrays.copyOf(radius, capacity);
+    }
+
+    /**
+     * Lleva las esferas a mundo con los transforms actuales. Llamar después
+     * de mover las instancias y antes de {@link #cull}.
+     */
+    public void update() {
+        for (int i = 0; i < instances.size; i++) {
+            ModelInstance instance = instances.get(i);
+            tmp.set(localX[i], localY[i], localZ[i]).mul(instance.transform);
+            x[i] = tmp.x;
+            y[i] = tmp.y;
+            z[i] = tmp.z;
+            instance.transform.getScale(tmp);
+            radius[i] = localRadius[i] * Math.max(Math.abs(tmp.x), Math.max(Math.abs(tmp.y), Math.abs(tmp.z)));
+        }
+        if (rebuild) {
+            bvh.build(x, y, z, radius, instances.size);
+            rebuild = false;
+        } else {
+            bvh.refit();
+        }
+    }
+
+    /** Devuelve las instancias que tocan el frustum de {@code camera} (array reutilizado). */
+    public Array<ModelInstance> cull(Camera camera) {
+        long start = System.nanoTime();
+        visibleIds.clear();
+        bvh.query(camera.frustum, visibleIds);
+        visible.clear();
+        for (int i = 0; i < visibleIds.size; i++)
+            visible.add(instances.get(visibleIds.get(i)));
+        lastCullNanos = System.nanoTime() - start;
+        return visible;
+    }
+
+    /** Atajo: {@link #update()}, {@link #cull} y render de lo visible. */
+    public void render(ModelBatch modelBatch, Camera camera, Environment environment) {
+        update();
+        Array<ModelInstance> instancesInView = cull(camera);
+        for (int i = 0; i < instancesInView.size; i++)
+            modelBatch.render(instancesInView.get(i), environment);
+    }
+
+    public boolean isVisible(ModelInstance instance) {
+        return visible.contains(instance, true);
+    }
+
+    public int getSize() {
+        return instances.size;
+    }
+
+    public int getVisibleCount() {
+        return visible.size;
+    }
+
+    public long getLastCullNanos() {
+        return lastCullNanos;
+    }
+}
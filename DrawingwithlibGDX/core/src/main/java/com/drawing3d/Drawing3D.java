@@ -2,7 +2,6 @@ package com.drawing3d;
 
 import com.badlogic.gdx.ApplicationAdapter;
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.Input;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.PerspectiveCamera;
@@ -13,22 +12,56 @@ import com.badlogic.gdx.graphics.g3d.ModelInstance;
 import com.badlogic.gdx.graphics.g3d.Material;
 import com.badlogic.gdx.graphics.g3d.attributes.ColorAttribute;
 import com.badlogic.gdx.graphics.g3d.environment.DirectionalLight;
-import com.badlogic.gdx.graphics.g3d.utils.ModelBuilder;
 import com.badlogic.gdx.graphics.VertexAttributes;
 import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.GdxRuntimeException;
 
 public class Drawing3D extends ApplicationAdapter {
-    // 1–2. Cámara, batch y entorno
+    // 1–2. Cámara, controlador, batch y entorno
     public PerspectiveCamera camera;
+    public FirstPersonCameraController cameraController;
     public ModelBatch modelBatch;
     public Environment environment;
 
-    // 3. Modelos e instancias
+    // 3. Modelos (mallas unitarias compartidas de la caché) e instancias
+    public SharedModelCache modelCache;
     public Model boxModel, sphereModel, cylinderModel, coneModel;
     public ModelInstance boxInstance, sphereInstance, cylinderInstance, coneInstance;
+    public final CullingScene cullingScene = new CullingScene();
 
-    // 4. Ángulo de rotación
+    // 4. Ángulo de rotación y tamaño de cada figura (escala del transform)
     private float rotationAngle = 0;
+    private static final Vector3 BOX_SIZE = new Vector3(2f, 2f, 2f);
+    private static final Vector3 SPHERE_SIZE = new Vector3(3f, 3f, 3f);
+    private static final Vector3 CYLINDER_SIZE = new Vector3(2f, 3f, 2f);
+    private static final Vector3 CONE_SIZE = new Vector3(3f, 3f, 3f);
+
+    // 5. Modo instanciado: N copias de cada figura, una llamada de dibujo por
+    // figura. Con N = 1 se usa la escena original con ModelBatch
+    private static final int[] BENCHMARK_COUNTS = {1, 10, 100, 1000, 10000, 25000};
+    private static final int BENCHMARK_WARMUP_FRAMES = 60;
+    private static final int BENCHMARK_FRAMES = 300;
+    private final int instancesPerShape;
+    private final boolean benchmark;
+    private InstancedShapes instancedShapes;
+    private int currentPerShape = 1;
+    private int benchmarkStep;
+    private int benchmarkFrame;
+    private long benchmarkStart;
+    private long benchmarkCpuNanos;
+
+    public Drawing3D() {
+        this(1, false);
+    }
+
+    /**
+     * @param instancesPerShape copias de cada figura (N &gt; 1 requiere GL30)
+     * @param benchmark recorre varios N, registra el tiempo de frame y sale
+     */
+    public Drawing3D(int instancesPerShape, boolean benchmark) {
+        this.instancesPerShape = instancesPerShape;
+        this.benchmark = benchmark;
+    }
 
     @Override
     public void create() {
@@ -42,6 +75,8 @@ public class Drawing3D extends ApplicationAdapter {
         camera.near = 1f;
         camera.far = 300f;
         camera.update();
+        cameraController = new FirstPersonCameraController(camera);
+        Gdx.input.setInputProcessor(cameraController);
 
         // 7. Setup model batch y environment
         modelBatch = new ModelBatch();
@@ -58,32 +93,52 @@ public class Drawing3D extends ApplicationAdapter {
         Material cylinderMaterial = new Material(ColorAttribute.createDiffuse(Color.BLUE));
         Material coneMaterial = new Material(ColorAttribute.createDiffuse(Color.YELLOW));
 
-        // 8. ModelBuilder
-        ModelBuilder modelBuilder = new ModelBuilder();
-
-        // 9. Crear los modelos
-        boxModel = modelBuilder.createBox(
-                2f, 2f, 2f,
-                boxMaterial,
-                VertexAttributes.Usage.Position | VertexAttributes.Usage.Normal);
-        sphereModel = modelBuilder.createSphere(
-                3f, 3f, 3f, 20, 20,
-                sphereMaterial,
-                VertexAttributes.Usage.Position | VertexAttributes.Usage.Normal);
-        cylinderModel = modelBuilder.createCylinder(
-                2f, 3f, 2f, 20,
-                cylinderMaterial,
-                VertexAttributes.Usage.Position | VertexAttributes.Usage.Normal);
-        coneModel = modelBuilder.createCone(
-                3f, 3f, 3f, 20,
-                coneMaterial,
-                VertexAttributes.Usage.Position | VertexAttributes.Usage.Normal);
-
-        // 10. Crear las instancias y posicionarlas
-        boxInstance = new ModelInstance(boxModel, -5f, 0f, 0f);
-        sphereInstance = new ModelInstance(sphereModel, 0f, 0f, 5f);
-        cylinderInstance = new ModelInstance(cylinderModel, 5f, 0f, 0f);
-        coneInstance = new ModelInstance(coneModel, 0f, 0f, -5f);
+        // 9. Pedir los modelos a la caché
+        long attributes = VertexAttributes.Usage.Position | VertexAttributes.Usage.Normal;
+        modelCache = new SharedModelCache();
+        boxModel = modelCache.acquire(SharedModelCache.Shape.BOX, 0, 0, attributes);
+        sphereModel = modelCache.acquire(SharedModelCache.Shape.SPHERE, 20, 20, attributes);
+        cylinderModel = modelCache.acquire(SharedModelCache.Shape.CYLINDER, 20, 0, attributes);
+        coneModel = modelCache.acquire(SharedModelCache.Shape.CONE, 20, 0, attributes);
+        Gdx.app.log("Drawing3D", modelCache.getStats());
+
+        // 10. Crear las instancias (material propio) y posicionarlas
+        boxInstance = SharedModelCache.createInstance(boxModel, boxMaterial);
+        sphereInstance = SharedModelCache.createInstance(sphereModel, sphereMaterial);
+        cylinderInstance = SharedModelCache.createInstance(cylinderModel, cylinderMaterial);
+        coneInstance = SharedModelCache.createInstance(coneModel, coneMaterial);
+        cullingScene.add(boxInstance);
+        cullingScene.add(sphereInstance);
+        cullingScene.add(cylinderInstance);
+        cullingScene.add(coneInstance);
+
+        // 11. Mallas instanciadas, sólo si alguna vez habrá más de una copia
+        int maxPerShape = benchmark ? BENCHMARK_COUNTS[BENCHMARK_COUNTS.length - 1] : instancesPerShape;
+        if (maxPerShape > 1) {
+            if (Gdx.gl30 == null)
+                throw new GdxRuntimeException("El modo instanciado requiere GL30");
+            instancedShapes = new InstancedShapes(maxPerShape,
+                    new Model[] { boxModel, sphereModel, cylinderModel, coneModel },
+                    new Color[] { Color.RED, Color.GREEN, Color.BLUE, Color.YELLOW },
+                    new Vector3[] { BOX_SIZE, SPHERE_SIZE, CYLINDER_SIZE, CONE_SIZE },
+                    new Vector3[] { Vector3.Y, Vector3.X, Vector3.Z, new Vector3(1f, 1f, 0f) });
+        }
+        setInstancesPerShape(benchmark ? BENCHMARK_COUNTS[0] : instancesPerShape);
+    }
+
+    // Coloca la escena de N copias y aleja la cámara hasta que quepa entera
+    private void setInstancesPerShape(int perShape) {
+        currentPerShape = perShape;
+        float distance = 10f;
+        if (perShape > 1) {
+            instancedShapes.layout(perShape);
+            distance = Math.max(10f, instancedShapes.getExtent());
+        }
+        camera.position.set(distance, distance, distance);
+        camera.lookAt(0f, 0f, 0f);
+        camera.far = Math.max(300f, distance * 4f);
+        camera.update();
+        cameraController.setMaxSpeed(distance / 2f);
     }
 
     @Override
@@ -96,8 +151,10 @@ public class Drawing3D extends ApplicationAdapter {
 
     @Override
     public void render() {
-        // 12. Manejar input
-        handleInput();
+        long frameStart = System.nanoTime();
+
+        // 12. Manejar input (WASD, flechas y arrastrar con el ratón)
+        cameraController.update(Gdx.graphics.getDeltaTime());
 
         // 13. Limpiar pantalla
         Gdx.gl.glViewport(0, 0, Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
@@ -106,65 +163,80 @@ public class Drawing3D extends ApplicationAdapter {
         // 14. Actualizar ángulo de rotación
         rotationAngle += Gdx.graphics.getDeltaTime() * 20f;
 
+        if (currentPerShape > 1) {
+            // 15–16. Todas las copias con una llamada por figura
+            instancedShapes.render(camera, rotationAngle);
+        } else {
+            renderSingle();
+        }
+
+        if (benchmark)
+            updateBenchmark(frameStart);
+    }
+
+    private void renderSingle() {
         // 15. Aplicar rotación y mantener posición
         boxInstance.transform
                 .setToRotation(0, 1, 0, rotationAngle)
-                .trn(-5f, 0f, 0f);
+                .trn(-5f, 0f, 0f)
+                .scale(BOX_SIZE.x, BOX_SIZE.y, BOX_SIZE.z);
         sphereInstance.transform
                 .setToRotation(1, 0, 0, rotationAngle)
-                .trn(0f, 0f, 5f);
+                .trn(0f, 0f, 5f)
+                .scale(SPHERE_SIZE.x, SPHERE_SIZE.y, SPHERE_SIZE.z);
         cylinderInstance.transform
                 .setToRotation(0, 0, 1, rotationAngle)
-                .trn(5f, 0f, 0f);
+                .trn(5f, 0f, 0f)
+                .scale(CYLINDER_SIZE.x, CYLINDER_SIZE.y, CYLINDER_SIZE.z);
         coneInstance.transform
                 .setToRotation(1, 1, 0, rotationAngle)
-                .trn(0f, 0f, -5f);
+                .trn(0f, 0f, -5f)
+                .scale(CONE_SIZE.x, CONE_SIZE.y, CONE_SIZE.z);
 
-        // 16. Render con modelBatch
+        // 16. Render con modelBatch, sólo lo que está en el frustum
         modelBatch.begin(camera);
-        modelBatch.render(boxInstance, environment);
-        modelBatch.render(sphereInstance, environment);
-        modelBatch.render(cylinderInstance, environment);
-        modelBatch.render(coneInstance, environment);
+        cullingScene.render(modelBatch, camera, environment);
         modelBatch.end();
     }
 
-    // 17. handleInput()
-    private void handleInput() {
-        float delta = Gdx.graphics.getDeltaTime() * 5f;
-
-        // WASD: mover cámara
-        if (Gdx.input.isKeyPressed(Input.Keys.W))
-            camera.position.add(camera.direction.cpy().scl(delta));
-        if (Gdx.input.isKeyPressed(Input.Keys.S))
-            camera.position.add(camera.direction.cpy().scl(-delta));
-        if (Gdx.input.isKeyPressed(Input.Keys.A))
-            camera.position.add(camera.direction.cpy()
-                    .crs(camera.up.nor()).scl(-delta));
-        if (Gdx.input.isKeyPressed(Input.Keys.D))
-            camera.position.add(camera.direction.cpy()
-                    .crs(camera.up.nor()).scl(delta));
-
-        // Flechas: rotar cámara
-        if (Gdx.input.isKeyPressed(Input.Keys.LEFT))
-            camera.rotate(Vector3.Y, 1f);
-        if (Gdx.input.isKeyPressed(Input.Keys.RIGHT))
-            camera.rotate(Vector3.Y, -1f);
-        if (Gdx.input.isKeyPressed(Input.Keys.UP))
-            camera.rotate(camera.direction.cpy().crs(camera.up.nor()), 1f);
-        if (Gdx.input.isKeyPressed(Input.Keys.DOWN))
-            camera.rotate(camera.direction.cpy().crs(camera.up.nor()), -1f);
-
-        camera.update();
+    // Mide BENCHMARK_FRAMES frames por cada N tras calentar y pasa al siguiente
+    private void updateBenchmark(long frameStart) {
+        long cpuNanos = System.nanoTime() - frameStart;
+        Gdx.gl.glFinish(); // que el tiempo de frame incluya el trabajo de la GPU
+
+        benchmarkFrame++;
+        if (benchmarkFrame == BENCHMARK_WARMUP_FRAMES) {
+            benchmarkStart = System.nanoTime();
+            benchmarkCpuNanos = 0;
+        } else if (benchmarkFrame > BENCHMARK_WARMUP_FRAMES) {
+            benchmarkCpuNanos += cpuNanos;
+        }
+        if (benchmarkFrame < BENCHMARK_WARMUP_FRAMES + BENCHMARK_FRAMES)
+            return;
+
+        double frameMillis = (System.nanoTime() - benchmarkStart) / 1e6 / BENCHMARK_FRAMES;
+        double cpuMillis = benchmarkCpuNanos / 1e6 / BENCHMARK_FRAMES;
+        Gdx.app.log("Drawing3D", String.format(
+                "%7d instancias: %8.3f ms/frame (%6.0f fps), %8.3f ms de CPU en render()",
+                currentPerShape * 4, frameMillis, 1000 / frameMillis, cpuMillis));
+
+        benchmarkFrame = 0;
+        if (++benchmarkStep == BENCHMARK_COUNTS.length)
+            Gdx.app.exit();
+        else
+            setInstancesPerShape(BENCHMARK_COUNTS[benchmarkStep]);
     }
 
     @Override
     public void dispose() {
         // 18. Limpiar recursos nativos
         modelBatch.dispose();
-        boxModel.dispose();
-        sphereModel.dispose();
-        cylinderModel.dispose();
-        coneModel.dispose();
+        modelCache.release(boxModel);
+        modelCache.release(sphereModel);
+        modelCache.release(cylinderModel);
+        modelCache.release(coneModel);
+        modelCache.dispose();
+        if (instancedShapes != null)
+            instancedShapes.dispose();
     }
 }
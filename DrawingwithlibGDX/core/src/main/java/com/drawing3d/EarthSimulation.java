@@ -10,12 +10,10 @@ import com.badlogic.gdx.graphics.PerspectiveCamera;
 
 import com.badlogic.gdx.graphics.g3d.Environment;
 import com.badlogic.gdx.graphics.g3d.ModelBatch;
-import com.badlogic.gdx.graphics.g3d.Model;
 import com.badlogic.gdx.graphics.g3d.ModelInstance;
 import com.badlogic.gdx.graphics.g3d.utils.CameraInputController;
 import com.badlogic.gdx.graphics.g3d.attributes.ColorAttribute;
 import com.badlogic.gdx.graphics.g3d.environment.DirectionalLight;
-import com.badlogic.gdx.graphics.g3d.utils.ModelBuilder;
 import com.badlogic.gdx.graphics.g3d.Material;
 import com.badlogic.gdx.graphics.VertexAttributes;
 import com.badlogic.gdx.graphics.g3d.attributes.TextureAttribute;
@@ -28,9 +26,13 @@ public class EarthSimulation extends ApplicationAdapter {
     public Environment environment;
 
     // 6. Modelo, instancia y textura de la Tierra
-    public Model earthModel;
+    public SharedModelCache modelCache;
+    public SphereLod sphereLod;
+    private SphereLod.Body earthBody;
     public ModelInstance earthInstance;
+    public final CullingScene cullingScene = new CullingScene();
     public Texture earthTexture;
+    private MipChainTexture earthMips;
 
     // 7. Ángulo, radio y velocidad de rotación
     private float rotationAngle = 0;
@@ -62,24 +64,31 @@ public class EarthSimulation extends ApplicationAdapter {
         environment.add(new DirectionalLight()
                 .set(0.8f, 0.8f, 0.8f, -1f, -0.8f, -0.2f));
 
-        // 11. Cargar textura y crear modelo de esfera
-        earthTexture = new Texture(Gdx.files.internal("earth.jpg"));
-        ModelBuilder modelBuilder = new ModelBuilder();
-        earthModel = modelBuilder.createSphere(
-                EARTH_RADIUS, EARTH_RADIUS, EARTH_RADIUS,
-                64, 64, // divisiones para suavidad
+        // 11. Cargar textura y crear la esfera (hasta 64 divisiones según su tamaño en pantalla)
+        earthMips = MipChainTexture.load(Gdx.files.internal("earth.mip"), Gdx.files.internal("earth.jpg"));
+        earthTexture = earthMips.texture;
+        modelCache = new SharedModelCache();
+        sphereLod = new SphereLod(modelCache, VertexAttributes.Usage.Position
+                | VertexAttributes.Usage.Normal
+                | VertexAttributes.Usage.TextureCoordinates);
+        earthBody = sphereLod.add(
                 new Material(TextureAttribute.createDiffuse(earthTexture)),
-                VertexAttributes.Usage.Position
-                        | VertexAttributes.Usage.Normal
-                        | VertexAttributes.Usage.TextureCoordinates);
-        earthInstance = new ModelInstance(earthModel);
+                EARTH_RADIUS, 64);
+        earthInstance = earthBody.instance;
+        cullingScene.add(earthInstance);
+        Gdx.app.log("EarthSimulation", modelCache.getStats());
     }
 
     @Override
     public void render() {
+        // 13. Subir el siguiente mipmap de la Tierra si ya está en memoria
+        earthMips.update();
+
         // 13. Actualizar rotación
         rotationAngle += ROTATION_SPEED * Gdx.graphics.getDeltaTime();
         earthInstance.transform.setToRotation(Vector3.Y, rotationAngle);
+        SphereLod.applyScale(earthBody);
+        sphereLod.update(camera);
 
         // 13. Limpiar pantalla
         Gdx.gl.glViewport(
@@ -90,9 +99,9 @@ public class EarthSimulation extends ApplicationAdapter {
                 GL20.GL_COLOR_BUFFER_BIT
                         | GL20.GL_DEPTH_BUFFER_BIT);
 
-        // 13. Renderizar Tierra
+        // 13. Renderizar Tierra (si está en el frustum)
         modelBatch.begin(camera);
-        modelBatch.render(earthInstance, environment);
+        cullingScene.render(modelBatch, camera, environment);
         modelBatch.end();
 
         // 13. Actualizar controlador de cámara
@@ -103,8 +112,9 @@ public class EarthSimulation extends ApplicationAdapter {
     public void dispose() {
         // 14. Liberar recursos
         modelBatch.dispose();
-        earthModel.dispose();
-        earthTexture.dispose();
+        sphereLod.dispose();
+        modelCache.dispose();
+        earthMips.dispose();
     }
 
     @Override
@@ -0,0 +1,159 @@
+package com.drawing3d;
+
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.InputAdapter;
+import com.badlogic.gdx.graphics.Camera;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Quaternion;
+import com.badlogic.gdx.math.Vector3;
+
+/**
+ * Cámara en primera persona: WASD para moverse (con aceleración y frenado
+ * suaves), flechas o arrastrar el ratón para mirar. La orientación se lee
+ * siempre de la cámara, así que se puede mover la cámara desde fuera.
+ * <p>
+ * {@link #update} no reserva memoria: todo se hace sobre vectores y
+ * cuaterniones preasignados (ver {@code CameraControllerAllocationProbe}).
+ */
+public class FirstPersonCameraController extends InputAdapter {
+    // 1. Ajustes
+    private static final float MAX_PITCH = 89f;
+    private float maxSpeed = 5f; // unidades/s
+    private float acceleration = 8f; // 1/s: cuánto tarda en alcanzar la velocidad
+    private float keyTurnSpeed = 60f; // °/s con las flechas
+    private float mouseSensitivity = 0.2f; // °/píxel
+
+    // 2. Estado de entrada
+    private final Camera camera;
+    private boolean forward, back, left, right;
+    private boolean turnLeft, turnRight, turnUp, turnDown;
+    private float mouseYaw, mousePitch;
+    private int lastX, lastY;
+    private boolean dragging;
+
+    // 3. Velocidad actual y temporales
+    private final Vector3 velocity = new Vector3();
+    private final Vector3 target = new Vector3();
+    private final Vector3 side = new Vector3();
+    private final Quaternion rotation = new Quaternion();
+
+    public FirstPersonCameraController(Camera camera) {
+        this.camera = camera;
+    }
+
+    public void setMaxSpeed(float maxSpeed) {
+        this.maxSpeed = maxSpeed;
+    }
+
+    public void setAcceleration(float acceleration) {
+        this.acceleration = acceleration;
+    }
+
+    public void setKeyTurnSpeed(float keyTurnSpeed) {
+        this.keyTurnSpeed = keyTurnSpeed;
+    }
+
+    public void setMouseSensitivity(float mouseSensitivity) {
+        this.mouseSensitivity = mouseSensitivity;
+    }
+
+    @Override
+    public boolean keyDown(int keycode) {
+        return setKey(keycode, true);
+    }
+
+    @Override
+    public boolean keyUp(int keycode) {
+        return setKey(keycode, false);
+    }
+
+    private boolean setKey(int keycode, boolean pressed) {
+        switch (keycode) {
+            case Input.Keys.W: forward = pressed; return true;
+            case Input.Keys.S: back = pressed; return true;
+            case Input.Keys.A: left = pressed; return true;
+            case Input.Keys.D: right = pressed; return true;
+            case Input.Keys.LEFT: turnLeft = pressed; return true;
+            case Input.Keys.RIGHT: turnRight = pressed; return true;
+            case Input.Keys.UP: turnUp = pressed; return true;
+            case Input.Keys.DOWN: turnDown = pressed; return true;
+            default: return false;
+        }
+    }
+
+    @Override
+    public boolean touchDown(int screenX, int screenY, int pointer, int button) {
+        lastX = screenX;
+        lastY = screenY;
+        dragging = true;
+        return true;
+    }
+
+    @Override
+    public boolean touchUp(int screenX, int screenY, int pointer, int button) {
+        dragging = false;
+        return true;
+    }
+
+    @Override
+    public boolean touchDragged(int screenX, int screenY, int pointer) {
+        if (!dragging)
+            return false;
+        // Se acumula y se aplica en update(), una vez por frame
+        mouseYaw -= (screenX - lastX) * mouseSensitivity;
+        mousePitch -= (screenY - lastY) * mouseSensitivity;
+        lastX = screenX;
+        lastY = screenY;
+        return true;
+    }
+
+    /** Aplica la entrada acumulada a la cámara y llama a {@code camera.update()}. */
+    public void update(float delta) {
+        // 4. Orientación: guiñada alrededor de Y, cabeceo alrededor del lado
+        float yaw = mouseYaw;
+        float pitch = mousePitch;
+        mouseYaw = 0;
+        mousePitch = 0;
+        if (turnLeft) yaw += keyTurnSpeed * delta;
+        if (turnRight) yaw -= keyTurnSpeed * delta;
+        if (turnUp) pitch += keyTurnSpeed * delta;
+        if (turnDown) pitch -= keyTurnSpeed * delta;
+
+        camera.up.set(Vector3.Y);
+        if (yaw != 0) {
+            rotation.setFromAxis(Vector3.Y, yaw);
+            camera.direction.mul(rotation);
+        }
+        if (pitch != 0) {
+            float current = (float) Math.asin(MathUtils.clamp(camera.direction.y, -1f, 1f))
+                    * MathUtils.radiansToDegrees;
+            pitch = MathUtils.clamp(current + pitch, -MAX_PITCH, MAX_PITCH) - current;
+            side.set(camera.direction).crs(Vector3.Y).nor();
+            rotation.setFromAxis(side, pitch);
+            camera.direction.mul(rotation);
+        }
+        camera.direction.nor();
+
+        // 5. Movimiento: velocidad objetivo según las teclas, y la actual se
+        // acerca a ella exponencialmente (aceleración y frenado suaves)
+        side.set(camera.direction).crs(Vector3.Y).nor();
+        target.setZero();
+        if (forward) target.add(camera.direction);
+        if (back) target.sub(camera.direction);
+        if (right) target.add(side);
+        if (left) target.sub(side);
+        if (!target.isZero())
+            target.nor().scl(maxSpeed);
+        velocity.lerp(target, Math.min(1f, acceleration * delta));
+        if (velocity.isZero(1e-4f))
+            velocity.setZero();
+        camera.position.mulAdd(velocity, delta);
+
+        camera.update();
+    }
+
+    /** Velocidad actual en unidades/s. */
+    public float getSpeed() {
+        return velocity.len();
+    }
+}
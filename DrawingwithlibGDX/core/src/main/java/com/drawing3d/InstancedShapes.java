@@ -0,0 +1,190 @@
+package com.drawing3d;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Camera;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.VertexAttribute;
+import com.badlogic.gdx.graphics.VertexAttributes;
+import com.badlogic.gdx.graphics.g3d.Model;
+import com.badlogic.gdx.graphics.g3d.model.MeshPart;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * Dibuja muchas copias de cada figura con una sola llamada de dibujo por
+ * figura (instancing de GL30). Cada instancia aporta su matriz de mundo y su
+ * color, empaquetados en un único buffer de floats que se sube una vez por
+ * frame. La iluminación imita el Environment de {@link Drawing3D}.
+ */
+class InstancedShapes implements Disposable {
+    // 1. Datos por instancia: matriz 4x4 (por columnas) + color RGBA
+    private static final int FLOATS_PER_INSTANCE = 20;
+    private static final float SPACING = 6f;
+
+    private static final String VERTEX_SHADER = ""
+            + "#version 150\n"
+            + "in vec3 a_position;\n"
+            + "in vec3 a_normal;\n"
+            + "in vec4 a_i_world0;\n"
+            + "in vec4 a_i_world1;\n"
+            + "in vec4 a_i_world2;\n"
+            + "in vec4 a_i_world3;\n"
+            + "in vec4 a_i_color;\n"
+            + "uniform mat4 u_projView;\n"
+            + "out vec3 v_normal;\n"
+            + "out vec4 v_color;\n"
+            + "void main() {\n"
+            + "    mat4 world = mat4(a_i_world0, a_i_world1, a_i_world2, a_i_world3);\n"
+            // Matriz normal sin invertir: world = R·S, así que su inversa
+            // traspuesta es R·S⁻¹ = mat3(world)·S⁻², y el cuadrado de cada
+            // escala es la longitud al cuadrado de su columna
+            + "    vec3 scale2 = vec3(dot(world[0].xyz, world[0].xyz),\n"
+            + "                       dot(world[1].xyz, world[1].xyz),\n"
+            + "                       dot(world[2].xyz, world[2].xyz));\n"
+            + "    v_normal = mat3(world) * (a_normal / scale2);\n"
+            + "    v_color = a_i_color;\n"
+            + "    gl_Position = u_projView * world * vec4(a_position, 1.0);\n"
+            + "}\n";
+
+    private static final String FRAGMENT_SHADER = ""
+            + "#version 150\n"
+            + "in vec3 v_normal;\n"
+            + "in vec4 v_color;\n"
+            + "uniform vec3 u_lightDir;\n"
+            + "out vec4 fragColor;\n"
+            + "void main() {\n"
+            + "    float diffuse = max(dot(normalize(v_normal), -u_lightDir), 0.0);\n"
+            + "    fragColor = vec4(v_color.rgb * (0.4 + 0.8 * diffuse), v_color.a);\n"
+            + "}\n";
+
+    // 2. Una malla instanciada por figura
+    private final Mesh[] meshes;
+    private final MeshPart[] parts;
+    private final Color[] colors;
+    private final Vector3[] sizes;
+    private final Vector3[] axes;
+    private final int maxPerShape;
+    private final ShaderProgram shader;
+    private final Vector3 lightDir = new Vector3(-1f, -0.8f, -0.2f).nor();
+
+    // 3. Escena: posiciones base y buffer de instancias
+    private final float[] positions;
+    private final float[] instanceData;
+    private final Matrix4 tmp = new Matrix4();
+    private int perShape;
+    private float extent;
+
+    /**
+     * Copia la primera malla de cada modelo (Position + Normal) a una malla
+     * instanciada con capacidad para {@code maxPerShape} copias. Los modelos
+     * son unitarios: cada figura se escala a {@code sizes}, se pinta de
+     * {@code colors} y gira alrededor de {@code axes}.
+     */
+    InstancedShapes(int maxPerShape, Model[] models, Color[] colors, Vector3[] sizes, Vector3[] axes) {
+        this.maxPerShape = maxPerShape;
+        this.colors = colors;
+        this.sizes = sizes;
+        this.axes = axes;
+        meshes = new Mesh[models.length];
+        parts = new MeshPart[models.length];
+        for (int i = 0; i < models.length; i++) {
+            Mesh source = models[i].meshes.first();
+            float[] vertices = new float[source.getNumVertices() * source.getVertexSize() / 4];
+            short[] indices = new short[source.getNumIndices()];
+            source.getVertices(vertices);
+            source.getIndices(indices);
+
+            meshes[i] = new Mesh(true, source.getNumVertices(), indices.length, source.getVertexAttributes());
+            meshes[i].setVertices(vertices);
+            meshes[i].setIndices(indices);
+            meshes[i].enableInstancedRendering(false, maxPerShape,
+                    new VertexAttribute(VertexAttributes.Usage.Generic, 4, "a_i_world0"),
+                    new VertexAttribute(VertexAttributes.Usage.Generic, 4, "a_i_world1"),
+                    new VertexAttribute(VertexAttributes.Usage.Generic, 4, "a_i_world2"),
+                    new VertexAttribute(VertexAttributes.Usage.Generic, 4, "a_i_world3"),
+                    new VertexAttribute(VertexAttributes.Usage.ColorUnpacked, 4, "a_i_color"));
+            parts[i] = models[i].meshParts.first();
+        }
+
+        shader = new ShaderProgram(VERTEX_SHADER, FRAGMENT_SHADER);
+        if (!shader.isCompiled())
+            throw new GdxRuntimeException("Shader de instancias: " + shader.getLog());
+
+        positions = new float[maxPerShape * models.length * 3];
+        instanceData = new float[maxPerShape * FLOATS_PER_INSTANCE];
+    }
+
+    /** Reparte {@code perShape} copias de cada figura en un cubo centrado en el origen. */
+    void layout(int perShape) {
+        if (perShape > maxPerShape)
+            throw new IllegalArgumentException("Máximo " + maxPerShape + " copias por figura");
+        this.perShape = perShape;
+        int total = perShape * meshes.length;
+        int side = (int) Math.ceil(Math.cbrt(total));
+        float offset = (side - 1) * SPACING / 2f;
+        extent = side * SPACING;
+        // Las figuras se intercalan para que cada una ocupe todo el cubo
+        for (int i = 0; i < total; i++) {
+            int x = i % side;
+            int y = (i / side) % side;
+            int z = i / (side * side);
+            positions[i * 3] = x * SPACING - offset;
+            positions[i * 3 + 1] = y * SPACING - offset;
+            positions[i * 3 + 2] = z * SPACING - offset;
+        }
+    }
+
+    /** Lado del cubo que ocupa la escena actual. */
+    float getExtent() {
+        return extent;
+    }
+
+    int getInstanceCount() {
+        return perShape * meshes.length;
+    }
+
+    /** Gira cada copia alrededor del eje de su figura y dibuja una figura por llamada. */
+    void render(Camera camera, float rotationAngle) {
+        Gdx.gl.glEnable(GL20.GL_DEPTH_TEST);
+        Gdx.gl.glEnable(GL20.GL_CULL_FACE);
+        Gdx.gl.glCullFace(GL20.GL_BACK);
+        shader.bind();
+        shader.setUniformMatrix("u_projView", camera.combined);
+        shader.setUniformf("u_lightDir", lightDir);
+
+        for (int shape = 0; shape < meshes.length; shape++) {
+            Color color = colors[shape];
+            Vector3 size = sizes[shape];
+            int out = 0;
+            for (int n = 0; n < perShape; n++) {
+                int p = (n * meshes.length + shape) * 3;
+                // Desfase por copia para que no giren todas al unísono
+                tmp.setToRotation(axes[shape], rotationAngle + n * 7f)
+                        .trn(positions[p], positions[p + 1], positions[p + 2])
+                        .scale(size.x, size.y, size.z);
+                System.arraycopy(tmp.val, 0, instanceData, out, 16);
+                instanceData[out + 16] = color.r;
+                instanceData[out + 17] = color.g;
+                instanceData[out + 18] = color.b;
+                instanceData[out + 19] = color.a;
+                out += FLOATS_PER_INSTANCE;
+            }
+            meshes[shape].setInstanceData(instanceData, 0, out);
+            meshes[shape].render(shader, GL20.GL_TRIANGLES, parts[shape].offset, parts[shape].size);
+        }
+        Gdx.gl.glDisable(GL20.GL_CULL_FACE);
+        Gdx.gl.glDisable(GL20.GL_DEPTH_TEST);
+    }
+
+    @Override
+    public void dispose() {
+        for (Mesh mesh : meshes)
+            mesh.dispose();
+        shader.dispose();
+    }
+}
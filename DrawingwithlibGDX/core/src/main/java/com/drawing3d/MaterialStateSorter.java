@@ -0,0 +1,116 @@
+package com.drawing3d;
+
+import com.badlogic.gdx.graphics.Camera;
+import com.badlogic.gdx.graphics.g3d.Renderable;
+import com.badlogic.gdx.graphics.g3d.Shader;
+import com.badlogic.gdx.graphics.g3d.attributes.BlendingAttribute;
+import com.badlogic.gdx.graphics.g3d.utils.RenderableSorter;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectIntMap;
+
+import java.util.Comparator;
+
+/**
+ * Ordena la cola de {@code ModelBatch} para cambiar de estado lo menos
+ * posible: lo opaco por shader, luego por material (los materiales con los
+ * mismos atributos quedan juntos) y por último de delante hacia atrás; lo
+ * transparente va al final, de atrás hacia delante, como en
+ * {@code DefaultRenderableSorter}.
+ * <p>
+ * Cuenta los cambios de shader y de material de cada frame, con y sin
+ * ordenar, para ver lo que se ahorra.
+ */
+public class MaterialStateSorter implements RenderableSorter, Comparator<Renderable> {
+    // 1. Identificadores estables por shader (en orden de aparición)
+    private final ObjectIntMap<Shader> shaderIds = new ObjectIntMap<>();
+    private Camera camera;
+    private final Vector3 tmp1 = new Vector3();
+    private final Vector3 tmp2 = new Vector3();
+
+    // 2. Cambios de estado del último sort
+    private int shaderSwitches, materialSwitches;
+    private int unsortedShaderSwitches, unsortedMaterialSwitches;
+
+    @Override
+    public void sort(Camera camera, Array<Renderable> renderables) {
+        this.camera = camera;
+        unsortedShaderSwitches = countShaderSwitches(renderables);
+        unsortedMaterialSwitches = countMaterialSwitches(renderables);
+        renderables.sort(this);
+        shaderSwitches = countShaderSwitches(renderables);
+        materialSwitches = countMaterialSwitches(renderables);
+    }
+
+    @Override
+    public int compare(Renderable a, Renderable b) {
+        boolean aBlended = isBlended(a);
+        boolean bBlended = isBlended(b);
+        if (aBlended != bBlended)
+            return aBlended ? 1 : -1;
+
+        if (!aBlended) {
+            int shader = Integer.compare(shaderId(a.shader), shaderId(b.shader));
+            if (shader != 0)
+                return shader;
+            int material = a.material.compareTo(b.material);
+            if (material != 0)
+                return material;
+        }
+
+        // Opaco de delante hacia atrás; transparente de atrás hacia delante
+        a.worldTransform.getTranslation(tmp1);
+        b.worldTransform.getTranslation(tmp2);
+        float distance = camera.position.dst2(tmp1) - camera.position.dst2(tmp2);
+        int byDistance = distance < 0 ? -1 : (distance > 0 ? 1 : 0);
+        return aBlended ? -byDistance : byDistance;
+    }
+
+    private static boolean isBlended(Renderable renderable) {
+        BlendingAttribute blending = (BlendingAttribute) renderable.material.get(BlendingAttribute.Type);
+        return blending != null && blending.blended;
+    }
+
+    private int shaderId(Shader shader) {
+        int id = shaderIds.get(shader, -1);
+        if (id < 0) {
+            id = shaderIds.size;
+            shaderIds.put(shader, id);
+        }
+        return id;
+    }
+
+    private static int countShaderSwitches(Array<Renderable> renderables) {
+        int switches = 0;
+        for (int i = 0; i < renderables.size; i++) {
+            if (i == 0 || renderables.get(i).shader != renderables.get(i - 1).shader)
+                switches++;
+        }
+        return switches;
+    }
+
+    private static int countMaterialSwitches(Array<Renderable> renderables) {
+        int switches = 0;
+        for (int i = 0; i < renderables.size; i++) {
+            if (i == 0 || renderables.get(i).material.compareTo(renderables.get(i - 1).material) != 0)
+                switches++;
+        }
+        return switches;
+    }
+
+    public int getShaderSwitches() {
+        return shaderSwitches;
+    }
+
+    public int getMaterialSwitches() {
+        return materialSwitches;
+    }
+
+    public int getUnsortedShaderSwitches() {
+        return unsortedShaderSwitches;
+    }
+
+    public int getUnsortedMaterialSwitches() {
+        return unsortedMaterialSwitches;
+    }
+}
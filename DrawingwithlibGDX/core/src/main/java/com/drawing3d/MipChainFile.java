@@ -0,0 +1,132 @@
+package com.drawing3d;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Formato .mip: una textura con toda su cadena de mipmaps ya reducida y
+ * convertida a 16 bits por píxel (RGB565, o RGBA4444 si tiene alfa), lista
+ * para subir con {@code glTexImage2D} sin decodificar nada.
+ * <pre>
+ * cabecera   "MIPC", versión, formato, niveles            (4 int)
+ * por nivel  ancho, alto, offset, bytes                    (4 int)
+ * datos      niveles del más pequeño al más grande
+ * </pre>
+ * Todo en little-endian, el orden nativo de las plataformas de escritorio.
+ * El nivel 0 es el de resolución completa; los datos van al revés para que
+ * lo primero que se lee del disco sea lo que se sube primero.
+ */
+public final class MipChainFile {
+    public static final int MAGIC = 'M' | 'I' << 8 | 'P' << 16 | 'C' << 24;
+    public static final int VERSION = 1;
+    public static final int RGB565 = 0;
+    public static final int RGBA4444 = 1;
+    private static final int HEADER_INTS = 4;
+    private static final int LEVEL_INTS = 4;
+
+    public final int format;
+    private final int[] width, height, offset, length;
+
+    private MipChainFile(int format, int levels) {
+        this.format = format;
+        width = new int[levels];
+        height = new int[levels];
+        offset = new int[levels];
+        length = new int[levels];
+    }
+
+    /** Lee la cabecera de {@code buffer} (posición 0) y comprueba que cuadra con su tamaño. */
+    public static MipChainFile read(ByteBuffer buffer) {
+        ByteBuffer header = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        header.position(0);
+        if (header.remaining() < HEADER_INTS * 4 || header.getInt() != MAGIC)
+            throw new IllegalArgumentException("No es un fichero .mip");
+        int version = header.getInt();
+        if (version != VERSION)
+            throw new IllegalArgumentException("Versión de .mip no soportada: " + version);
+        int format = header.getInt();
+        if (format != RGB565 && format != RGBA4444)
+            throw new IllegalArgumentException("Formato de .mip desconocido: " + format);
+        int levels = header.getInt();
+        if (levels <= 0 || header.remaining() < levels * LEVEL_INTS * 4)
+            throw new IllegalArgumentException("Cabecera de .mip truncada");
+
+        MipChainFile file = new MipChainFile(format, levels);
+        for (int level = 0; level < levels; level++) {
+            file.width[level] = header.getInt();
+            file.height[level] = header.getInt();
+            file.offset[level] = header.getInt();
+            file.length[level] = header.getInt();
+            if (file.length[level] != file.width[level] * file.height[level] * 2
+                    || file.offset[level] < 0 || file.offset[level] + file.length[level] > buffer.limit())
+                throw new IllegalArgumentException("Nivel " + level + " de .mip corrupto");
+        }
+        return file;
+    }
+
+    public int getLevels() {
+        return width.length;
+    }
+
+    public int getWidth(int level) {
+        return width[level];
+    }
+
+    public int getHeight(int level) {
+        return height[level];
+    }
+
+    public int getLength(int level) {
+        return length[level];
+    }
+
+    /** Vista de los píxeles de {@code level} dentro de {@code buffer}, en orden nativo. */
+    public ByteBuffer level(ByteBuffer buffer, int level) {
+        ByteBuffer slice = buffer.duplicate();
+        slice.limit(offset[level] + length[level]);
+        slice.position(offset[level]);
+        return slice.slice().order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Escribe una cadena de mipmaps en ARGB8888 ({@code argb[level]}, nivel 0
+     * el más grande) convertida a {@code format}.
+     */
+    public static void write(OutputStream out, int format, int[][] argb, int[] widths, int[] heights)
+            throws IOException {
+        int levels = argb.length;
+        int dataStart = (HEADER_INTS + levels * LEVEL_INTS) * 4;
+        int[] offsets = new int[levels];
+        int position = dataStart;
+        for (int level = levels - 1; level >= 0; level--) {
+            offsets[level] = position;
+            position += widths[level] * heights[level] * 2;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(position).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(format).putInt(levels);
+        for (int level = 0; level < levels; level++) {
+            buffer.putInt(widths[level]).putInt(heights[level])
+                    .putInt(offsets[level]).putInt(widths[level] * heights[level] * 2);
+        }
+        for (int level = levels - 1; level >= 0; level--) {
+            for (int pixel : argb[level])
+                buffer.putShort(format == RGB565 ? toRgb565(pixel) : toRgba4444(pixel));
+        }
+        out.write(buffer.array());
+        out.flush();
+    }
+
+    private static short toRgb565(int argb) {
+        int r = argb >>> 16 & 0xff, g = argb >>> 8 & 0xff, b = argb & 0xff;
+        return (short) ((r * 31 + 127) / 255 << 11 | (g * 63 + 127) / 255 << 5 | (b * 31 + 127) / 255);
+    }
+
+    private static short toRgba4444(int argb) {
+        int a = argb >>> 24, r = argb >>> 16 & 0xff, g = argb >>> 8 & 0xff, b = argb & 0xff;
+        return (short) ((r * 15 + 127) / 255 << 12 | (g * 15 + 127) / 255 << 8
+                | (b * 15 + 127) / 255 << 4 | (a * 15 + 127) / 255);
+    }
+}
@@ -0,0 +1,262 @@
+package com.drawing3d;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.utils.BufferUtils;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Textura cargada desde un {@link MipChainFile} en streaming. El fichero se
+ * mapea en memoria, se suben primero los niveles pequeños (hasta
+ * {@link #INITIAL_SIZE}) y un hilo en segundo plano va trayendo a memoria
+ * los más grandes; {@link #update()}, desde el hilo de render, promueve la
+ * textura un nivel por llamada a medida que están listos.
+ * <p>
+ * Cada promoción vuelve a definir la cadena entera empezando por el nuevo
+ * nivel 0, así que la textura siempre está completa para GL20 y el objeto
+ * {@link Texture} (y los materiales que lo usan) no cambia. Si no existe el
+ * .mip se carga la imagen original, y si tampoco existe, una textura gris.
+ */
+public class MipChainTexture implements Disposable {
+    // 1. Tamaño máximo de lo que se sube en create()
+    public static final int INITIAL_SIZE = 64;
+    private static final int PAGE_SIZE = 4096;
+
+    public final Texture texture;
+
+    // 2. Fichero mapeado y nivel más fino subido / listo para subir
+    private final String name;
+    private MipChainFile file;
+    private ByteBuffer data;
+    private int uploadedLevel;
+    private final AtomicInteger readyLevel = new AtomicInteger();
+    private Thread prefetchThread;
+    private volatile boolean cancelled;
+    private volatile int prefetchSink; // para que el JIT no descarte las lecturas
+
+    // 3. Estadísticas
+    private final long startNanos = System.nanoTime();
+    private long initialNanos;
+    private long completeNanos;
+
+    /** Los datos que {@link Texture} sube al crearse: la cadena desde {@code uploadedLevel}. */
+    private final class ChainData implements TextureData {
+        @Override
+        public TextureDataType getType() {
+            return TextureDataType.Custom;
+        }
+
+        @Override
+        public boolean isPrepared() {
+            return true;
+        }
+
+        @Override
+        public void prepare() {
+        }
+
+        @Override
+        public Pixmap consumePixmap() {
+            throw new GdxRuntimeException("MipChainTexture sólo sube datos propios");
+        }
+
+        @Override
+        public boolean disposePixmap() {
+            return false;
+        }
+
+        @Override
+        public void consumeCustomData(int target) {
+            uploadChain(target);
+        }
+
+        @Override
+        public int getWidth() {
+            return file.getWidth(uploadedLevel);
+        }
+
+        @Override
+        public int getHeight() {
+            return file.getHeight(uploadedLevel);
+        }
+
+        @Override
+        public Pixmap.Format getFormat() {
+            return file.format == MipChainFile.RGB565 ? Pixmap.Format.RGB565 : Pixmap.Format.RGBA4444;
+        }
+
+        @Override
+        public boolean useMipMaps() {
+            return true;
+        }
+
+        @Override
+        public boolean isManaged() {
+            return false;
+        }
+    }
+
+    /**
+     * Carga {@code mipFile}; si no existe, {@code fallback} con mipmaps
+     * generados en la GPU. Llamar desde el hilo de render.
+     */
+    public static MipChainTexture load(FileHandle mipFile, FileHandle fallback) {
+        if (mipFile.exists())
+            return new MipChainTexture(mipFile);
+        Gdx.app.log("MipChainTexture", mipFile.path() + " no existe (gradlew buildMipChains), se usa "
+                + fallback.path());
+        Texture texture;
+        if (fallback.exists()) {
+            texture = new Texture(fallback, true);
+        } else {
+            Gdx.app.error("MipChainTexture", fallback.path() + " tampoco existe, textura gris");
+            Pixmap pixmap = new Pixmap(1, 1, Pixmap.Format.RGB565);
+            pixmap.setColor(Color.GRAY);
+            pixmap.fill();
+            texture = new Texture(pixmap, true);
+            pixmap.dispose();
+        }
+        texture.setFilter(Texture.TextureFilter.MipMapLinearLinear, Texture.TextureFilter.Linear);
+        return new MipChainTexture(mipFile.path(), texture);
+    }
+
+    private MipChainTexture(String name, Texture texture) {
+        this.name = name;
+        this.texture = texture;
+        initialNanos = completeNanos = System.nanoTime() - startNanos;
+    }
+
+    private MipChainTexture(FileHandle mipFile) {
+        name = mipFile.path();
+        data = map(mipFile);
+        file = MipChainFile.read(data);
+
+        // Primer nivel que cabe en INITIAL_SIZE; los demás se traen después
+        int levels = file.getLevels();
+        uploadedLevel = levels - 1;
+        while (uploadedLevel > 0 && Math.max(file.getWidth(uploadedLevel - 1),
+                file.getHeight(uploadedLevel - 1)) <= INITIAL_SIZE)
+            uploadedLevel--;
+        readyLevel.set(uploadedLevel);
+
+        texture = new Texture(new ChainData());
+        texture.setFilter(Texture.TextureFilter.MipMapLinearLinear, Texture.TextureFilter.Linear);
+        initialNanos = System.nanoTime() - startNanos;
+
+        if (uploadedLevel > 0) {
+            prefetchThread = new Thread(this::prefetch, "MipStream " + name);
+            prefetchThread.setDaemon(true);
+            prefetchThread.start();
+        } else {
+            completeNanos = initialNanos;
+            data = null;
+        }
+    }
+
+    // mmap si el fichero está en disco; si no (p. ej. dentro del jar), a un buffer directo
+    private static ByteBuffer map(FileHandle mipFile) {
+        try {
+            return mipFile.map();
+        } catch (GdxRuntimeException e) {
+            byte[] bytes = mipFile.readBytes();
+            ByteBuffer buffer = BufferUtils.newByteBuffer(bytes.length);
+            buffer.put(bytes);
+            buffer.flip();
+            return buffer;
+        }
+    }
+
+    // Hilo de fondo: toca una vez cada página de cada nivel, del más pequeño
+    // al más grande, para que la subida en el hilo de render no espere al disco
+    private void prefetch() {
+        for (int level = uploadedLevel - 1; level >= 0 && !cancelled; level--) {
+            ByteBuffer pixels = file.level(data, level);
+            int checksum = 0;
+            for (int i = 0; i < pixels.limit(); i += PAGE_SIZE)
+                checksum += pixels.get(i);
+            prefetchSink = checksum;
+            readyLevel.set(level);
+        }
+    }
+
+    /**
+     * Sube el siguiente nivel si ya está en memoria. Devuelve {@code true}
+     * cuando la textura tiene la resolución completa.
+     */
+    public boolean update() {
+        if (uploadedLevel == 0 || file == null)
+            return true;
+        if (readyLevel.get() >= uploadedLevel)
+            return false;
+
+        uploadedLevel--;
+        texture.bind();
+        uploadChain(GL20.GL_TEXTURE_2D);
+        Gdx.gl.glBindTexture(GL20.GL_TEXTURE_2D, 0);
+        if (uploadedLevel == 0) {
+            completeNanos = System.nanoTime() - startNanos;
+            data = null; // el mapeo se libera con el GC
+            Gdx.app.log("MipChainTexture", getStats());
+            return true;
+        }
+        return false;
+    }
+
+    // Define los niveles GL 0..n con los niveles del fichero desde uploadedLevel
+    private void uploadChain(int target) {
+        int glFormat = file.format == MipChainFile.RGB565 ? GL20.GL_RGB : GL20.GL_RGBA;
+        int glType = file.format == MipChainFile.RGB565
+                ? GL20.GL_UNSIGNED_SHORT_5_6_5 : GL20.GL_UNSIGNED_SHORT_4_4_4_4;
+        Gdx.gl.glPixelStorei(GL20.GL_UNPACK_ALIGNMENT, 2);
+        for (int level = uploadedLevel; level < file.getLevels(); level++) {
+            Gdx.gl.glTexImage2D(target, level - uploadedLevel, glFormat,
+                    file.getWidth(level), file.getHeight(level), 0, glFormat, glType,
+                    file.level(data, level));
+        }
+        Gdx.gl.glPixelStorei(GL20.GL_UNPACK_ALIGNMENT, 4);
+    }
+
+    public boolean isComplete() {
+        return uploadedLevel == 0;
+    }
+
+    /** Bytes de la cadena que hay ahora en la GPU. */
+    public long getResidentBytes() {
+        if (file == null)
+            return texture.getWidth() * texture.getHeight() * 4L * 4 / 3;
+        long bytes = 0;
+        for (int level = uploadedLevel; level < file.getLevels(); level++)
+            bytes += file.getLength(level);
+        return bytes;
+    }
+
+    /** Resumen de una línea para el log. */
+    public String getStats() {
+        return String.format("%s: %dx%d, %.1f KB en GPU, primer nivel a %.2f ms, completa a %.2f ms",
+                name, texture.getWidth(), texture.getHeight(), getResidentBytes() / 1024.0,
+                initialNanos / 1e6, completeNanos / 1e6);
+    }
+
+    @Override
+    public void dispose() {
+        cancelled = true;
+        if (prefetchThread != null) {
+            try {
+                prefetchThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            prefetchThread = null;
+        }
+        texture.dispose();
+    }
+}
@@ -0,0 +1,68 @@
+package com.drawing3d;
+
+import java.util.Random;
+
+/**
+ * Ejecuta {@link NBodySimulation} sin ventana sobre un disco de cuerpos que
+ * orbitan una masa central y, para cada modo, informa de pasos por segundo y
+ * de la deriva relativa de energía |E - E0| / |E0|.
+ * <pre>
+ * NBodyBenchmark [cuerpos=4000] [pasos=200] [dt=0.0005]
+ * </pre>
+ */
+public class NBodyBenchmark {
+    private static final double DISK_RADIUS = 1;
+    private static final double DISK_MASS = 0.1;
+    private static final double SOFTENING = 0.005;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 4000;
+        int steps = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        double dt = args.length > 2 ? Double.parseDouble(args[2]) : 0.0005;
+
+        System.out.printf("%d cuerpos, %d pasos de %.4g, %d hilos%n",
+                count, steps, dt, Runtime.getRuntime().availableProcessors());
+        for (NBodySimulation.Mode mode : NBodySimulation.Mode.values()) {
+            NBodySimulation simulation = createDisk(count, 7);
+            simulation.setMode(mode);
+
+            // Calentar el JIT con unos pasos sobre otra copia
+            NBodySimulation warmup = createDisk(count, 8);
+            warmup.setMode(mode);
+            for (int i = 0; i < Math.min(20, steps); i++)
+                warmup.step(dt);
+
+            double initialEnergy = simulation.totalEnergy();
+            long start = System.nanoTime();
+            for (int i = 0; i < steps; i++)
+                simulation.step(dt);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            double drift = Math.abs(simulation.totalEnergy() - initialEnergy) / Math.abs(initialEnergy);
+
+            System.out.printf("%-10s %8.1f pasos/s (%.2f ms/paso), deriva de energía %.3e%n",
+                    mode, steps / seconds, seconds * 1000 / steps, drift);
+        }
+    }
+
+    /** Masa central 1 y {@code count - 1} cuerpos en órbitas casi circulares. */
+    static NBodySimulation createDisk(int count, long seed) {
+        Random random = new Random(seed);
+        NBodySimulation simulation = new NBodySimulation(count);
+        simulation.setSoftening(SOFTENING);
+        simulation.setBody(0, 1, 0, 0, 0, 0, 0, 0);
+        double bodyMass = DISK_MASS / Math.max(1, count - 1);
+        for (int i = 1; i < count; i++) {
+            double r = DISK_RADIUS * (0.2 + 0.8 * Math.sqrt(random.nextDouble()));
+            double angle = random.nextDouble() * Math.PI * 2;
+            double height = random.nextGaussian() * 0.01;
+            // Velocidad circular por la masa encerrada (central + disco interior)
+            double enclosed = 1 + DISK_MASS * (r * r) / (DISK_RADIUS * DISK_RADIUS);
+            double speed = Math.sqrt(enclosed / r);
+            simulation.setBody(i, bodyMass,
+                    Math.cos(angle) * r, height, Math.sin(angle) * r,
+                    -Math.sin(angle) * speed, 0, Math.cos(angle) * speed);
+        }
+        simulation.removeNetMomentum();
+        return simulation;
+    }
+}
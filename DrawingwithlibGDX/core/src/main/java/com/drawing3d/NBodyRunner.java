@@ -0,0 +1,145 @@
+package com.drawing3d;
+
+import com.badlogic.gdx.utils.Disposable;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ejecuta una {@link NBodySimulation} en su propio hilo a paso fijo,
+ * sincronizada con el reloj ({@code timeScale} segundos simulados por
+ * segundo real), y publica las posiciones para el hilo de render.
+ * <p>
+ * Cada publicación guarda las posiciones del paso anterior y del actual, y
+ * el render interpola entre ambas según el tiempo transcurrido, así que el
+ * movimiento es suave aunque el paso no coincida con los frames. Las
+ * instantáneas rotan entre tres buffers (escritor, intermedio y lector)
+ * intercambiados con un único entero atómico, de modo que ningún hilo
+ * espera ni lee un buffer a medio escribir.
+ */
+public class NBodyRunner implements Disposable {
+    // Si el hilo se queda más atrás que esto, se descarta el retraso
+    private static final long MAX_LAG_NANOS = 250_000_000L;
+    private static final int FRESH = 4;
+    private static final int INDEX_MASK = 3;
+
+    private static final class Snapshot {
+        final float[] previous;
+        final float[] current;
+        long publishNanos;
+
+        Snapshot(int count) {
+            previous = new float[count * 3];
+            current = new float[count * 3];
+        }
+    }
+
+    private final NBodySimulation simulation;
+    private final double stepSeconds;
+    private final long stepNanos;
+
+    // 1. Triple buffer: el escritor y el lector tienen uno cada uno, el
+    // tercero se intercambia (índice + bit FRESH si aún no se ha leído)
+    private final Snapshot[] snapshots = new Snapshot[3];
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private int back = 0;
+    private int front = 2;
+    private final float[] lastPositions;
+
+    // 2. Hilo
+    private Thread thread;
+    private volatile boolean running;
+    private volatile long steps;
+    private volatile long startNanos;
+
+    public NBodyRunner(NBodySimulation simulation, double stepSeconds, double timeScale) {
+        this.simulation = simulation;
+        this.stepSeconds = stepSeconds;
+        this.stepNanos = (long) (stepSeconds / timeScale * 1e9);
+        int count = simulation.getCount();
+        lastPositions = new float[count * 3];
+        copyPositions(lastPositions);
+        for (int i = 0; i < snapshots.length; i++) {
+            snapshots[i] = new Snapshot(count);
+            System.arraycopy(lastPositions, 0, snapshots[i].previous, 0, lastPositions.length);
+            System.arraycopy(lastPositions, 0, snapshots[i].current, 0, lastPositions.length);
+            snapshots[i].publishNanos = System.nanoTime();
+        }
+    }
+
+    public void start() {
+        running = true;
+        thread = new Thread(this::run, "NBody");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run() {
+        startNanos = System.nanoTime();
+        long next = startNanos;
+        while (running) {
+            simulation.step(stepSeconds);
+            steps++;
+            publish();
+
+            next += stepNanos;
+            long wait = next - System.nanoTime();
+            if (wait > 0)
+                LockSupport.parkNanos(wait);
+            else if (wait < -MAX_LAG_NANOS)
+                next = System.nanoTime();
+        }
+    }
+
+    private void publish() {
+        Snapshot snapshot = snapshots[back];
+        System.arraycopy(lastPositions, 0, snapshot.previous, 0, lastPositions.length);
+        copyPositions(snapshot.current);
+        System.arraycopy(snapshot.current, 0, lastPositions, 0, lastPositions.length);
+        snapshot.publishNanos = System.nanoTime();
+        back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+    }
+
+    private void copyPositions(float[] out) {
+        for (int i = 0, n = simulation.getCount(); i < n; i++) {
+            out[i * 3] = (float) simulation.x[i];
+            out[i * 3 + 1] = (float) simulation.y[i];
+            out[i * 3 + 2] = (float) simulation.z[i];
+        }
+    }
+
+    /**
+     * Escribe en {@code out} (x, y, z por cuerpo) las posiciones interpoladas
+     * entre los dos últimos pasos publicados. Sólo desde el hilo de render.
+     */
+    public void getPositions(float[] out) {
+        if ((middle.get() & FRESH) != 0)
+            front = middle.getAndSet(front) & INDEX_MASK;
+        Snapshot snapshot = snapshots[front];
+        float alpha = Math.min(1f, (System.nanoTime() - snapshot.publishNanos) / (float) stepNanos);
+        float[] previous = snapshot.previous;
+        float[] current = snapshot.current;
+        for (int i = 0; i < current.length; i++)
+            out[i] = previous[i] + (current[i] - previous[i]) * alpha;
+    }
+
+    /** Pasos por segundo real desde que arrancó el hilo. */
+    public double getStepsPerSecond() {
+        long elapsed = System.nanoTime() - startNanos;
+        return elapsed > 0 ? steps * 1e9 / elapsed : 0;
+    }
+
+    @Override
+    public void dispose() {
+        if (thread == null)
+            return;
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+}
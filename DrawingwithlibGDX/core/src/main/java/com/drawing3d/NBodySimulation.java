@@ -0,0 +1,397 @@
+package com.drawing3d;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Simulación gravitatoria de N cuerpos con integración velocity Verlet
+ * (simpléctica, así que la energía oscila en vez de derivar). Los cuerpos se
+ * guardan como structure-of-arrays de doubles.
+ * <p>
+ * Las aceleraciones se calculan en paralelo sobre el ForkJoinPool común,
+ * bien sumando todos los pares ({@link Mode#DIRECT}, O(N²)) o con un octree
+ * de Barnes–Hut ({@link Mode#BARNES_HUT}, O(N log N)) que aproxima cada
+ * grupo de cuerpos lejano por su centro de masas.
+ */
+public class NBodySimulation {
+    public enum Mode {
+        DIRECT, BARNES_HUT
+    }
+
+    // 1. Parámetros
+    private static final int PARALLEL_THRESHOLD = 64;
+    private static final int MAX_TREE_DEPTH = 48;
+    private double gravity = 1;
+    private double softening = 0.01;
+    private double theta = 0.5;
+    private Mode mode = Mode.DIRECT;
+
+    // 2. Cuerpos (structure-of-arrays)
+    private final int count;
+    final double[] x, y, z;
+    final double[] vx, vy, vz;
+    final double[] ax, ay, az;
+    final double[] mass;
+    private boolean accelerationsValid;
+    private double time;
+
+    // 3. Octree de Barnes–Hut en arrays planos, reconstruido en cada paso.
+    // nodeBody: primer cuerpo de una hoja, EMPTY o INTERNAL. Una hoja a
+    // MAX_TREE_DEPTH puede juntar varios cuerpos casi coincidentes, que se
+    // encadenan por nextInLeaf hasta EMPTY
+    private static final int EMPTY = -1;
+    private static final int INTERNAL = -2;
+    private int nodeCount;
+    private double[] nodeMass = new double[0];
+    private double[] nodeX = new double[0], nodeY = new double[0], nodeZ = new double[0];
+    private double[] cellX = new double[0], cellY = new double[0], cellZ = new double[0];
+    private double[] cellHalf = new double[0];
+    private int[] firstChild = new int[0];
+    private int[] nodeBody = new int[0];
+    private final int[] nextInLeaf;
+
+    public NBodySimulation(int count) {
+        this.count = count;
+        x = new double[count];
+        y = new double[count];
+        z = new double[count];
+        vx = new double[count];
+        vy = new double[count];
+        vz = new double[count];
+        ax = new double[count];
+        ay = new double[count];
+        az = new double[count];
+        mass = new double[count];
+        nextInLeaf = new int[count];
+    }
+
+    public void setBody(int i, double mass, double x, double y, double z, double vx, double vy, double vz) {
+        this.mass[i] = mass;
+        this.x[i] = x;
+        this.y[i] = y;
+        this.z[i] = z;
+        this.vx[i] = vx;
+        this.vy[i] = vy;
+        this.vz[i] = vz;
+        accelerationsValid = false;
+    }
+
+    /** Resta la velocidad del centro de masas para que el sistema no se desplace. */
+    public void removeNetMomentum() {
+        double px = 0, py = 0, pz = 0, total = 0;
+        for (int i = 0; i < count; i++) {
+            px += mass[i] * vx[i];
+            py += mass[i] * vy[i];
+            pz += mass[i] * vz[i];
+            total += mass[i];
+        }
+        for (int i = 0; i < count; i++) {
+            vx[i] -= px / total;
+            vy[i] -= py / total;
+            vz[i] -= pz / total;
+        }
+    }
+
+    /** Avanza {@code dt}: medio impulso, deriva, nuevas aceleraciones, medio impulso. */
+    public void step(double dt) {
+        if (!accelerationsValid) {
+            computeAccelerations();
+            accelerationsValid = true;
+        }
+        double half = dt / 2;
+        for (int i = 0; i < count; i++) {
+            vx[i] += ax[i] * half;
+            vy[i] += ay[i] * half;
+            vz[i] += az[i] * half;
+            x[i] += vx[i] * dt;
+            y[i] += vy[i] * dt;
+            z[i] += vz[i] * dt;
+        }
+        computeAccelerations();
+        for (int i = 0; i < count; i++) {
+            vx[i] += ax[i] * half;
+            vy[i] += ay[i] * half;
+            vz[i] += az[i] * half;
+        }
+        time += dt;
+    }
+
+    private void computeAccelerations() {
+        if (mode == Mode.BARNES_HUT)
+            buildTree();
+        ForkJoinPool.commonPool().invoke(new AccelerationTask(0, count));
+    }
+
+    private final class AccelerationTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        AccelerationTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > PARALLEL_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new AccelerationTask(from, middle), new AccelerationTask(middle, to));
+                return;
+            }
+            if (mode == Mode.BARNES_HUT) {
+                int[] stack = new int[8 * MAX_TREE_DEPTH + 8];
+                for (int i = from; i < to; i++)
+                    accelerationFromTree(i, stack);
+            } else {
+                for (int i = from; i < to; i++)
+                    accelerationDirect(i);
+            }
+        }
+    }
+
+    private void accelerationDirect(int i) {
+        double xi = x[i], yi = y[i], zi = z[i];
+        double eps2 = softening * softening;
+        double sx = 0, sy = 0, sz = 0;
+        for (int j = 0; j < count; j++) {
+            if (j == i)
+                continue;
+            double dx = x[j] - xi, dy = y[j] - yi, dz = z[j] - zi;
+            double r2 = dx * dx + dy * dy + dz * dz + eps2;
+            double s = mass[j] / (r2 * Math.sqrt(r2));
+            sx += dx * s;
+            sy += dy * s;
+            sz += dz * s;
+        }
+        ax[i] = gravity * sx;
+        ay[i] = gravity * sy;
+        az[i] = gravity * sz;
+    }
+
+    // --- Barnes–Hut ---
+
+    private void buildTree() {
+        // Cubo que envuelve a todos los cuerpos
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            minX = Math.min(minX, x[i]);
+            minY = Math.min(minY, y[i]);
+            minZ = Math.min(minZ, z[i]);
+            maxX = Math.max(maxX, x[i]);
+            maxY = Math.max(maxY, y[i]);
+            maxZ = Math.max(maxZ, z[i]);
+        }
+        double half = Math.max(maxX - minX, Math.max(maxY - minY, maxZ - minZ)) / 2 * 1.001 + 1e-9;
+
+        nodeCount = 0;
+        int root = newNode((minX + maxX) / 2, (minY + maxY) / 2, (minZ + maxZ) / 2, half);
+        for (int i = 0; i < count; i++)
+            insert(root, i);
+
+        // De sumas ponderadas a centros de masas
+        for (int node = 0; node < nodeCount; node++) {
+            if (nodeMass[node] > 0) {
+                nodeX[node] /= nodeMass[node];
+                nodeY[node] /= nodeMass[node];
+                nodeZ[node] /= nodeMass[node];
+            }
+        }
+    }
+
+    private int newNode(double centerX, double centerY, double centerZ, double half) {
+        if (nodeCount == nodeMass.length) {
+            int capacity = Math.max(1024, nodeCount * 2);
+            nodeMass = Arrays.copyOf(nodeMass, capacity);
+            nodeX = Arrays.copyOf(nodeX, capacity);
+            nodeY = Arrays.copyOf(nodeY, capacity);
+            nodeZ = Arrays.copyOf(nodeZ, capacity);
+            cellX = Arrays.copyOf(cellX, capacity);
+            cellY = Arrays.copyOf(cellY, capacity);
+            cellZ = Arrays.copyOf(cellZ, capacity);
+            cellHalf = Arrays.copyOf(cellHalf, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nodeBody = Arrays.copyOf(nodeBody, capacity);
+        }
+        int node = nodeCount++;
+        nodeMass[node] = 0;
+        nodeX[node] = 0;
+        nodeY[node] = 0;
+        nodeZ[node] = 0;
+        cellX[node] = centerX;
+        cellY[node] = centerY;
+        cellZ[node] = centerZ;
+        cellHalf[node] = half;
+        firstChild[node] = -1;
+        nodeBody[node] = EMPTY;
+        return node;
+    }
+
+    private void insert(int node, int i) {
+        for (int depth = 0; ; depth++) {
+            if (firstChild[node] < 0) {
+                if (nodeBody[node] == EMPTY) {
+                    nodeBody[node] = i;
+                    nextInLeaf[i] = EMPTY;
+                    addMass(node, i);
+                    return;
+                }
+                if (depth >= MAX_TREE_DEPTH) {
+                    // Cuerpos (casi) coincidentes: se encadenan en la misma hoja
+                    nextInLeaf[i] = nodeBody[node];
+                    nodeBody[node] = i;
+                    addMass(node, i);
+                    return;
+                }
+                subdivide(node);
+            }
+            addMass(node, i);
+            node = childFor(node, x[i], y[i], z[i]);
+        }
+    }
+
+    private void subdivide(int node) {
+        double half = cellHalf[node] / 2;
+        int first = -1;
+        for (int octant = 0; octant < 8; octant++) {
+            int child = newNode(
+                    cellX[node] + ((octant & 1) != 0 ? half : -half),
+                    cellY[node] + ((octant & 2) != 0 ? half : -half),
+                    cellZ[node] + ((octant & 4) != 0 ? half : -half),
+                    half);
+            if (octant == 0)
+                first = child;
+        }
+        firstChild[node] = first;
+
+        // El cuerpo que había baja a su octante
+        int body = nodeBody[node];
+        nodeBody[node] = INTERNAL;
+        int child = childFor(node, x[body], y[body], z[body]);
+        nodeBody[child] = body;
+        addMass(child, body);
+    }
+
+    private int childFor(int node, double px, double py, double pz) {
+        int octant = (px >= cellX[node] ? 1 : 0) | (py >= cellY[node] ? 2 : 0) | (pz >= cellZ[node] ? 4 : 0);
+        return firstChild[node] + octant;
+    }
+
+    private void addMass(int node, int i) {
+        nodeMass[node] += mass[i];
+        nodeX[node] += mass[i] * x[i];
+        nodeY[node] += mass[i] * y[i];
+        nodeZ[node] += mass[i] * z[i];
+    }
+
+    private void accelerationFromTree(int i, int[] stack) {
+        double xi = x[i], yi = y[i], zi = z[i];
+        double eps2 = softening * softening;
+        double theta2 = theta * theta;
+        double sx = 0, sy = 0, sz = 0;
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (nodeMass[node] == 0)
+                continue;
+            if (firstChild[node] < 0) {
+                // Hoja: cuerpo a cuerpo, saltándose solo a sí mismo aunque
+                // comparta la hoja con otros
+                for (int j = nodeBody[node]; j != EMPTY; j = nextInLeaf[j]) {
+                    if (j == i)
+                        continue;
+                    double dx = x[j] - xi, dy = y[j] - yi, dz = z[j] - zi;
+                    double r2 = dx * dx + dy * dy + dz * dz + eps2;
+                    double s = mass[j] / (r2 * Math.sqrt(r2));
+                    sx += dx * s;
+                    sy += dy * s;
+                    sz += dz * s;
+                }
+                continue;
+            }
+            double dx = nodeX[node] - xi, dy = nodeY[node] - yi, dz = nodeZ[node] - zi;
+            double r2 = dx * dx + dy * dy + dz * dz;
+            double size = 2 * cellHalf[node];
+            // Celda lo bastante lejana (size / r < theta): centro de masas
+            if (size * size < theta2 * r2) {
+                r2 += eps2;
+                double s = nodeMass[node] / (r2 * Math.sqrt(r2));
+                sx += dx * s;
+                sy += dy * s;
+                sz += dz * s;
+            } else {
+                int first = firstChild[node];
+                for (int c = 0; c < 8; c++)
+                    stack[top++] = first + c;
+            }
+        }
+        ax[i] = gravity * sx;
+        ay[i] = gravity * sy;
+        az[i] = gravity * sz;
+    }
+
+    // --- Diagnóstico ---
+
+    /** Energía total (cinética + potencial suavizada), sumando todos los pares. */
+    public double totalEnergy() {
+        double kinetic = 0;
+        double potential = 0;
+        double eps2 = softening * softening;
+        for (int i = 0; i < count; i++) {
+            kinetic += 0.5 * mass[i] * (vx[i] * vx[i] + vy[i] * vy[i] + vz[i] * vz[i]);
+            for (int j = i + 1; j < count; j++) {
+                double dx = x[j] - x[i], dy = y[j] - y[i], dz = z[j] - z[i];
+                potential -= gravity * mass[i] * mass[j] / Math.sqrt(dx * dx + dy * dy + dz * dz + eps2);
+            }
+        }
+        return kinetic + potential;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public double getTime() {
+        return time;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+        accelerationsValid = false;
+    }
+
+    public void setGravity(double gravity) {
+        this.gravity = gravity;
+        accelerationsValid = false;
+    }
+
+    public void setSoftening(double softening) {
+        this.softening = softening;
+        accelerationsValid = false;
+    }
+
+    /** Criterio de apertura de Barnes–Hut: menor es más preciso y más lento. */
+    public void setTheta(double theta) {
+        this.theta = theta;
+    }
+
+    public double getX(int i) {
+        return x[i];
+    }
+
+    public double getY(int i) {
+        return y[i];
+    }
+
+    public double getZ(int i) {
+        return z[i];
+    }
+}
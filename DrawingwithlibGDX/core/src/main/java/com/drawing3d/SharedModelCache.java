@@ -0,0 +1,187 @@
+package com.drawing3d;
+
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.g3d.Material;
+import com.badlogic.gdx.graphics.g3d.Model;
+import com.badlogic.gdx.graphics.g3d.ModelInstance;
+import com.badlogic.gdx.graphics.g3d.model.Node;
+import com.badlogic.gdx.graphics.g3d.model.NodePart;
+import com.badlogic.gdx.graphics.g3d.utils.ModelBuilder;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Caché de modelos de figuras básicas con contador de referencias. Cada
+ * combinación de figura, divisiones y atributos de vértice se construye una
+ * sola vez como malla unitaria (tamaño 1); el tamaño va en el transform de la
+ * instancia y el material se asigna por instancia con {@link #createInstance}.
+ * <p>
+ * Cada {@link #acquire} debe tener su {@link #release}; el modelo se libera
+ * cuando deja de usarse. No confundir con {@code g3d.ModelCache}, que agrupa
+ * instancias ya creadas en menos llamadas de dibujo.
+ */
+public class SharedModelCache implements Disposable {
+    public enum Shape { BOX, SPHERE, CYLINDER, CONE }
+
+    // 1. Clave: figura, divisiones y atributos
+    private static final class Key {
+        final Shape shape;
+        final int divisionsU;
+        final int divisionsV;
+        final long attributes;
+
+        Key(Shape shape, int divisionsU, int divisionsV, long attributes) {
+            this.shape = shape;
+            this.divisionsU = divisionsU;
+            this.divisionsV = divisionsV;
+            this.attributes = attributes;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key))
+                return false;
+            Key other = (Key) o;
+            return shape == other.shape && divisionsU == other.divisionsU
+                    && divisionsV == other.divisionsV && attributes == other.attributes;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = shape.hashCode();
+            hash = hash * 31 + divisionsU;
+            hash = hash * 31 + divisionsV;
+            return hash * 31 + Long.hashCode(attributes);
+        }
+    }
+
+    private static final class Entry {
+        final Key key;
+        final Model model;
+        final long buildNanos;
+        final int bytes;
+        int references;
+
+        Entry(Key key, Model model, long buildNanos) {
+            this.key = key;
+            this.model = model;
+            this.buildNanos = buildNanos;
+            int total = 0;
+            for (Mesh mesh : model.meshes)
+                total += mesh.getNumVertices() * mesh.getVertexSize() + mesh.getNumIndices() * 2;
+            this.bytes = total;
+        }
+    }
+
+    // 2. Entradas por clave y por modelo (para release)
+    private final ObjectMap<Key, Entry> entries = new ObjectMap<>();
+    private final ObjectMap<Model, Entry> byModel = new ObjectMap<>();
+    private final ModelBuilder modelBuilder = new ModelBuilder();
+
+    // 3. Estadísticas: lo construido y lo que se ha ahorrado al reutilizar
+    private int builds;
+    private int hits;
+    private long buildNanos;
+    private long savedNanos;
+    private long savedBytes;
+
+    /**
+     * Devuelve el modelo unitario de {@code shape}. Las cajas ignoran las
+     * divisiones; cilindros y conos sólo usan {@code divisionsU}.
+     *
+     * @param attributes máscara de {@code VertexAttributes.Usage}
+     */
+    public Model acquire(Shape shape, int divisionsU, int divisionsV, long attributes) {
+        Key key = new Key(shape, divisionsU, divisionsV, attributes);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            long start = System.nanoTime();
+            Model model = build(key);
+            entry = new Entry(key, model, System.nanoTime() - start);
+            entries.put(key, entry);
+            byModel.put(model, entry);
+            builds++;
+            buildNanos += entry.buildNanos;
+        } else {
+            hits++;
+            savedNanos += entry.buildNanos;
+            savedBytes += entry.bytes;
+        }
+        entry.references++;
+        return entry.model;
+    }
+
+    private Model build(Key key) {
+        Material material = new Material();
+        switch (key.shape) {
+            case BOX:
+                return modelBuilder.createBox(1f, 1f, 1f, material, key.attributes);
+            case SPHERE:
+                return modelBuilder.createSphere(1f, 1f, 1f, key.divisionsU, key.divisionsV,
+                        material, key.attributes);
+            case CYLINDER:
+                return modelBuilder.createCylinder(1f, 1f, 1f, key.divisionsU, material, key.attributes);
+            case CONE:
+                return modelBuilder.createCone(1f, 1f, 1f, key.divisionsU, material, key.attributes);
+            default:
+                throw new GdxRuntimeException("Figura desconocida: " + key.shape);
+        }
+    }
+
+    /** Suelta una referencia; con la última se libera el modelo. */
+    public void release(Model model) {
+        Entry entry = byModel.get(model);
+        if (entry == null)
+            throw new GdxRuntimeException("El modelo no es de esta caché");
+        if (--entry.references == 0) {
+            entries.remove(entry.key);
+            byModel.remove(model);
+            model.dispose();
+        }
+    }
+
+    /** Instancia de {@code model} con su propio material en todas sus partes. */
+    public static ModelInstance createInstance(Model model, Material material) {
+        ModelInstance instance = new ModelInstance(model);
+        for (Node node : instance.nodes) {
+            for (NodePart part : node.parts)
+                part.material = material;
+        }
+        instance.materials.clear();
+        instance.materials.add(material);
+        return instance;
+    }
+
+    /** Bytes de vértices e índices de los modelos vivos. */
+    public long getGpuBytes() {
+        long total = 0;
+        for (Entry entry : entries.values())
+            total += entry.bytes;
+        return total;
+    }
+
+    public long getSavedGpuBytes() {
+        return savedBytes;
+    }
+
+    public long getSavedBuildNanos() {
+        return savedNanos;
+    }
+
+    /** Resumen de una línea para el log. */
+    public String getStats() {
+        return String.format("%d mallas construidas (%.2f ms, %.1f KB), %d reutilizadas: "
+                        + "%.1f KB de GPU y %.2f ms de construcción ahorrados",
+                builds, buildNanos / 1e6, getGpuBytes() / 1024.0, hits,
+                savedBytes / 1024.0, savedNanos / 1e6);
+    }
+
+    @Override
+    public void dispose() {
+        for (Entry entry : entries.values())
+            entry.model.dispose();
+        entries.clear();
+        byModel.clear();
+    }
+}
@@ -2,15 +2,16 @@ package com.drawing3d;
 
 import com.badlogic.gdx.ApplicationAdapter;
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.Input;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.math.Quaternion;
 import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.graphics.PerspectiveCamera;
 
 import com.badlogic.gdx.graphics.g3d.Environment;
+import com.badlogic.gdx.graphics.g3d.Material;
 import com.badlogic.gdx.graphics.g3d.ModelBatch;
-import com.badlogic.gdx.graphics.g3d.Model;
 import com.badlogic.gdx.graphics.g3d.ModelInstance;
 import com.badlogic.gdx.graphics.g3d.environment.DirectionalLight;
 import com.badlogic.gdx.graphics.g3d.environment.PointLight;
@@ -18,7 +19,7 @@ import com.badlogic.gdx.graphics.g3d.attributes.ColorAttribute;
 import com.badlogic.gdx.graphics.g3d.attributes.FloatAttribute;
 import com.badlogic.gdx.graphics.g3d.attributes.TextureAttribute;
 import com.badlogic.gdx.graphics.g3d.utils.CameraInputController;
-import com.badlogic.gdx.graphics.g3d.utils.ModelBuilder;
+import com.badlogic.gdx.graphics.profiling.GLProfiler;
 import com.badlogic.gdx.graphics.VertexAttributes;
 
 public class SolarSystem extends ApplicationAdapter {
@@ -26,18 +27,44 @@ public class SolarSystem extends ApplicationAdapter {
     public PerspectiveCamera camera;
     public CameraInputController camController;
     public ModelBatch modelBatch;
+    private final MaterialStateSorter sorter = new MaterialStateSorter();
     public Environment environment;
 
-    // 6. Modelos, instancias y texturas
-    public Model sunModel, earthModel, moonModel;
+    // Post-proceso y estadísticas: B activa/desactiva el bloom, L las
+    // estadísticas (una línea por segundo)
+    public BloomEffect bloom;
+    private GLProfiler profiler;
+    private boolean showStats;
+    private float statsSeconds;
+    private int statsFrames;
+    private long statsBloomNanos;
+
+    // 6. Esferas con LOD (malla compartida), instancias y texturas
+    public SharedModelCache modelCache;
+    public SphereLod sphereLod;
+    private SphereLod.Body sunBody, earthBody, moonBody;
     public ModelInstance sunInstance, earthInstance, moonInstance;
+    public final CullingScene cullingScene = new CullingScene();
     public Texture sunTexture, earthTexture, moonTexture;
+    private MipChainTexture sunMips, earthMips, moonMips;
 
-    // 7. Rotaciones y órbitas
+    // 7. Rotaciones; las órbitas las integra NBodySimulation en otro hilo
+    private float sunRotation = 0;
     private float earthRotation = 0;
-    private float earthOrbit = 0;
     private float moonRotation = 0;
-    private float moonOrbit = 0;
+    private static final double NBODY_STEP = 1 / 240.0; // s simulados por paso
+    private static final double MOON_MASS_RATIO = 0.0123; // Luna / Tierra
+    private NBodySimulation nbody;
+    private NBodyRunner nbodyRunner;
+    private final float[] bodyPositions = new float[3 * 3]; // sol, tierra, luna
+
+    // Jerarquía: un marco por cuerpo que sigue su posición (relativa a la del
+    // padre) y, colgando de él, el nodo con el giro y el tamaño de la esfera,
+    // para que la Luna no herede el giro de la Tierra
+    private final TransformHierarchy hierarchy = new TransformHierarchy();
+    private int sunFrame, sunNode, earthFrame, earthNode, moonFrame, moonNode;
+    private final Quaternion spin = new Quaternion();
+    private final Quaternion earthTilt = new Quaternion(Vector3.Z, 23.5f);
 
     // 8. Radios y velocidades (no a escala)
     private final float SUN_RADIUS = 8f;
@@ -48,58 +75,68 @@ public class SolarSystem extends ApplicationAdapter {
     private final float EARTH_ROTATION_SPEED = 50f; // °/s
     private final float EARTH_ORBIT_SPEED = 10f; // °/s
     private final float MOON_ROTATION_SPEED = 5f; // °/s
-    private final float MOON_ORBIT_SPEED = 40f; // °/s
+    // Con la Luna 6 veces más rápida que la Tierra su órbita es estable;
+    // a 4 veces el tirón del Sol acaba expulsándola
+    private final float MOON_ORBIT_SPEED = 60f; // °/s
 
-    // 9. Carga las texturas
+    // 9. Carga las texturas: los mipmaps pequeños ahora, los grandes en
+    // streaming desde render() (ver MipChainTexture)
     private void loadTextures() {
-        sunTexture = new Texture(Gdx.files.internal("sun.png"));
-        earthTexture = new Texture(Gdx.files.internal("earth.jpg"));
-        moonTexture = new Texture(Gdx.files.internal("moon.jpg"));
+        sunMips = MipChainTexture.load(Gdx.files.internal("sun.mip"), Gdx.files.internal("sun.png"));
+        earthMips = MipChainTexture.load(Gdx.files.internal("earth.mip"), Gdx.files.internal("earth.jpg"));
+        moonMips = MipChainTexture.load(Gdx.files.internal("moon.mip"), Gdx.files.internal("moon.jpg"));
+        sunTexture = sunMips.texture;
+        earthTexture = earthMips.texture;
+        moonTexture = moonMips.texture;
     }
 
-    // 10. Crea los modelos y sus instancias
+    // 10. Crea los cuerpos (el tamaño va en el transform, ver applyScale)
     private void createModels() {
-        ModelBuilder modelBuilder = new ModelBuilder();
+        modelCache = new SharedModelCache();
+        sphereLod = new SphereLod(modelCache, VertexAttributes.Usage.Position
+                | VertexAttributes.Usage.Normal
+                | VertexAttributes.Usage.TextureCoordinates);
 
         // Sol (esfera emisiva)
-        sunModel = modelBuilder.createSphere(
-                SUN_RADIUS, SUN_RADIUS, SUN_RADIUS,
-                64, 64,
-                new com.badlogic.gdx.graphics.g3d.Material(
+        sunBody = sphereLod.add(new Material(
                         TextureAttribute.createDiffuse(sunTexture),
-                        ColorAttribute.createEmissive(1f, 0.9f, 0.9f, 1f),
+                        ColorAttribute.createEmissive(1f, 0.7f, 0.4f, 1f),
                         FloatAttribute.createShininess(0f)),
-                VertexAttributes.Usage.Position
-                        | VertexAttributes.Usage.Normal
-                        | VertexAttributes.Usage.TextureCoordinates);
+                SUN_RADIUS, 64);
 
         // Tierra
-        earthModel = modelBuilder.createSphere(
-                EARTH_RADIUS, EARTH_RADIUS, EARTH_RADIUS,
-                64, 64,
-                new com.badlogic.gdx.graphics.g3d.Material(
+        earthBody = sphereLod.add(new Material(
                         TextureAttribute.createDiffuse(earthTexture)),
-                VertexAttributes.Usage.Position
-                        | VertexAttributes.Usage.Normal
-                        | VertexAttributes.Usage.TextureCoordinates);
+                EARTH_RADIUS, 64);
 
         // Luna
-        moonModel = modelBuilder.createSphere(
-                MOON_RADIUS, MOON_RADIUS, MOON_RADIUS,
-                32, 32,
-                new com.badlogic.gdx.graphics.g3d.Material(
+        moonBody = sphereLod.add(new Material(
                         TextureAttribute.createDiffuse(moonTexture)),
-                VertexAttributes.Usage.Position
-                        | VertexAttributes.Usage.Normal
-                        | VertexAttributes.Usage.TextureCoordinates);
+                MOON_RADIUS, 32);
 
         // Instancias
-        sunInstance = new ModelInstance(sunModel);
-        earthInstance = new ModelInstance(earthModel);
-        moonInstance = new ModelInstance(moonModel);
+        sunInstance = sunBody.instance;
+        earthInstance = earthBody.instance;
+        moonInstance = moonBody.instance;
+        cullingScene.add(sunInstance);
+        cullingScene.add(earthInstance);
+        cullingScene.add(moonInstance);
 
-        // Prepara el batch
-        modelBatch = new ModelBatch();
+        // Prepara el batch, con la cola ordenada por shader y material
+        modelBatch = new ModelBatch(sorter);
+    }
+
+    // Sol → Tierra → Luna; los tamaños se fijan una vez
+    private void setupHierarchy() {
+        sunFrame = hierarchy.add(TransformHierarchy.ROOT);
+        sunNode = hierarchy.add(sunFrame);
+        earthFrame = hierarchy.add(sunFrame);
+        earthNode = hierarchy.add(earthFrame);
+        moonFrame = hierarchy.add(earthFrame);
+        moonNode = hierarchy.add(moonFrame);
+        hierarchy.setScale(sunNode, SUN_RADIUS, SUN_RADIUS, SUN_RADIUS);
+        hierarchy.setScale(earthNode, EARTH_RADIUS, EARTH_RADIUS, EARTH_RADIUS);
+        hierarchy.setScale(moonNode, MOON_RADIUS, MOON_RADIUS, MOON_RADIUS);
     }
 
     // 11. Configura la cámara y su controlador
@@ -136,85 +173,156 @@ public class SolarSystem extends ApplicationAdapter {
                         SUN_RADIUS * 200f));
     }
 
+    // Condiciones iniciales: las masas salen de las velocidades angulares
+    // (órbitas circulares, G = 1) y el sistema se centra en su momento
+    private void setupOrbits() {
+        double earthOrbitSpeed = Math.toRadians(EARTH_ORBIT_SPEED);
+        double moonOrbitSpeed = Math.toRadians(MOON_ORBIT_SPEED);
+        double totalMass = earthOrbitSpeed * earthOrbitSpeed * Math.pow(EARTH_ORBIT_RADIUS, 3);
+        double earthMass = moonOrbitSpeed * moonOrbitSpeed * Math.pow(MOON_ORBIT_RADIUS, 3);
+        double earthSpeed = Math.sqrt(totalMass / EARTH_ORBIT_RADIUS);
+        double moonSpeed = Math.sqrt(earthMass / MOON_ORBIT_RADIUS);
+
+        nbody = new NBodySimulation(3);
+        nbody.setBody(0, totalMass - earthMass, 0, 0, 0, 0, 0, 0);
+        nbody.setBody(1, earthMass, EARTH_ORBIT_RADIUS, 0, 0, 0, 0, earthSpeed);
+        nbody.setBody(2, earthMass * MOON_MASS_RATIO,
+                EARTH_ORBIT_RADIUS + MOON_ORBIT_RADIUS, 0, 0, 0, 0, earthSpeed + moonSpeed);
+        nbody.removeNetMomentum();
+
+        nbodyRunner = new NBodyRunner(nbody, NBODY_STEP, 1);
+        nbodyRunner.start();
+    }
+
     // 13. Inicializa todo
     @Override
     public void create() {
         loadTextures();
         createModels();
+        setupHierarchy();
+        Gdx.app.log("SolarSystem", modelCache.getStats());
         setupCamera();
         setupLighting();
+        setupOrbits();
+        bloom = new BloomEffect(Gdx.graphics.getBackBufferWidth(), Gdx.graphics.getBackBufferHeight());
+        profiler = new GLProfiler(Gdx.graphics);
     }
 
     // 14. Actualiza posiciones y rotaciones
     private void updateCelestialBodies() {
         float delta = Gdx.graphics.getDeltaTime();
 
+        sunRotation += EARTH_ORBIT_SPEED * 0.1f * delta;
         earthRotation += EARTH_ROTATION_SPEED * delta;
-        earthOrbit += EARTH_ORBIT_SPEED * delta;
         moonRotation += MOON_ROTATION_SPEED * delta;
-        moonOrbit += MOON_ORBIT_SPEED * delta;
 
-        // Sol gira despacio
-        sunInstance.transform.setToRotation(Vector3.Y, earthOrbit * 0.1f);
+        // Posiciones interpoladas de la simulación de N cuerpos
+        nbodyRunner.getPositions(bodyPositions);
+
+        // Sol gira despacio (y se balancea alrededor del baricentro)
+        hierarchy.setTranslation(sunFrame, bodyPositions[0], bodyPositions[1], bodyPositions[2]);
+        hierarchy.setRotation(sunNode, spin.setFromAxis(Vector3.Y, sunRotation));
 
         // Tierra orbita al sol
-        earthInstance.transform.idt()
-                .translate(
-                        (float) Math.cos(Math.toRadians(earthOrbit)) * EARTH_ORBIT_RADIUS,
-                        0f,
-                        (float) Math.sin(Math.toRadians(earthOrbit)) * EARTH_ORBIT_RADIUS)
-                .rotate(Vector3.Y, earthRotation)
-                .rotate(Vector3.Z, 23.5f);
+        hierarchy.setTranslation(earthFrame, bodyPositions[3] - bodyPositions[0],
+                bodyPositions[4] - bodyPositions[1], bodyPositions[5] - bodyPositions[2]);
+        hierarchy.setRotation(earthNode, spin.setFromAxis(Vector3.Y, earthRotation).mul(earthTilt));
 
         // Luna orbita la Tierra
-        Vector3 earthPos = earthInstance.transform.getTranslation(new Vector3());
-        moonInstance.transform.idt()
-                .translate(earthPos)
-                .translate(
-                        (float) Math.cos(Math.toRadians(moonOrbit)) * MOON_ORBIT_RADIUS,
-                        0f,
-                        (float) Math.sin(Math.toRadians(moonOrbit)) * MOON_ORBIT_RADIUS)
-                .rotate(Vector3.Y, moonRotation);
+        hierarchy.setTranslation(moonFrame, bodyPositions[6] - bodyPositions[3],
+                bodyPositions[7] - bodyPositions[4], bodyPositions[8] - bodyPositions[5]);
+        hierarchy.setRotation(moonNode, spin.setFromAxis(Vector3.Y, moonRotation));
+
+        // Matrices de mundo de lo que ha cambiado, de una pasada
+        hierarchy.update();
+        hierarchy.getWorld(sunNode, sunInstance.transform);
+        hierarchy.getWorld(earthNode, earthInstance.transform);
+        hierarchy.getWorld(moonNode, moonInstance.transform);
     }
 
     // 15. Renderiza la escena
     @Override
     public void render() {
+        sunMips.update();
+        earthMips.update();
+        moonMips.update();
         updateCelestialBodies();
+        // Nivel de detalle según el tamaño en pantalla
+        sphereLod.update(camera);
+        handleKeys();
 
-        // FONDO
-        Gdx.gl.glClearColor(0.05f, 0.05f, 0.1f, 1f);
-        Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT | GL20.GL_DEPTH_BUFFER_BIT);
+        // FONDO (en el framebuffer del bloom si está activo)
+        bloom.begin(0.05f, 0.05f, 0.1f);
 
         modelBatch.begin(camera);
-        // Cuerpos celestes
-        modelBatch.render(sunInstance, environment);
-        modelBatch.render(earthInstance, environment);
-        modelBatch.render(moonInstance, environment);
-
-        // Efecto de brillo del sol
-        if (modelBatch instanceof ModelBatch) {
-            sunInstance.materials.get(0)
-                    .set(ColorAttribute.createEmissive(1f, 0.7f, 0.4f, 1f));
-            modelBatch.render(sunInstance);
-            sunInstance.materials.get(0)
-                    .set(ColorAttribute.createEmissive(0.8f, 0.5f, 0.3f, 1f));
-        }
+        // Cuerpos celestes (sólo los que están en el frustum)
+        cullingScene.render(modelBatch, camera, environment);
         modelBatch.end();
 
+        // Brillo del sol: el emisivo pasa el umbral del bloom
+        bloom.end();
+
         camController.update();
+        updateStats();
+    }
+
+    private void handleKeys() {
+        if (Gdx.input.isKeyJustPressed(Input.Keys.B)) {
+            bloom.setEnabled(!bloom.isEnabled());
+            Gdx.app.log("SolarSystem", "Bloom " + (bloom.isEnabled() ? "activado" : "desactivado"));
+        }
+        if (Gdx.input.isKeyJustPressed(Input.Keys.L)) {
+            showStats = !showStats;
+            bloom.setProfiling(showStats);
+            if (showStats)
+                profiler.enable();
+            else
+                profiler.disable();
+            profiler.reset();
+            statsSeconds = 0;
+            statsFrames = 0;
+            statsBloomNanos = 0;
+        }
+    }
+
+    // Medias por frame del último segundo: llamadas de dibujo y cambios de
+    // estado (GLProfiler), cambios en la cola de ModelBatch y coste del bloom
+    private void updateStats() {
+        if (!showStats)
+            return;
+        statsFrames++;
+        statsBloomNanos += bloom.getLastPassNanos();
+        statsSeconds += Gdx.graphics.getDeltaTime();
+        if (statsSeconds < 1f)
+            return;
+
+        float frames = statsFrames;
+        Gdx.app.log("SolarSystem", String.format(
+                "%d fps; por frame: %.1f draw calls, %.1f cambios de shader, %.1f bindings de textura"
+                        + "; cola: %d cambios de material (%d sin ordenar); bloom %s %.3f ms",
+                Gdx.graphics.getFramesPerSecond(),
+                profiler.getDrawCalls() / frames, profiler.getShaderSwitches() / frames,
+                profiler.getTextureBindings() / frames,
+                sorter.getMaterialSwitches(), sorter.getUnsortedMaterialSwitches(),
+                bloom.isEnabled() ? "activado" : "desactivado", statsBloomNanos / 1e6 / frames));
+        Gdx.app.log("SolarSystem", sphereLod.getStats());
+        profiler.reset();
+        statsSeconds = 0;
+        statsFrames = 0;
+        statsBloomNanos = 0;
     }
 
     // 16. Limpieza y resize
     @Override
     public void dispose() {
+        nbodyRunner.dispose();
         modelBatch.dispose();
-        sunModel.dispose();
-        earthModel.dispose();
-        moonModel.dispose();
-        sunTexture.dispose();
-        earthTexture.dispose();
-        moonTexture.dispose();
+        bloom.dispose();
+        sphereLod.dispose();
+        modelCache.dispose();
+        sunMips.dispose();
+        earthMips.dispose();
+        moonMips.dispose();
     }
 
     @Override
@@ -222,5 +330,6 @@ public class SolarSystem extends ApplicationAdapter {
         camera.viewportWidth = width;
         camera.viewportHeight = height;
         camera.update();
+        bloom.resize(Gdx.graphics.getBackBufferWidth(), Gdx.graphics.getBackBufferHeight());
     }
 }
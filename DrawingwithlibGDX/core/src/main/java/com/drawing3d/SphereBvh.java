@@ -0,0 +1,229 @@
+package com.drawing3d;
+
+import com.badlogic.gdx.math.Frustum;
+import com.badlogic.gdx.math.Plane;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * Jerarquía de volúmenes envolventes (BVH) sobre esferas, aplanada en arrays.
+ * Cada nodo guarda una caja alineada a los ejes; las hojas apuntan a un rango
+ * de {@code order}. Se construye partiendo por la mediana del eje más largo,
+ * y si las esferas se mueven basta con {@link #refit()}.
+ * <p>
+ * {@link #query} descarta ramas enteras fuera del frustum y acepta sin más
+ * pruebas las que quedan dentro por completo, así que el coste crece con el
+ * número de nodos que cortan los bordes, no con el tamaño de la escena.
+ */
+public class SphereBvh {
+    private static final int LEAF_SIZE = 8;
+
+    // Resultado de probar una caja contra el frustum
+    private static final int OUTSIDE = 0;
+    private static final int INTERSECTS = 1;
+    private static final int INSIDE = 2;
+
+    // 1. Esferas (índice = id del objeto)
+    private float[] x, y, z, radius;
+    private int count;
+
+    // 2. Nodos: caja, hijos (o -1 si es hoja) y rango de order en las hojas
+    private float[] minX, minY, minZ, maxX, maxY, maxZ;
+    private int[] left, right, start, end;
+    private int nodeCount;
+    private int[] order;
+
+    // 3. Pila de recorrido reutilizada
+    private int[] stack = new int[64];
+
+    /**
+     * Construye el árbol sobre las primeras {@code count} esferas. Los arrays
+     * se guardan por referencia: tras cambiarlos hay que llamar a
+     * {@link #refit()}.
+     */
+    public void build(float[] x, float[] y, float[] z, float[] radius, int count) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.radius = radius;
+        this.count = count;
+
+        // Las hojas tienen más de LEAF_SIZE / 2 esferas (salvo un árbol de una hoja)
+        int maxNodes = 2 * (count / (LEAF_SIZE / 2) + 1);
+        if (minX == null || minX.length < maxNodes) {
+            minX = new float[maxNodes];
+            minY = new float[maxNodes];
+            minZ = new float[maxNodes];
+            maxX = new float[maxNodes];
+            maxY = new float[maxNodes];
+            maxZ = new float[maxNodes];
+            left = new int[maxNodes];
+            right = new int[maxNodes];
+            start = new int[maxNodes];
+            end = new int[maxNodes];
+        }
+        if (order == null || order.length < count)
+            order = new int[count];
+        for (int i = 0; i < count; i++)
+            order[i] = i;
+
+        nodeCount = 0;
+        if (count > 0)
+            buildNode(0, count);
+    }
+
+    private int buildNode(int from, int to) {
+        int node = nodeCount++;
+        start[node] = from;
+        end[node] = to;
+        fitNode(node);
+
+        if (to - from <= LEAF_SIZE) {
+            left[node] = -1;
+            right[node] = -1;
+            return node;
+        }
+
+        // Partir por la mediana del eje más largo de la caja
+        float sizeX = maxX[node] - minX[node];
+        float sizeY = maxY[node] - minY[node];
+        float sizeZ = maxZ[node] - minZ[node];
+        float[] axis = sizeX >= sizeY && sizeX >= sizeZ ? x : sizeY >= sizeZ ? y : z;
+        int middle = (from + to) >>> 1;
+        select(axis, from, to - 1, middle);
+
+        left[node] = buildNode(from, middle);
+        right[node] = buildNode(middle, to);
+        return node;
+    }
+
+    // Quickselect: deja en order[k] el k-ésimo por coordenada, menores a la izquierda
+    private void select(float[] axis, int lo, int hi, int k) {
+        while (hi > lo) {
+            float pivot = axis[order[(lo + hi) >>> 1]];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (axis[order[i]] < pivot)
+                    i++;
+                while (axis[order[j]] > pivot)
+                    j--;
+                if (i <= j) {
+                    int t = order[i];
+                    order[i] = order[j];
+                    order[j] = t;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j)
+                hi = j;
+            else if (k >= i)
+                lo = i;
+            else
+                return;
+        }
+    }
+
+    /** Recalcula las cajas de abajo arriba sin cambiar la forma del árbol. */
+    public void refit() {
+        // Los hijos siempre tienen índice mayor que su padre
+        for (int node = nodeCount - 1; node >= 0; node--) {
+            if (left[node] < 0) {
+                fitNode(node);
+            } else {
+                int a = left[node];
+                int b = right[node];
+                minX[node] = Math.min(minX[a], minX[b]);
+                minY[node] = Math.min(minY[a], minY[b]);
+                minZ[node] = Math.min(minZ[a], minZ[b]);
+                maxX[node] = Math.max(maxX[a], maxX[b]);
+                maxY[node] = Math.max(maxY[a], maxY[b]);
+                maxZ[node] = Math.max(maxZ[a], maxZ[b]);
+            }
+        }
+    }
+
+    private void fitNode(int node) {
+        float x0 = Float.POSITIVE_INFINITY, y0 = Float.POSITIVE_INFINITY, z0 = Float.POSITIVE_INFINITY;
+        float x1 = Float.NEGATIVE_INFINITY, y1 = Float.NEGATIVE_INFINITY, z1 = Float.NEGATIVE_INFINITY;
+        for (int i = start[node]; i < end[node]; i++) {
+            int id = order[i];
+            float r = radius[id];
+            x0 = Math.min(x0, x[id] - r);
+            y0 = Math.min(y0, y[id] - r);
+            z0 = Math.min(z0, z[id] - r);
+            x1 = Math.max(x1, x[id] + r);
+            y1 = Math.max(y1, y[id] + r);
+            z1 = Math.max(z1, z[id] + r);
+        }
+        minX[node] = x0;
+        minY[node] = y0;
+        minZ[node] = z0;
+        maxX[node] = x1;
+        maxY[node] = y1;
+        maxZ[node] = z1;
+    }
+
+    /** Añade a {@code visible} (sin vaciarlo) los ids de las esferas que tocan el frustum. */
+    public void query(Frustum frustum, IntArray visible) {
+        if (nodeCount == 0)
+            return;
+        Plane[] planes = frustum.planes;
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            int test = testBox(planes, node);
+            if (test == OUTSIDE)
+                continue;
+            if (test == INSIDE) {
+                // Todo el subárbol es visible: sus ids son un rango contiguo
+                for (int i = start[node]; i < end[node]; i++)
+                    visible.add(order[i]);
+                continue;
+            }
+            if (left[node] < 0) {
+                for (int i = start[node]; i < end[node]; i++) {
+                    int id = order[i];
+                    if (frustum.sphereInFrustum(x[id], y[id], z[id], radius[id]))
+                        visible.add(id);
+                }
+                continue;
+            }
+            if (top + 2 > stack.length) {
+                int[] grown = new int[stack.length * 2];
+                System.arraycopy(stack, 0, grown, 0, top);
+                stack = grown;
+            }
+            stack[top++] = right[node];
+            stack[top++] = left[node];
+        }
+    }
+
+    private int testBox(Plane[] planes, int node) {
+        int result = INSIDE;
+        for (Plane plane : planes) {
+            float nx = plane.normal.x, ny = plane.normal.y, nz = plane.normal.z;
+            // Esquina más adentro (p) y más afuera (n) según la normal
+            float px = nx >= 0 ? maxX[node] : minX[node];
+            float py = ny >= 0 ? maxY[node] : minY[node];
+            float pz = nz >= 0 ? maxZ[node] : minZ[node];
+            if (nx * px + ny * py + nz * pz + plane.d < 0)
+                return OUTSIDE;
+            float qx = nx >= 0 ? minX[node] : maxX[node];
+            float qy = ny >= 0 ? minY[node] : maxY[node];
+            float qz = nz >= 0 ? minZ[node] : maxZ[node];
+            if (nx * qx + ny * qy + nz * qz + plane.d < 0)
+                result = INTERSECTS;
+        }
+        return result;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+}
@@ -0,0 +1,180 @@
+package com.drawing3d;
+
+import com.badlogic.gdx.graphics.PerspectiveCamera;
+import com.badlogic.gdx.graphics.g3d.Material;
+import com.badlogic.gdx.graphics.g3d.Model;
+import com.badlogic.gdx.graphics.g3d.ModelInstance;
+import com.badlogic.gdx.graphics.g3d.model.MeshPart;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * Esferas con nivel de detalle. Cada nivel es una esfera unitaria (diámetro
+ * 1) de {@link SharedModelCache}, compartida entre todos los cuerpos con los
+ * mismos atributos de vértice; el tamaño va en el transform y el material en
+ * cada instancia.
+ * <p>
+ * En cada frame {@link #update} elige el nivel de cada cuerpo según el radio
+ * que proyecta en pantalla, con histéresis para que no parpadee en los
+ * umbrales, y cambia el {@link MeshPart} de su instancia.
+ */
+public class SphereLod implements Disposable {
+    // 1. Niveles: divisiones y radio en píxeles a partir del que se usa cada uno
+    public static final int[] DIVISIONS = {8, 16, 32, 64};
+    private static final float[] MIN_PIXEL_RADIUS = {0f, 12f, 40f, 120f};
+    private static final float HYSTERESIS = 0.15f;
+
+    /** Un cuerpo: su instancia, su diámetro y el nivel que usa ahora. */
+    public static class Body {
+        public final ModelInstance instance;
+        public final float diameter;
+        final int maxLevel;
+        int level;
+
+        Body(ModelInstance instance, float diameter, int maxLevel) {
+            this.instance = instance;
+            this.diameter = diameter;
+            this.maxLevel = maxLevel;
+            this.level = maxLevel;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+    }
+
+    // 2. Mallas compartidas: cada cuerpo guarda una referencia a los niveles
+    // hasta el suyo, que se sueltan en dispose
+    private final SharedModelCache cache;
+    private final long attributes;
+    private final Model[] models = new Model[DIVISIONS.length];
+    private final MeshPart[] levels = new MeshPart[DIVISIONS.length];
+    private final int[] levelVertices = new int[DIVISIONS.length];
+    private final Array<Body> bodies = new Array<>();
+
+    // 3. Estadísticas del último update
+    private final int[] bodiesPerLevel = new int[DIVISIONS.length];
+    private int triangles;
+    private int vertices;
+    private int fullDetailTriangles;
+    private int fullDetailVertices;
+
+    private final Vector3 tmp = new Vector3();
+
+    /** @param attributes máscara de {@code VertexAttributes.Usage} */
+    public SphereLod(SharedModelCache cache, long attributes) {
+        this.cache = cache;
+        this.attributes = attributes;
+        for (int level = 0; level < DIVISIONS.length; level++)
+            levelVertices[level] = (DIVISIONS[level] + 1) * (DIVISIONS[level] + 1);
+    }
+
+    /**
+     * Crea un cuerpo de diámetro {@code diameter} con {@code material} y como
+     * mucho {@code maxDivisions} divisiones. El diámetro se aplica con
+     * {@link #applyScale} después de colocar el transform.
+     */
+    public Body add(Material material, float diameter, int maxDivisions) {
+        int maxLevel = 0;
+        while (maxLevel + 1 < DIVISIONS.length && DIVISIONS[maxLevel + 1] <= maxDivisions)
+            maxLevel++;
+
+        for (int level = 0; level <= maxLevel; level++) {
+            models[level] = cache.acquire(SharedModelCache.Shape.SPHERE,
+                    DIVISIONS[level], DIVISIONS[level], attributes);
+            levels[level] = models[level].meshParts.first();
+        }
+        ModelInstance instance = SharedModelCache.createInstance(models[maxLevel], material);
+
+        Body body = new Body(instance, diameter, maxLevel);
+        bodies.add(body);
+        return body;
+    }
+
+    /** Escala el transform del cuerpo a su diámetro (la esfera base mide 1). */
+    public static void applyScale(Body body) {
+        body.instance.transform.scale(body.diameter, body.diameter, body.diameter);
+    }
+
+    /** Elige el nivel de cada cuerpo para {@code camera} y actualiza las estadísticas. */
+    public void update(PerspectiveCamera camera) {
+        float pixelsPerUnitAtOne = camera.viewportHeight / 2f
+                / (float) Math.tan(camera.fieldOfView * MathUtils.degreesToRadians / 2f);
+        triangles = 0;
+        vertices = 0;
+        fullDetailTriangles = 0;
+        fullDetailVertices = 0;
+        for (int level = 0; level < bodiesPerLevel.length; level++)
+            bodiesPerLevel[level] = 0;
+
+        for (Body body : bodies) {
+            float distance = Math.max(camera.near,
+                    body.instance.transform.getTranslation(tmp).dst(camera.position));
+            float pixelRadius = body.diameter / 2f * pixelsPerUnitAtOne / distance;
+
+            // Sube si supera el umbral del siguiente nivel por un margen, baja
+            // si cae por debajo del umbral del actual por el mismo margen
+            int level = body.level;
+            while (level < body.maxLevel && pixelRadius > MIN_PIXEL_RADIUS[level + 1] * (1 + HYSTERESIS))
+                level++;
+            while (level > 0 && pixelRadius < MIN_PIXEL_RADIUS[level] * (1 - HYSTERESIS))
+                level--;
+            if (level != body.level) {
+                body.level = level;
+                body.instance.nodes.first().parts.first().meshPart = levels[level];
+            }
+
+            bodiesPerLevel[level]++;
+            triangles += levels[level].size / 3;
+            vertices += levelVertices[level];
+            fullDetailTriangles += levels[body.maxLevel].size / 3;
+            fullDetailVertices += levelVertices[body.maxLevel];
+        }
+    }
+
+    /** Cuerpos que usaron cada nivel en el último update. */
+    public int getBodiesAtLevel(int level) {
+        return bodiesPerLevel[level];
+    }
+
+    public int getTriangles() {
+        return triangles;
+    }
+
+    public int getVertices() {
+        return vertices;
+    }
+
+    /** Triángulos que se habrían enviado con todos los cuerpos a su nivel máximo. */
+    public int getFullDetailTriangles() {
+        return fullDetailTriangles;
+    }
+
+    public int getFullDetailVertices() {
+        return fullDetailVertices;
+    }
+
+    /** Resumen de una línea para el log. */
+    public String getStats() {
+        StringBuilder stats = new StringBuilder("LOD");
+        for (int level = 0; level < DIVISIONS.length; level++) {
+            stats.append(' ').append(DIVISIONS[level]).append("x").append(DIVISIONS[level])
+                    .append(':').append(bodiesPerLevel[level]);
+        }
+        stats.append(", ").append(triangles).append(" triángulos / ").append(vertices)
+                .append(" vértices por frame (a detalle máximo ").append(fullDetailTriangles)
+                .append(" / ").append(fullDetailVertices).append(')');
+        return stats.toString();
+    }
+
+    @Override
+    public void dispose() {
+        for (Body body : bodies) {
+            for (int level = 0; level <= body.maxLevel; level++)
+                cache.release(models[level]);
+        }
+        bodies.clear();
+    }
+}
@@ -0,0 +1,164 @@
+package com.drawing3d;
+
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.math.Quaternion;
+
+import java.util.Arrays;
+
+/**
+ * Jerarquía de transforms padre/hijo en arrays planos. Cada nodo guarda su
+ * transform local como traslación, rotación (cuaternión) y escala, y su
+ * matriz de mundo cacheada; los setters sólo marcan el nodo como sucio.
+ * <p>
+ * Los nodos se añaden siempre después de su padre, así que {@link #update()}
+ * es una única pasada en orden por los arrays: un nodo se recalcula si
+ * cambió su local o la matriz de mundo de su padre, y si no, se salta.
+ */
+public class TransformHierarchy {
+    public static final int ROOT = -1;
+
+    // 1. Estructura y transform local (traslación, rotación, escala)
+    private int count;
+    private int[] parent = new int[16];
+    private float[] translation = new float[16 * 3];
+    private float[] rotation = new float[16 * 4];
+    private float[] scale = new float[16 * 3];
+
+    // 2. Matrices de mundo (16 floats por nodo, por columnas como Matrix4)
+    private float[] world = new float[16 * 16];
+    private boolean[] dirty = new boolean[16];
+    private boolean[] changed = new boolean[16];
+
+    // 3. Estadísticas del último update
+    private int lastUpdated;
+
+    private final float[] local = new float[16];
+
+    /** Añade un nodo con transform identidad bajo {@code parentNode} ({@link #ROOT} si no tiene). */
+    public int add(int parentNode) {
+        if (parentNode < ROOT || parentNode >= count)
+            throw new IllegalArgumentException("Padre inexistente: " + parentNode);
+        if (count == parent.length)
+            grow(count * 2);
+        int node = count++;
+        parent[node] = parentNode;
+        translation[node * 3] = translation[node * 3 + 1] = translation[node * 3 + 2] = 0;
+        rotation[node * 4] = rotation[node * 4 + 1] = rotation[node * 4 + 2] = 0;
+        rotation[node * 4 + 3] = 1;
+        scale[node * 3] = scale[node * 3 + 1] = scale[node * 3 + 2] = 1;
+        dirty[node] = true;
+        return node;
+    }
+
+    private void grow(int capacity) {
+        parent = Arrays.copyOf(parent, capacity);
+        translation = Arrays.copyOf(translation, capacity * 3);
+        rotation = Arrays.copyOf(rotation, capacity * 4);
+        scale = Arrays.copyOf(scale, capacity * 3);
+        world = Arrays.copyOf(world, capacity * 16);
+        dirty = Arrays.copyOf(dirty, capacity);
+        changed = Arrays.copyOf(changed, capacity);
+    }
+
+    public void setTranslation(int node, float x, float y, float z) {
+        translation[node * 3] = x;
+        translation[node * 3 + 1] = y;
+        translation[node * 3 + 2] = z;
+        dirty[node] = true;
+    }
+
+    public void setRotation(int node, Quaternion q) {
+        rotation[node * 4] = q.x;
+        rotation[node * 4 + 1] = q.y;
+        rotation[node * 4 + 2] = q.z;
+        rotation[node * 4 + 3] = q.w;
+        dirty[node] = true;
+    }
+
+    public void setScale(int node, float x, float y, float z) {
+        scale[node * 3] = x;
+        scale[node * 3 + 1] = y;
+        scale[node * 3 + 2] = z;
+        dirty[node] = true;
+    }
+
+    /** Recalcula las matrices de mundo de los nodos sucios y de sus descendientes. */
+    public void update() {
+        int updated = 0;
+        for (int node = 0; node < count; node++) {
+            int p = parent[node];
+            if (!dirty[node] && (p == ROOT || !changed[p])) {
+                changed[node] = false;
+                continue;
+            }
+            composeLocal(node);
+            if (p == ROOT)
+                System.arraycopy(local, 0, world, node * 16, 16);
+            else
+                multiply(world, p * 16, local, world, node * 16);
+            dirty[node] = false;
+            changed[node] = true;
+            updated++;
+        }
+        lastUpdated = updated;
+    }
+
+    // local = T * R * S, por columnas
+    private void composeLocal(int node) {
+        float qx = rotation[node * 4], qy = rotation[node * 4 + 1];
+        float qz = rotation[node * 4 + 2], qw = rotation[node * 4 + 3];
+        float sx = scale[node * 3], sy = scale[node * 3 + 1], sz = scale[node * 3 + 2];
+        float xx = qx * qx, yy = qy * qy, zz = qz * qz;
+        float xy = qx * qy, xz = qx * qz, yz = qy * qz;
+        float wx = qw * qx, wy = qw * qy, wz = qw * qz;
+
+        local[0] = (1 - 2 * (yy + zz)) * sx;
+        local[1] = 2 * (xy + wz) * sx;
+        local[2] = 2 * (xz - wy) * sx;
+        local[3] = 0;
+        local[4] = 2 * (xy - wz) * sy;
+        local[5] = (1 - 2 * (xx + zz)) * sy;
+        local[6] = 2 * (yz + wx) * sy;
+        local[7] = 0;
+        local[8] = 2 * (xz + wy) * sz;
+        local[9] = 2 * (yz - wx) * sz;
+        local[10] = (1 - 2 * (xx + yy)) * sz;
+        local[11] = 0;
+        local[12] = translation[node * 3];
+        local[13] = translation[node * 3 + 1];
+        local[14] = translation[node * 3 + 2];
+        local[15] = 1;
+    }
+
+    // out = a * b (matrices 4x4 por columnas)
+    private static void multiply(float[] a, int aOffset, float[] b, float[] out, int outOffset) {
+        for (int column = 0; column < 4; column++) {
+            float b0 = b[column * 4], b1 = b[column * 4 + 1];
+            float b2 = b[column * 4 + 2], b3 = b[column * 4 + 3];
+            for (int row = 0; row < 4; row++) {
+                out[outOffset + column * 4 + row] = a[aOffset + row] * b0 + a[aOffset + 4 + row] * b1
+                        + a[aOffset + 8 + row] * b2 + a[aOffset + 12 + row] * b3;
+            }
+        }
+    }
+
+    /** Copia la matriz de mundo de {@code node} (tras {@link #update()}) a {@code out}. */
+    public Matrix4 getWorld(int node, Matrix4 out) {
+        System.arraycopy(world, node * 16, out.val, 0, 16);
+        return out;
+    }
+
+    /** Si la matriz de mundo de {@code node} cambió en el último {@link #update()}. */
+    public boolean isChanged(int node) {
+        return changed[node];
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /** Nodos recalculados en el último {@link #update()}. */
+    public int getLastUpdated() {
+        return lastUpdated;
+    }
+}
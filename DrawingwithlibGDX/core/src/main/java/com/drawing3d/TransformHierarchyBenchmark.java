@@ -0,0 +1,118 @@
+package com.drawing3d;
+
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.math.Quaternion;
+import com.badlogic.gdx.math.Vector3;
+
+/**
+ * Mide {@link TransformHierarchy} con un sol, P planetas y S satélites por
+ * planeta, frente a reconstruir cada transform desde cero en cada frame
+ * ({@code idt().translate().rotate()} y multiplicar por el padre, como hacía
+ * {@code SolarSystem}). Dos escenarios: todo se mueve, o sólo se mueve un
+ * 1% de los satélites (el caso en el que los flags de sucio ahorran trabajo).
+ * <pre>
+ * TransformHierarchyBenchmark [planetas=10] [satélites=1000] [frames=2000]
+ * </pre>
+ */
+public class TransformHierarchyBenchmark {
+    public static void main(String[] args) {
+        int planets = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int satellites = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int frames = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+        int nodes = 1 + planets * (1 + satellites);
+        System.out.printf("%d nodos (%d planetas x %d satélites), %d frames%n", nodes, planets, satellites, frames);
+
+        for (float movingFraction : new float[] {1f, 0.01f}) {
+            // Calentar y medir cada variante
+            rebuild(planets, satellites, frames / 10, movingFraction);
+            hierarchy(planets, satellites, frames / 10, movingFraction);
+            long start = System.nanoTime();
+            float rebuildCheck = rebuild(planets, satellites, frames, movingFraction);
+            double rebuildMillis = (System.nanoTime() - start) / 1e6 / frames;
+            start = System.nanoTime();
+            float hierarchyCheck = hierarchy(planets, satellites, frames, movingFraction);
+            double hierarchyMillis = (System.nanoTime() - start) / 1e6 / frames;
+
+            System.out.printf("Se mueve el %5.1f%%: reconstruir %.3f ms/frame, jerarquía %.3f ms/frame (%.1fx)"
+                            + ", diferencia %.2e%n",
+                    movingFraction * 100, rebuildMillis, hierarchyMillis, rebuildMillis / hierarchyMillis,
+                    Math.abs(rebuildCheck - hierarchyCheck));
+        }
+    }
+
+    // Ángulo de un nodo en un frame; los que no se mueven conservan el del frame 0
+    private static float angle(int node, int frame, boolean moving) {
+        return (moving ? frame : 0) * 0.5f + node * 13f;
+    }
+
+    private static boolean moves(int satellite, int frame, float movingFraction) {
+        return movingFraction >= 1f || (satellite + frame) % Math.round(1 / movingFraction) == 0;
+    }
+
+    // Referencia: todas las matrices desde cero, cada frame
+    private static float rebuild(int planets, int satellites, int frames, float movingFraction) {
+        Matrix4 sun = new Matrix4();
+        Matrix4[] planetWorld = new Matrix4[planets];
+        Matrix4[] satelliteWorld = new Matrix4[planets * satellites];
+        float[] satelliteAngle = new float[planets * satellites];
+        for (int i = 0; i < planetWorld.length; i++)
+            planetWorld[i] = new Matrix4();
+        for (int i = 0; i < satelliteWorld.length; i++)
+            satelliteWorld[i] = new Matrix4();
+        Matrix4 local = new Matrix4();
+
+        for (int frame = 0; frame < frames; frame++) {
+            sun.idt();
+            for (int p = 0; p < planets; p++) {
+                local.idt().rotate(Vector3.Y, angle(p, frame, movingFraction >= 1f)).translate(20f + p * 10f, 0, 0);
+                planetWorld[p].set(sun).mul(local);
+                for (int s = 0; s < satellites; s++) {
+                    int id = p * satellites + s;
+                    if (moves(id, frame, movingFraction) || frame == 0)
+                        satelliteAngle[id] = angle(id, frame, true);
+                    local.idt().rotate(Vector3.Y, satelliteAngle[id]).translate(2f + s * 0.001f, 0, 0);
+                    satelliteWorld[id].set(planetWorld[p]).mul(local);
+                }
+            }
+        }
+        return satelliteWorld[satelliteWorld.length - 1].val[Matrix4.M03];
+    }
+
+    // Jerarquía: sólo se tocan los locales que cambian
+    private static float hierarchy(int planets, int satellites, int frames, float movingFraction) {
+        TransformHierarchy tree = new TransformHierarchy();
+        Quaternion q = new Quaternion();
+        Vector3 offset = new Vector3();
+        int sun = tree.add(TransformHierarchy.ROOT);
+        int[] planetNodes = new int[planets];
+        int[] satelliteNodes = new int[planets * satellites];
+        for (int p = 0; p < planets; p++) {
+            planetNodes[p] = tree.add(sun);
+            for (int s = 0; s < satellites; s++)
+                satelliteNodes[p * satellites + s] = tree.add(planetNodes[p]);
+        }
+
+        for (int frame = 0; frame < frames; frame++) {
+            for (int p = 0; p < planets; p++) {
+                if (movingFraction >= 1f || frame == 0)
+                    setOrbit(tree, planetNodes[p], angle(p, frame, movingFraction >= 1f), 20f + p * 10f, q, offset);
+                for (int s = 0; s < satellites; s++) {
+                    int id = p * satellites + s;
+                    if (moves(id, frame, movingFraction) || frame == 0)
+                        setOrbit(tree, satelliteNodes[id], angle(id, frame, true), 2f + s * 0.001f, q, offset);
+                }
+            }
+            tree.update();
+        }
+        return tree.getWorld(satelliteNodes[satelliteNodes.length - 1], new Matrix4()).val[Matrix4.M03];
+    }
+
+    // rotate(Y, angle).translate(radius, 0, 0) como traslación + rotación
+    private static void setOrbit(TransformHierarchy tree, int node, float angle, float radius,
+                                 Quaternion q, Vector3 offset) {
+        q.setFromAxis(Vector3.Y, angle);
+        offset.set(radius, 0, 0).mul(q);
+        tree.setRotation(node, q);
+        tree.setTranslation(node, offset.x, offset.y, offset.z);
+    }
+}
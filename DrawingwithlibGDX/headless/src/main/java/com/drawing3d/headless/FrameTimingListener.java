@@ -0,0 +1,172 @@
+package com.drawing3d.headless;
+
+import com.badlogic.gdx.ApplicationListener;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.PixmapIO;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.zip.Deflater;
+
+/**
+ * Envuelve una escena y la ejecuta {@code frames} frames, midiendo cada
+ * {@code render()}: tiempo de reloj y tiempo de CPU del hilo de render. Al
+ * terminar escribe un CSV ({@code frame,wall_ms,cpu_ms}) con todos los frames
+ * e imprime un resumen (media, p50, p95, p99 y máximo) sin los de
+ * calentamiento.
+ * <p>
+ * Opcionalmente guarda el framebuffer como PNG cada {@code dumpEvery} frames
+ * (sólo tiene sentido con un GL real); la lectura no cuenta en el tiempo.
+ */
+class FrameTimingListener implements ApplicationListener {
+    // 1. Escena y ajustes
+    private final ApplicationListener scene;
+    private final int frames;
+    private final int warmup;
+    private final File csv;
+    private int dumpEvery;
+    private File dumpDir;
+    private boolean finish;
+    private FixedStepGraphics mockGraphics;
+
+    // 2. Tiempos por frame
+    private final long[] wallNanos;
+    private final long[] cpuNanos;
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private int frame;
+
+    FrameTimingListener(ApplicationListener scene, int frames, int warmup, File csv) {
+        this.scene = scene;
+        if (frames < 1)
+            throw new IllegalArgumentException("frames debe ser al menos 1");
+        this.frames = frames;
+        this.warmup = Math.max(0, Math.min(warmup, frames - 1));
+        this.csv = csv;
+        wallNanos = new long[frames];
+        cpuNanos = new long[frames];
+    }
+
+    /** Guarda el framebuffer en {@code dir} cada {@code every} frames. */
+    void setDumps(int every, File dir) {
+        dumpEvery = every;
+        dumpDir = dir;
+    }
+
+    /** Espera a la GPU ({@code glFinish}) dentro del tiempo de cada frame. */
+    void setFinish(boolean finish) {
+        this.finish = finish;
+    }
+
+    /** Modo "mock": instala {@code graphics} y su GL antes de crear la escena. */
+    void setMockGraphics(FixedStepGraphics graphics) {
+        mockGraphics = graphics;
+    }
+
+    @Override
+    public void create() {
+        if (mockGraphics != null) {
+            Gdx.graphics = mockGraphics;
+            Gdx.gl = Gdx.gl20 = mockGraphics.getGL20();
+            Gdx.gl30 = null;
+        }
+        long start = System.nanoTime();
+        scene.create();
+        System.out.printf(Locale.ROOT, "create(): %.1f ms%n", (System.nanoTime() - start) / 1e6);
+    }
+
+    // El backend headless llama con 0x0; el tamaño bueno es el de Gdx.graphics
+    @Override
+    public void resize(int width, int height) {
+        scene.resize(Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
+    }
+
+    @Override
+    public void render() {
+        if (frame >= frames)
+            return;
+        long cpuStart = threads.getCurrentThreadCpuTime();
+        long start = System.nanoTime();
+        scene.render();
+        if (finish)
+            Gdx.gl.glFinish();
+        wallNanos[frame] = System.nanoTime() - start;
+        cpuNanos[frame] = threads.getCurrentThreadCpuTime() - cpuStart;
+
+        if (dumpEvery > 0 && frame % dumpEvery == 0)
+            dump(new File(dumpDir, String.format(Locale.ROOT, "frame-%05d.png", frame)));
+        if (++frame == frames)
+            Gdx.app.exit();
+    }
+
+    private void dump(File file) {
+        int width = Gdx.graphics.getBackBufferWidth();
+        int height = Gdx.graphics.getBackBufferHeight();
+        Pixmap pixmap = Pixmap.createFromFrameBuffer(0, 0, width, height);
+        try {
+            PixmapIO.writePNG(Gdx.files.absolute(file.getAbsolutePath()), pixmap, Deflater.DEFAULT_COMPRESSION, true);
+        } finally {
+            pixmap.dispose();
+        }
+    }
+
+    @Override
+    public void pause() {
+        scene.pause();
+    }
+
+    @Override
+    public void resume() {
+        scene.resume();
+    }
+
+    @Override
+    public void dispose() {
+        scene.dispose();
+        writeCsv();
+        printSummary();
+    }
+
+    private void writeCsv() {
+        try (PrintWriter out = new PrintWriter(csv, "UTF-8")) {
+            out.println("frame,wall_ms,cpu_ms");
+            for (int i = 0; i < frame; i++)
+                out.printf(Locale.ROOT, "%d,%.4f,%.4f%n", i, wallNanos[i] / 1e6, cpuNanos[i] / 1e6);
+        } catch (IOException e) {
+            throw new GdxRuntimeException("No se pudo escribir " + csv, e);
+        }
+    }
+
+    private void printSummary() {
+        int measured = frame - warmup;
+        if (measured <= 0) {
+            System.out.println("Sin frames medidos");
+            return;
+        }
+        long[] wall = Arrays.copyOfRange(wallNanos, warmup, frame);
+        long[] cpu = Arrays.copyOfRange(cpuNanos, warmup, frame);
+        System.out.printf(Locale.ROOT, "%d frames (+%d de calentamiento) -> %s%n", measured, warmup, csv);
+        System.out.printf(Locale.ROOT, "  reloj: %s%n", stats(wall));
+        System.out.printf(Locale.ROOT, "  CPU:   %s%n", stats(cpu));
+    }
+
+    private static String stats(long[] nanos) {
+        long sum = 0;
+        for (long value : nanos)
+            sum += value;
+        Arrays.sort(nanos);
+        return String.format(Locale.ROOT, "media %.3f ms, p50 %.3f, p95 %.3f, p99 %.3f, máx %.3f",
+                sum / 1e6 / nanos.length, percentile(nanos, 0.50), percentile(nanos, 0.95),
+                percentile(nanos, 0.99), nanos[nanos.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)] / 1e6;
+    }
+}
@@ -0,0 +1,119 @@
+package com.drawing3d.headless;
+
+import com.badlogic.gdx.ApplicationListener;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.backends.lwjgl3.Lwjgl3Application;
+import com.badlogic.gdx.backends.lwjgl3.Lwjgl3ApplicationConfiguration;
+import com.drawing3d.Drawing3D;
+import com.drawing3d.EarthSimulation;
+import com.drawing3d.SolarSystem;
+
+import java.io.File;
+
+/**
+ * Ejecuta una escena un número fijo de frames sin ventana visible y registra
+ * los tiempos de cada frame (ver {@link FrameTimingListener}).
+ * <pre>
+ * HeadlessLauncher [--scene drawing3d|earth|solar] [--frames 600] [--warmup 60]
+ *                  [--size 640x480] [--gl mock|software] [--csv frames.csv]
+ *                  [--dump-every N] [--dump-dir dumps] [--finish]
+ * </pre>
+ */
+public class HeadlessLauncher {
+    private static final String USAGE = "Uso: HeadlessLauncher [--scene drawing3d|earth|solar] [--frames 600]"
+            + " [--warmup 60] [--size 640x480] [--gl mock|software] [--csv frames.csv]"
+            + " [--dump-every N] [--dump-dir dumps] [--finish]";
+
+    public static void main(String[] args) {
+        String scene = "solar";
+        String gl = "mock";
+        int frames = 600, warmup = 60, width = 640, height = 480, dumpEvery = 0;
+        File csv = new File("frames.csv");
+        File dumpDir = new File("dumps");
+        boolean finish = false;
+        for (int i = 0; i < args.length; i++) {
+            boolean hasValue = i + 1 < args.length;
+            if (args[i].equals("--scene") && hasValue)
+                scene = args[++i];
+            else if (args[i].equals("--frames") && hasValue)
+                frames = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--warmup") && hasValue)
+                warmup = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--size") && hasValue) {
+                String[] size = args[++i].split("x");
+                width = Integer.parseInt(size[0]);
+                height = Integer.parseInt(size[1]);
+            } else if (args[i].equals("--gl") && hasValue)
+                gl = args[++i];
+            else if (args[i].equals("--csv") && hasValue)
+                csv = new File(args[++i]);
+            else if (args[i].equals("--dump-every") && hasValue)
+                dumpEvery = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--dump-dir") && hasValue)
+                dumpDir = new File(args[++i]);
+            else if (args[i].equals("--finish"))
+                finish = true;
+            else
+                usage("Argumento desconocido: " + args[i]);
+        }
+        if (frames < 1)
+            usage("--frames debe ser al menos 1");
+        if (warmup < 0)
+            usage("--warmup no puede ser negativo");
+
+        FrameTimingListener listener = new FrameTimingListener(createScene(scene), frames, warmup, csv);
+        listener.setFinish(finish);
+        if (gl.equals("mock")) {
+            // Sin píxeles que guardar: el GL simulado no dibuja nada
+            if (dumpEvery > 0)
+                System.out.println("--dump-every necesita --gl software; se ignora");
+            listener.setMockGraphics(new FixedStepGraphics(width, height, 1 / 60f));
+            HeadlessApplicationConfiguration configuration = new HeadlessApplicationConfiguration();
+            configuration.updatesPerSecond = 0; // Nunca dormir entre frames
+            new HeadlessApplication(listener, configuration);
+        } else if (gl.equals("software")) {
+            if (dumpEvery > 0) {
+                dumpDir.mkdirs();
+                listener.setDumps(dumpEvery, dumpDir);
+            }
+            new Lwjgl3Application(listener, getSoftwareConfiguration(width, height));
+        } else {
+            usage("GL desconocido: " + gl);
+        }
+    }
+
+    private static ApplicationListener createScene(String name) {
+        switch (name) {
+            case "drawing3d":
+                return new Drawing3D();
+            case "earth":
+                return new EarthSimulation();
+            case "solar":
+                return new SolarSystem();
+            default:
+                usage("Escena desconocida: " + name);
+                return null;
+        }
+    }
+
+    private static void usage(String problem) {
+        System.err.println(problem);
+        System.err.println(USAGE);
+        System.exit(2);
+    }
+
+    // Un contexto GL real en una ventana que nunca se muestra. Sin GPU, ejecutar
+    // bajo Xvfb con LIBGL_ALWAYS_SOFTWARE=1 para que Mesa use llvmpipe.
+    private static Lwjgl3ApplicationConfiguration getSoftwareConfiguration(int width, int height) {
+        Lwjgl3ApplicationConfiguration configuration = new Lwjgl3ApplicationConfiguration();
+        configuration.setTitle("Drawing3D (headless)");
+        configuration.setWindowedMode(width, height);
+        configuration.setResizable(false);
+        configuration.setInitialVisible(false);
+        configuration.useVsync(false);
+        configuration.setForegroundFPS(0);
+        configuration.setIdleFPS(0);
+        return configuration;
+    }
+}
@@ -0,0 +1,98 @@
+package com.drawing3d.headless;
+
+import com.badlogic.gdx.graphics.GL20;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.IntBuffer;
+
+/**
+ * {@link GL20} que no dibuja nada, para ejecutar las escenas con el backend
+ * headless. Responde lo justo para que libGDX funcione: los shaders compilan,
+ * los framebuffers están completos, cada {@code glGen*}/{@code glCreate*}
+ * devuelve un handle nuevo y {@code glGetIntegerv} da límites razonables.
+ * El resto devuelve 0, {@code false}, {@code ""} o {@code null}.
+ * <p>
+ * Es un {@link Proxy}: cada llamada pasa por reflexión y reserva sus
+ * argumentos, así que los tiempos medidos con él sirven para comparar la
+ * parte de CPU entre versiones, no como tiempos absolutos.
+ */
+final class MockGL implements InvocationHandler {
+    private int nextHandle = 1;
+
+    private MockGL() {
+    }
+
+    static GL20 create() {
+        return (GL20) Proxy.newProxyInstance(GL20.class.getClassLoader(),
+                new Class<?>[] { GL20.class }, new MockGL());
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "glCreateShader":
+            case "glCreateProgram":
+            case "glGenTexture":
+            case "glGenBuffer":
+            case "glGenFramebuffer":
+            case "glGenRenderbuffer":
+                return nextHandle++;
+            case "glGenTextures":
+            case "glGenBuffers":
+            case "glGenFramebuffers":
+            case "glGenRenderbuffers": {
+                IntBuffer handles = (IntBuffer) args[1];
+                for (int i = 0; i < (Integer) args[0]; i++)
+                    handles.put(handles.position() + i, nextHandle++);
+                return null;
+            }
+            case "glCheckFramebufferStatus":
+                return GL20.GL_FRAMEBUFFER_COMPLETE;
+            case "glGetShaderiv":
+            case "glGetProgramiv": {
+                int name = (Integer) args[1];
+                boolean ok = name == GL20.GL_COMPILE_STATUS || name == GL20.GL_LINK_STATUS;
+                ((IntBuffer) args[2]).put(0, ok ? GL20.GL_TRUE : 0);
+                return null;
+            }
+            case "glGetIntegerv":
+                ((IntBuffer) args[1]).put(0, integer((Integer) args[0]));
+                return null;
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "MockGL";
+            default:
+                return defaultValue(method.getReturnType());
+        }
+    }
+
+    private static int integer(int name) {
+        switch (name) {
+            case GL20.GL_MAX_TEXTURE_SIZE:
+                return 4096;
+            case GL20.GL_MAX_TEXTURE_IMAGE_UNITS:
+            case GL20.GL_MAX_COMBINED_TEXTURE_IMAGE_UNITS:
+            case GL20.GL_MAX_VERTEX_ATTRIBS:
+                return 16;
+            default:
+                return 0;
+        }
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == int.class)
+            return 0;
+        if (type == boolean.class)
+            return false;
+        if (type == float.class)
+            return 0f;
+        if (type == String.class)
+            return "";
+        return null;
+    }
+}
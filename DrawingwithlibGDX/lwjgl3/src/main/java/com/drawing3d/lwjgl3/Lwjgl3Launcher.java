@@ -11,10 +11,27 @@ public class Lwjgl3Launcher {
     public static void main(String[] args) {
         if (StartupHelper.startNewJvmIfRequired())
             return; // This handles macOS support and helps on Windows.
-        createApplication();
+        createApplication(args);
     }
 
-    private static Lwjgl3Application createApplication() {
+    private static Lwjgl3Application createApplication(String[] args) {
+        // --instanced <N>: Drawing3D con N copias de cada figura
+        // --instanced-benchmark: recorre varios N y registra el tiempo de frame
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--instanced") && i + 1 < args.length) {
+                Lwjgl3ApplicationConfiguration configuration = getDefaultConfiguration();
+                configuration.setOpenGLEmulation(Lwjgl3ApplicationConfiguration.GLEmulation.GL30, 3, 2);
+                return new Lwjgl3Application(
+                        new Drawing3D(Integer.parseInt(args[i + 1]), false), configuration);
+            }
+            if (args[i].equals("--instanced-benchmark")) {
+                Lwjgl3ApplicationConfiguration configuration = getDefaultConfiguration();
+                configuration.setOpenGLEmulation(Lwjgl3ApplicationConfiguration.GLEmulation.GL30, 3, 2);
+                configuration.useVsync(false);
+                configuration.setForegroundFPS(0);
+                return new Lwjgl3Application(new Drawing3D(1, true), configuration);
+            }
+        }
         return new Lwjgl3Application(new SolarSystem(), getDefaultConfiguration());
     }
 
@@ -0,0 +1,107 @@
+package com.drawing3d.lwjgl3;
+
+import com.drawing3d.MipChainFile;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Convierte imágenes a {@link MipChainFile}: reduce cada imagen a la mitad
+ * (media de 2x2) hasta 1x1 y guarda la cadena en RGB565, o en RGBA4444 si
+ * algún píxel es transparente. Lo ejecuta la tarea de gradle
+ * {@code buildMipChains}; las imágenes que no existen se saltan.
+ * <pre>
+ * MipChainBuilder &lt;carpeta&gt; &lt;imagen&gt;...
+ * </pre>
+ */
+public class MipChainBuilder {
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Uso: MipChainBuilder <carpeta> <imagen>...");
+            System.exit(1);
+        }
+        File folder = new File(args[0]);
+        for (int i = 1; i < args.length; i++) {
+            File source = new File(folder, args[i]);
+            if (!source.isFile()) {
+                System.out.println("No existe " + source + ", se salta");
+                continue;
+            }
+            String name = args[i].substring(0, args[i].lastIndexOf('.')) + ".mip";
+            build(source, new File(folder, name));
+        }
+    }
+
+    private static void build(File source, File target) throws IOException {
+        long start = System.nanoTime();
+        BufferedImage image = ImageIO.read(source);
+        if (image == null)
+            throw new IOException("Formato de imagen no soportado: " + source);
+
+        // 1. Nivel 0 y formato
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+        int format = MipChainFile.RGB565;
+        for (int pixel : pixels) {
+            if (pixel >>> 24 != 0xff) {
+                format = MipChainFile.RGBA4444;
+                break;
+            }
+        }
+
+        // 2. Cadena hasta 1x1
+        int levels = 32 - Integer.numberOfLeadingZeros(Math.max(width, height));
+        int[][] argb = new int[levels][];
+        int[] widths = new int[levels];
+        int[] heights = new int[levels];
+        argb[0] = pixels;
+        widths[0] = width;
+        heights[0] = height;
+        for (int level = 1; level < levels; level++) {
+            widths[level] = Math.max(1, widths[level - 1] / 2);
+            heights[level] = Math.max(1, heights[level - 1] / 2);
+            argb[level] = downsample(argb[level - 1], widths[level - 1], heights[level - 1],
+                    widths[level], heights[level]);
+        }
+
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(target))) {
+            MipChainFile.write(out, format, argb, widths, heights);
+        }
+        System.out.printf("%s -> %s: %dx%d, %d niveles, %s, %.1f KB (RGBA8888 sin mipmaps: %.1f KB), %.0f ms%n",
+                source.getName(), target.getName(), width, height, levels,
+                format == MipChainFile.RGB565 ? "RGB565" : "RGBA4444",
+                target.length() / 1024.0, width * height * 4 / 1024.0, (System.nanoTime() - start) / 1e6);
+    }
+
+    // Media de cada bloque 2x2 (1x2 o 2x1 en el borde de un lado impar de 1)
+    private static int[] downsample(int[] source, int sourceWidth, int sourceHeight, int width, int height) {
+        int[] result = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            int y0 = Math.min(y * 2, sourceHeight - 1);
+            int y1 = Math.min(y * 2 + 1, sourceHeight - 1);
+            for (int x = 0; x < width; x++) {
+                int x0 = Math.min(x * 2, sourceWidth - 1);
+                int x1 = Math.min(x * 2 + 1, sourceWidth - 1);
+                result[y * width + x] = average(
+                        source[y0 * sourceWidth + x0], source[y0 * sourceWidth + x1],
+                        source[y1 * sourceWidth + x0], source[y1 * sourceWidth + x1]);
+            }
+        }
+        return result;
+    }
+
+    private static int average(int a, int b, int c, int d) {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            int sum = (a >>> shift & 0xff) + (b >>> shift & 0xff) + (c >>> shift & 0xff) + (d >>> shift & 0xff);
+            result |= (sum + 2) / 4 << shift;
+        }
+        return result;
+    }
+}
@@ -1,6 +1,8 @@
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.geom.*;
@@ -14,7 +16,7 @@ public class PaintApp {
 
     // Tool options
     enum Tool {
-        PENCIL, RECTANGLE, OVAL, ARC, ERASER
+        PENCIL, RECTANGLE, OVAL, ARC, ERASER, PAN
     }
 
     // Color palette (10 total colors)
@@ -24,8 +26,12 @@ public class PaintApp {
             Color.CYAN, Color.MAGENTA
     };
 
+    // Pencil and eraser strokes are simplified on release; points closer than
+    // this (in pixels) to the simplified line are dropped
+    static final float DEFAULT_SIMPLIFY_TOLERANCE = 0.75f;
+
     // Class representing a colored shape
-    class ColoredShape {
+    static class ColoredShape {
         Shape shape;
         Color color;
 
@@ -35,14 +41,121 @@ public class PaintApp {
         }
     }
 
-    // Custom drawing panel
+    // Freehand stroke: the points live in a growable float[] (x0, y0, x1, y1, ...)
+    // and are drawn as one Path2D, instead of one Line2D per mouse event
+    static class PolylineStroke extends ColoredShape {
+        private float[] points = new float[64];
+        private int size; // floats in use
+
+        public PolylineStroke(float x, float y, Color color) {
+            super(null, color);
+            add(x, y);
+        }
+
+        public void add(float x, float y) {
+            if (size == points.length)
+                points = Arrays.copyOf(points, size * 2);
+            points[size++] = x;
+            points[size++] = y;
+        }
+
+        public int getPointCount() {
+            return size / 2;
+        }
+
+        // Simplifies the stroke, trims the buffer and builds the path to draw
+        public void finish(float tolerance) {
+            if (tolerance > 0)
+                simplify(tolerance);
+            points = Arrays.copyOf(points, size);
+            shape = toPath();
+        }
+
+        public Path2D.Float toPath() {
+            Path2D.Float path = new Path2D.Float(Path2D.WIND_NON_ZERO, size / 2);
+            path.moveTo(points[0], points[1]);
+            for (int i = 2; i < size; i += 2)
+                path.lineTo(points[i], points[i + 1]);
+            return path;
+        }
+
+        // Ramer-Douglas-Peucker with an explicit stack, so long strokes can't
+        // overflow the call stack
+        private void simplify(float tolerance) {
+            int count = size / 2;
+            if (count < 3)
+                return;
+            boolean[] keep = new boolean[count];
+            keep[0] = keep[count - 1] = true;
+            int[] stack = new int[64];
+            int top = 0;
+            stack[top++] = 0;
+            stack[top++] = count - 1;
+            float tolerance2 = tolerance * tolerance;
+            while (top > 0) {
+                int last = stack[--top];
+                int first = stack[--top];
+                int farthest = -1;
+                float farthestDistance2 = tolerance2;
+                for (int i = first + 1; i < last; i++) {
+                    float distance2 = distanceToSegment2(i, first, last);
+                    if (distance2 > farthestDistance2) {
+                        farthestDistance2 = distance2;
+                        farthest = i;
+                    }
+                }
+                if (farthest < 0)
+                    continue;
+                keep[farthest] = true;
+                if (top + 4 > stack.length)
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                stack[top++] = first;
+                stack[top++] = farthest;
+                stack[top++] = farthest;
+                stack[top++] = last;
+            }
+
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                if (keep[i]) {
+                    points[kept++] = points[i * 2];
+                    points[kept++] = points[i * 2 + 1];
+                }
+            }
+            size = kept;
+        }
+
+        // Squared distance from point i to the segment first-last
+        private float distanceToSegment2(int i, int first, int last) {
+            float x = points[i * 2], y = points[i * 2 + 1];
+            float ax = points[first * 2], ay = points[first * 2 + 1];
+            float dx = points[last * 2] - ax, dy = points[last * 2 + 1] - ay;
+            float length2 = dx * dx + dy * dy;
+            float t = length2 == 0 ? 0 : ((x - ax) * dx + (y - ay) * dy) / length2;
+            t = Math.max(0, Math.min(1, t));
+            float px = ax + t * dx - x, py = ay + t * dy - y;
+            return px * px + py * py;
+        }
+    }
+
+    // Custom drawing panel over an unbounded TiledCanvas: shapes are kept in
+    // world coordinates, the Pan tool drags the view and the mouse wheel zooms.
+    // Only the shape in progress is drawn on top of the cached tiles.
     class DrawingPanel extends JPanel {
-        private List<ColoredShape> shapes = new ArrayList<>();
+        private final TiledCanvas canvas = new TiledCanvas(Color.WHITE);
         private ColoredShape currentShape;
-        private Point startPoint;
+        private PolylineStroke activeStroke;
+        private float simplifyTolerance = DEFAULT_SIMPLIFY_TOLERANCE;
+        private final Line2D.Double segment = new Line2D.Double();
+        private Point2D.Double startPoint;
+        private Point panPoint;
         private Tool currentTool = Tool.PENCIL;
         private Color currentColor = Color.BLACK;
 
+        // EDT paint times since the status was last read
+        private long paintNanos, maxPaintNanos;
+        private int paints;
+
         public void setCurrentTool(Tool tool) {
             this.currentTool = tool;
         }
@@ -51,22 +164,30 @@ public class PaintApp {
             this.currentColor = color;
         }
 
+        public void setSimplifyTolerance(float tolerance) {
+            this.simplifyTolerance = tolerance;
+        }
+
         public DrawingPanel() {
             setBackground(Color.WHITE);
+            canvas.setRepaintListener(this::repaint);
 
             addMouseListener(new MouseAdapter() {
                 @Override
                 public void mousePressed(MouseEvent e) {
-                    startPoint = e.getPoint();
+                    startPoint = canvas.toWorld(e.getX(), e.getY());
+                    panPoint = e.getPoint();
                     currentShape = null;
+                    activeStroke = null;
                 }
 
                 @Override
                 public void mouseReleased(MouseEvent e) {
+                    if (activeStroke != null)
+                        finishStroke();
                     if (currentShape != null) {
-                        shapes.add(currentShape);
+                        commit(currentShape);
                         currentShape = null;
-                        repaint();
                     }
                 }
             });
@@ -74,49 +195,53 @@ public class PaintApp {
             addMouseMotionListener(new MouseAdapter() {
                 @Override
                 public void mouseDragged(MouseEvent e) {
+                    // Repaint only what the previous preview covered
+                    if (currentShape != null)
+                        repaint(canvas.toScreen(currentShape.shape.getBounds2D()));
+                    Point2D.Double point = canvas.toWorld(e.getX(), e.getY());
                     switch (currentTool) {
                         case PENCIL:
-                            shapes.add(new ColoredShape(
-                                    new Line2D.Double(startPoint, e.getPoint()),
-                                    currentColor));
-                            startPoint = e.getPoint();
+                            extendStroke(point, currentColor);
                             break;
                         case RECTANGLE:
                             currentShape = new ColoredShape(
                                     new Rectangle2D.Double(
-                                            Math.min(startPoint.x, e.getX()),
-                                            Math.min(startPoint.y, e.getY()),
-                                            Math.abs(startPoint.x - e.getX()),
-                                            Math.abs(startPoint.y - e.getY())),
+                                            Math.min(startPoint.x, point.x),
+                                            Math.min(startPoint.y, point.y),
+                                            Math.abs(startPoint.x - point.x),
+                                            Math.abs(startPoint.y - point.y)),
                                     currentColor);
                             break;
                         case OVAL:
                             currentShape = new ColoredShape(
                                     new Ellipse2D.Double(
-                                            Math.min(startPoint.x, e.getX()),
-                                            Math.min(startPoint.y, e.getY()),
-                                            Math.abs(startPoint.x - e.getX()),
-                                            Math.abs(startPoint.y - e.getY())),
+                                            Math.min(startPoint.x, point.x),
+                                            Math.min(startPoint.y, point.y),
+                                            Math.abs(startPoint.x - point.x),
+                                            Math.abs(startPoint.y - point.y)),
                                     currentColor);
                             break;
                         case ARC:
                             currentShape = new ColoredShape(
                                     new Arc2D.Double(
-                                            Math.min(startPoint.x, e.getX()),
-                                            Math.min(startPoint.y, e.getY()),
-                                            Math.abs(startPoint.x - e.getX()),
-                                            Math.abs(startPoint.y - e.getY()),
+                                            Math.min(startPoint.x, point.x),
+                                            Math.min(startPoint.y, point.y),
+                                            Math.abs(startPoint.x - point.x),
+                                            Math.abs(startPoint.y - point.y),
                                             0, 180, Arc2D.OPEN),
                                     currentColor);
                             break;
                         case ERASER:
-                            shapes.add(new ColoredShape(
-                                    new Line2D.Double(startPoint, e.getPoint()),
-                                    Color.WHITE));
-                            startPoint = e.getPoint();
+                            extendStroke(point, Color.WHITE);
+                            break;
+                        case PAN:
+                            canvas.pan(e.getX() - panPoint.x, e.getY() - panPoint.y);
+                            panPoint = e.getPoint();
+                            repaint();
                             break;
                     }
-                    repaint();
+                    if (currentShape != null)
+                        repaint(canvas.toScreen(currentShape.shape.getBounds2D()));
                 }
 
                 @Override
@@ -124,22 +249,114 @@ public class PaintApp {
                     currentShape = null;
                 }
             });
+
+            addMouseWheelListener(e -> {
+                if (activeStroke != null || currentShape != null)
+                    return; // Keep the view still while drawing
+                canvas.zoom(-e.getWheelRotation(), e.getX(), e.getY());
+                repaint();
+            });
+
+            // Ctrl+Z undoes, Ctrl+Y or Ctrl+Shift+Z redoes
+            bindKey(KeyStroke.getKeyStroke(KeyEvent.VK_Z, InputEvent.CTRL_DOWN_MASK), "undo", this::undo);
+            bindKey(KeyStroke.getKeyStroke(KeyEvent.VK_Y, InputEvent.CTRL_DOWN_MASK), "redo", this::redo);
+            bindKey(KeyStroke.getKeyStroke(KeyEvent.VK_Z, InputEvent.CTRL_DOWN_MASK | InputEvent.SHIFT_DOWN_MASK),
+                    "redo", this::redo);
+        }
+
+        private void bindKey(KeyStroke key, String name, Runnable action) {
+            getInputMap(WHEN_IN_FOCUSED_WINDOW).put(key, name);
+            getActionMap().put(name, new AbstractAction() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    action.run();
+                }
+            });
+        }
+
+        // Undo and redo only move the canvas' command log cursor; the tiles
+        // under the shape are rasterized again from their nearest checkpoint
+        public void undo() {
+            if (activeStroke != null || currentShape != null)
+                return; // Not in the middle of a shape
+            Rectangle2D bounds = canvas.undo();
+            if (bounds != null)
+                repaint(canvas.toScreen(bounds));
+        }
+
+        public void redo() {
+            if (activeStroke != null || currentShape != null)
+                return;
+            Rectangle2D bounds = canvas.redo();
+            if (bounds != null)
+                repaint(canvas.toScreen(bounds));
+        }
+
+        // Adds a finished shape to the document; its tiles are rasterized again
+        private void commit(ColoredShape cs) {
+            canvas.add(cs);
+            repaint(canvas.toScreen(cs.shape.getBounds2D()));
+        }
+
+        // Appends a point to the stroke in progress and draws just the new
+        // segment into the visible tiles
+        private void extendStroke(Point2D.Double point, Color color) {
+            if (activeStroke == null) {
+                activeStroke = new PolylineStroke((float) startPoint.x, (float) startPoint.y, color);
+                canvas.setLiveShape(activeStroke);
+            }
+            activeStroke.add((float) point.x, (float) point.y);
+            segment.setLine(startPoint, point);
+            canvas.drawOnCachedTiles(segment, color);
+            repaint(canvas.toScreen(segment.getBounds2D()));
+            startPoint = point;
+        }
+
+        // Simplifies the finished stroke; adding it redraws its tiles, since the
+        // raw segments already in them differ slightly from the simplified path
+        private void finishStroke() {
+            activeStroke.finish(simplifyTolerance);
+            canvas.setLiveShape(null);
+            commit(activeStroke);
+            activeStroke = null;
         }
 
         @Override
         protected void paintComponent(Graphics g) {
-            super.paintComponent(g);
+            long start = System.nanoTime();
             Graphics2D g2d = (Graphics2D) g;
-
-            for (ColoredShape cs : shapes) {
-                g2d.setColor(cs.color);
-                g2d.draw(cs.shape);
-            }
+            Rectangle clip = g2d.getClipBounds();
+            if (clip == null)
+                clip = new Rectangle(0, 0, getWidth(), getHeight());
+            canvas.setViewSize(getWidth(), getHeight());
+            canvas.paint(g2d, clip);
 
             if (currentShape != null) {
-                g2d.setColor(currentShape.color);
-                g2d.draw(currentShape.shape);
+                Graphics2D preview = (Graphics2D) g2d.create();
+                preview.transform(canvas.getViewTransform());
+                preview.setColor(currentShape.color);
+                preview.draw(currentShape.shape);
+                preview.dispose();
             }
+
+            long nanos = System.nanoTime() - start;
+            paintNanos += nanos;
+            maxPaintNanos = Math.max(maxPaintNanos, nanos);
+            paints++;
+        }
+
+        // Paint times since the last call, worker queue and tile cache
+        public String takeStatus() {
+            String status = String.format("Paint %.2f ms avg, %.2f ms max (%d paints) | Queue %d tiles"
+                            + " | Cache %d tiles, %d rendered, %d cancelled, %d checkpoints"
+                            + " | %d/%d commands, zoom %.2fx",
+                    paints == 0 ? 0 : paintNanos / 1e6 / paints, maxPaintNanos / 1e6, paints,
+                    canvas.getPendingTiles(), canvas.getCachedTiles(), canvas.getTilesRendered(),
+                    canvas.getJobsCancelled(), canvas.getCheckpoints(), canvas.getShapeCount(),
+                    canvas.getCommandCount(), canvas.getZoom());
+            paintNanos = maxPaintNanos = 0;
+            paints = 0;
+            return status;
         }
     }
 
@@ -180,6 +397,20 @@ public class PaintApp {
         toolGroup.add(eraserBtn);
         toolPanel.add(eraserBtn);
 
+        JToggleButton panBtn = new JToggleButton("Pan");
+        panBtn.addActionListener(e -> drawingPanel.setCurrentTool(Tool.PAN));
+        toolGroup.add(panBtn);
+        toolPanel.add(panBtn);
+
+        // Undo / redo (also Ctrl+Z / Ctrl+Y)
+        JButton undoBtn = new JButton("Undo");
+        undoBtn.addActionListener(e -> drawingPanel.undo());
+        toolPanel.add(undoBtn);
+
+        JButton redoBtn = new JButton("Redo");
+        redoBtn.addActionListener(e -> drawingPanel.redo());
+        toolPanel.add(redoBtn);
+
         // Color palette
         for (Color color : COLOR_PALETTE) {
             JPanel colorBox = new JPanel();
@@ -196,6 +427,12 @@ public class PaintApp {
         }
 
         frame.add(toolPanel, BorderLayout.NORTH);
+
+        // Status bar: EDT paint time and tile worker queue, twice a second
+        JLabel statusLabel = new JLabel(" ");
+        statusLabel.setBorder(BorderFactory.createEmptyBorder(2, 6, 2, 6));
+        frame.add(statusLabel, BorderLayout.SOUTH);
+        new Timer(500, e -> statusLabel.setText(drawingPanel.takeStatus())).start();
         frame.setSize(900, 600);
         frame.setVisible(true);
     }
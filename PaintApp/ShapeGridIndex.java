@@ -0,0 +1,143 @@
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Uniform grid over world space. Each cell lists, in insertion order, the ids
+ * of the shapes whose bounds touch it, so a query only looks at shapes near
+ * the area asked for. Shapes that would span too many cells go into a single
+ * "large" list that every query checks instead.
+ * <p>
+ * Ids are added in increasing order, so every list is sorted: a query can
+ * binary-search an id range, and the last id added is always at the end of
+ * its lists, which is what remove() relies on.
+ * <p>
+ * query() keeps no state between calls, so several threads may query at once
+ * as long as nothing is added or removed meanwhile.
+ */
+class ShapeGridIndex {
+    // Shapes covering more cells than this are kept in the large list
+    private static final int MAX_CELLS_PER_SHAPE = 1024;
+
+    private final double cellSize;
+    private final Map<Long, IntList> cells = new HashMap<>();
+    private final IntList large = new IntList();
+
+    ShapeGridIndex(double cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    void add(int id, Rectangle2D bounds) {
+        int minX = cell(bounds.getMinX()), maxX = cell(bounds.getMaxX());
+        int minY = cell(bounds.getMinY()), maxY = cell(bounds.getMaxY());
+        if ((long) (maxX - minX + 1) * (maxY - minY + 1) > MAX_CELLS_PER_SHAPE) {
+            large.add(id);
+            return;
+        }
+        for (int cy = minY; cy <= maxY; cy++) {
+            for (int cx = minX; cx <= maxX; cx++) {
+                IntList ids = cells.get(key(cx, cy));
+                if (ids == null) {
+                    ids = new IntList();
+                    cells.put(key(cx, cy), ids);
+                }
+                ids.add(id);
+            }
+        }
+    }
+
+    /** Removes the most recently added id; bounds must be the ones it was added with. */
+    void remove(int id, Rectangle2D bounds) {
+        int minX = cell(bounds.getMinX()), maxX = cell(bounds.getMaxX());
+        int minY = cell(bounds.getMinY()), maxY = cell(bounds.getMaxY());
+        if ((long) (maxX - minX + 1) * (maxY - minY + 1) > MAX_CELLS_PER_SHAPE) {
+            large.removeLast(id);
+            return;
+        }
+        for (int cy = minY; cy <= maxY; cy++) {
+            for (int cx = minX; cx <= maxX; cx++) {
+                IntList ids = cells.get(key(cx, cy));
+                ids.removeLast(id);
+                if (ids.size == 0)
+                    cells.remove(key(cx, cy));
+            }
+        }
+    }
+
+    /**
+     * Puts the ids in [from, to) of the shapes that may touch area into out,
+     * in insertion (drawing) order.
+     */
+    void query(Rectangle2D area, int from, int to, IntList out) {
+        out.clear();
+        int minX = cell(area.getMinX()), maxX = cell(area.getMaxX());
+        int minY = cell(area.getMinY()), maxY = cell(area.getMaxY());
+        long areaCells = (long) (maxX - minX + 1) * (maxY - minY + 1);
+
+        if (areaCells > cells.size()) {
+            // Zoomed far out: cheaper to walk the cells that exist
+            for (Map.Entry<Long, IntList> entry : cells.entrySet()) {
+                int cx = (int) (entry.getKey() >> 32), cy = (int) (long) entry.getKey();
+                if (cx >= minX && cx <= maxX && cy >= minY && cy <= maxY)
+                    collect(entry.getValue(), from, to, out);
+            }
+        } else {
+            for (int cy = minY; cy <= maxY; cy++) {
+                for (int cx = minX; cx <= maxX; cx++) {
+                    IntList ids = cells.get(key(cx, cy));
+                    if (ids != null)
+                        collect(ids, from, to, out);
+                }
+            }
+        }
+        collect(large, from, to, out);
+
+        // A shape spanning several cells was collected once per cell
+        Arrays.sort(out.items, 0, out.size);
+        int unique = 0;
+        for (int i = 0; i < out.size; i++) {
+            if (unique == 0 || out.items[i] != out.items[unique - 1])
+                out.items[unique++] = out.items[i];
+        }
+        out.size = unique;
+    }
+
+    private void collect(IntList ids, int from, int to, IntList out) {
+        int start = Arrays.binarySearch(ids.items, 0, ids.size, from);
+        if (start < 0)
+            start = -start - 1;
+        for (int i = start; i < ids.size && ids.items[i] < to; i++)
+            out.add(ids.items[i]);
+    }
+
+    private int cell(double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+
+    // Growable int array, so cells don't box their ids
+    static final class IntList {
+        int[] items = new int[8];
+        int size;
+
+        void add(int value) {
+            if (size == items.length)
+                items = Arrays.copyOf(items, size * 2);
+            items[size++] = value;
+        }
+
+        void removeLast(int value) {
+            if (size == 0 || items[size - 1] != value)
+                throw new IllegalStateException("Not the last id: " + value);
+            size--;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+import java.awt.Color;
+import java.awt.geom.Line2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the memory of a simulated freehand session stored the old way (one
+ * ColoredShape + Line2D.Double per mouse-drag event) against
+ * PaintApp.PolylineStroke (one simplified stroke per press/release).
+ *
+ * Usage: java StrokeMemoryReport [minutes=10] [tolerance=0.75]
+ */
+public class StrokeMemoryReport {
+    // A mouse reporting at 125 Hz, drawing 60% of the time in 1.5 s strokes
+    private static final int EVENTS_PER_SECOND = 125;
+    private static final double DRAWING_FRACTION = 0.6;
+    private static final double STROKE_SECONDS = 1.5;
+
+    public static void main(String[] args) {
+        double minutes = args.length > 0 ? Double.parseDouble(args[0]) : 10;
+        float tolerance = args.length > 1 ? Float.parseFloat(args[1]) : PaintApp.DEFAULT_SIMPLIFY_TOLERANCE;
+        int strokes = (int) (minutes * 60 * DRAWING_FRACTION / STROKE_SECONDS);
+        int eventsPerStroke = (int) (STROKE_SECONDS * EVENTS_PER_SECOND);
+        int[][] session = simulateSession(strokes, eventsPerStroke);
+        int events = strokes * eventsPerStroke;
+        System.out.printf("%.0f minutes: %d strokes, %d drag events%n", minutes, strokes, events);
+
+        long before = usedHeap();
+        List<PaintApp.ColoredShape> lines = buildLines(session);
+        long linesBytes = usedHeap() - before;
+        int lineObjects = lines.size() * 2; // ColoredShape + Line2D.Double
+        System.out.printf("Line2D per event:  %,9d objects, %,11d bytes (%d shapes)%n",
+                lineObjects, linesBytes, lines.size());
+        lines = null;
+
+        before = usedHeap();
+        List<PaintApp.PolylineStroke> polylines = buildStrokes(session, tolerance);
+        long strokesBytes = usedHeap() - before;
+        // PolylineStroke + float[] + Path2D.Float with its float[] and byte[]
+        int strokeObjects = polylines.size() * 5;
+        int points = 0;
+        for (PaintApp.PolylineStroke stroke : polylines)
+            points += stroke.getPointCount();
+        System.out.printf("PolylineStroke:    %,9d objects, %,11d bytes (%d points kept of %d, tolerance %.2f px)%n",
+                strokeObjects, strokesBytes, points, events + strokes, tolerance);
+
+        System.out.printf("Saved:             %,9d objects, %,11d bytes (%.1fx smaller)%n",
+                lineObjects - strokeObjects, linesBytes - strokesBytes, linesBytes / (double) strokesBytes);
+        polylines.clear();
+    }
+
+    // Smooth, wobbly strokes snapped to whole pixels like real mouse input
+    private static int[][] simulateSession(int strokes, int eventsPerStroke) {
+        Random random = new Random(42);
+        int[][] session = new int[strokes][];
+        for (int s = 0; s < strokes; s++) {
+            int[] stroke = new int[(eventsPerStroke + 1) * 2];
+            double x = 100 + random.nextInt(700), y = 100 + random.nextInt(400);
+            double heading = random.nextDouble() * Math.PI * 2;
+            double turn = (random.nextDouble() - 0.5) * 0.08;
+            for (int i = 0; i <= eventsPerStroke; i++) {
+                stroke[i * 2] = (int) Math.round(x);
+                stroke[i * 2 + 1] = (int) Math.round(y);
+                heading += turn + Math.sin(i * 0.05) * 0.03;
+                x += Math.cos(heading) * 3;
+                y += Math.sin(heading) * 3;
+            }
+            session[s] = stroke;
+        }
+        return session;
+    }
+
+    // What mouseDragged used to do: one shape per segment
+    private static List<PaintApp.ColoredShape> buildLines(int[][] session) {
+        List<PaintApp.ColoredShape> shapes = new ArrayList<>();
+        for (int[] stroke : session) {
+            for (int i = 2; i < stroke.length; i += 2) {
+                shapes.add(new PaintApp.ColoredShape(
+                        new Line2D.Double(stroke[i - 2], stroke[i - 1], stroke[i], stroke[i + 1]),
+                        Color.BLACK));
+            }
+        }
+        return shapes;
+    }
+
+    private static List<PaintApp.PolylineStroke> buildStrokes(int[][] session, float tolerance) {
+        List<PaintApp.PolylineStroke> strokes = new ArrayList<>();
+        for (int[] points : session) {
+            PaintApp.PolylineStroke stroke = new PaintApp.PolylineStroke(points[0], points[1], Color.BLACK);
+            for (int i = 2; i < points.length; i += 2)
+                stroke.add(points[i], points[i + 1]);
+            stroke.finish(tolerance);
+            strokes.add(stroke);
+        }
+        return strokes;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++)
+            System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
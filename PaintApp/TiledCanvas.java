@@ -0,0 +1,610 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Unbounded, pannable and zoomable canvas for PaintApp. Shapes are stored in
+ * world coordinates and indexed by a ShapeGridIndex. The screen is split into
+ * fixed-size tiles, each rasterized once (only from the shapes the index
+ * returns for it) and kept in an LRU cache with a memory budget.
+ * <p>
+ * Tiles are rasterized on a worker pool. The EDT only hands a worker the tile
+ * and the current command count; the worker queries the index for that prefix
+ * of the document, copies the shapes and draws them. The finished image comes
+ * back through invokeLater and the tile is repainted. Until then paint() shows
+ * the tile's previous image if it has one, or a scaled placeholder built from
+ * cached tiles of other zoom levels. The cache, the checkpoints and the pending
+ * jobs are only touched on the EDT. The shape list and the index are written
+ * only by the EDT, under the document lock's write side; workers hold the
+ * read side just while they query and copy.
+ * <p>
+ * Zoom goes in quarter steps of powers of two, so each level has its own tiles.
+ * The view is an integer pixel offset at the current level, which keeps tiles
+ * aligned to screen pixels while panning.
+ * <p>
+ * The shape list is an append-only command log: the first {@code cursor}
+ * shapes are drawn and the rest can be redone. Undo and redo only move the
+ * cursor and invalidate the shape's bounds. To keep re-rasterizing a tile
+ * cheap in long documents, a job saves a checkpoint of the tile's raster
+ * every {@code checkpointInterval} commands, and later jobs for that tile
+ * start from the latest checkpoint at or before the cursor instead of from
+ * the first command. Checkpoints are kept in their own LRU with a budget.
+ */
+public class TiledCanvas {
+    static final int TILE_SIZE = 256;
+    static final long DEFAULT_CACHE_BYTES = 64L << 20;
+    static final int DEFAULT_CHECKPOINT_INTERVAL = 1000;
+    static final long DEFAULT_CHECKPOINT_BYTES = 32L << 20;
+    // Tiles with fewer commands than this to replay don't get a checkpoint
+    private static final int MIN_CHECKPOINT_SHAPES = 64;
+    private static final int MIN_LEVEL = -24, MAX_LEVEL = 16; // zoom = 2^(level / 4)
+    private static final long TILE_BYTES = (long) TILE_SIZE * TILE_SIZE * 4;
+    private static final Color PLACEHOLDER = new Color(235, 235, 235);
+
+    // A cached tile; world is the area it covers (padded by a line width).
+    // A stale tile is still shown while its replacement is rasterized
+    private static final class Tile {
+        final int level, tx, ty;
+        final Rectangle2D.Double world;
+        final BufferedImage image;
+        boolean stale;
+
+        Tile(int level, int tx, int ty, Rectangle2D.Double world, BufferedImage image) {
+            this.level = level;
+            this.tx = tx;
+            this.ty = ty;
+            this.world = world;
+            this.image = image;
+        }
+    }
+
+    // A tile's raster after the first commands commands
+    private static final class CheckpointKey {
+        final long tile;
+        final int commands;
+
+        CheckpointKey(long tile, int commands) {
+            this.tile = tile;
+            this.commands = commands;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof CheckpointKey))
+                return false;
+            CheckpointKey other = (CheckpointKey) o;
+            return tile == other.tile && commands == other.commands;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(tile) * 31 + commands;
+        }
+    }
+
+    // A tile being rasterized on a worker: commands [from, cursor) that touch
+    // it, drawn over base (the checkpoint after the first from commands) if
+    // there is one. On the way, the raster after the first checkpointCommands
+    // commands is saved as a new checkpoint when that is worth it
+    private final class Job implements Runnable {
+        final long key;
+        final int level, tx, ty;
+        final double zoom;
+        final Rectangle2D.Double world;
+        final int from, cursor;
+        final BufferedImage base;
+        final int checkpointCommands, logVersion;
+        BufferedImage image, checkpoint;
+        int shapeCount;
+        volatile boolean cancelled;
+
+        Job(long key, int tx, int ty, Rectangle2D.Double world, int from, BufferedImage base,
+            int checkpointCommands, BufferedImage image) {
+            this.key = key;
+            this.level = TiledCanvas.this.level;
+            this.tx = tx;
+            this.ty = ty;
+            this.zoom = TiledCanvas.this.zoom;
+            this.world = world;
+            this.from = from;
+            this.cursor = TiledCanvas.this.cursor;
+            this.base = base;
+            this.checkpointCommands = checkpointCommands;
+            this.logVersion = TiledCanvas.this.logVersion;
+            this.image = image;
+        }
+
+        @Override
+        public void run() {
+            if (cancelled)
+                return;
+            ShapeGridIndex.IntList ids = new ShapeGridIndex.IntList();
+            PaintApp.ColoredShape[] snapshot;
+            documentLock.readLock().lock();
+            try {
+                index.query(world, from, cursor, ids);
+                snapshot = new PaintApp.ColoredShape[ids.size];
+                for (int i = 0; i < ids.size; i++)
+                    snapshot[i] = shapes.get(ids.items[i]);
+            } finally {
+                documentLock.readLock().unlock();
+            }
+            shapeCount = snapshot.length;
+
+            // Save a newer checkpoint on the way when there is enough to replay
+            int checkpointIndex = -1;
+            if (checkpointCommands > from) {
+                checkpointIndex = 0;
+                while (checkpointIndex < ids.size && ids.items[checkpointIndex] < checkpointCommands)
+                    checkpointIndex++;
+                if (checkpointIndex < MIN_CHECKPOINT_SHAPES)
+                    checkpointIndex = -1;
+            }
+
+            if (image == null)
+                image = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g2d = image.createGraphics();
+            if (base != null) {
+                g2d.drawImage(base, 0, 0, null);
+            } else {
+                g2d.setColor(background);
+                g2d.fillRect(0, 0, TILE_SIZE, TILE_SIZE);
+            }
+            g2d.translate(-(double) tx * TILE_SIZE, -(double) ty * TILE_SIZE);
+            g2d.scale(zoom, zoom);
+            for (int i = 0; i < snapshot.length && !cancelled; i++) {
+                if (i == checkpointIndex)
+                    checkpoint = copy(image);
+                g2d.setColor(snapshot[i].color);
+                g2d.draw(snapshot[i].shape);
+            }
+            if (checkpointIndex == snapshot.length)
+                checkpoint = copy(image);
+            g2d.dispose();
+            SwingUtilities.invokeLater(() -> publish(this));
+        }
+    }
+
+    // Document: shapes[0, cursor) are drawn, shapes[cursor, size) can be redone
+    private final ReentrantReadWriteLock documentLock = new ReentrantReadWriteLock();
+    private final List<PaintApp.ColoredShape> shapes = new ArrayList<>();
+    private int cursor;
+    private int logVersion; // bumped when the redo tail is dropped
+    private final ShapeGridIndex index = new ShapeGridIndex(TILE_SIZE);
+    private final Color background;
+
+    // Tile cache in access order: the first entry is the least recently used
+    private final LinkedHashMap<Long, Tile> tiles = new LinkedHashMap<>(64, 0.75f, true);
+    private long cacheBudget = DEFAULT_CACHE_BYTES;
+    private BufferedImage spare; // last evicted image, reused by the next job
+
+    // Checkpoints in access order, like the tiles
+    private final LinkedHashMap<CheckpointKey, BufferedImage> checkpoints =
+            new LinkedHashMap<>(64, 0.75f, true);
+    private int checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+    private long checkpointBudget = DEFAULT_CHECKPOINT_BYTES;
+
+    // Rasterization
+    private final ExecutorService workers;
+    private final Map<Long, Job> pending = new HashMap<>();
+    private Consumer<Rectangle> repaintListener = area -> { };
+    private PaintApp.ColoredShape liveShape;
+
+    // View: screen = world * zoom - view
+    private int level;
+    private double zoom = 1;
+    private long viewX, viewY;
+    private int viewWidth, viewHeight;
+
+    // Stats
+    private final List<Tile> placeholders = new ArrayList<>();
+    private int tilesRendered, tilesEvicted, jobsCancelled;
+    private long shapesDrawn;
+
+    public TiledCanvas(Color background) {
+        this(background, Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    public TiledCanvas(Color background, int threads) {
+        this.background = background;
+        AtomicInteger count = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "TileRaster-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        });
+    }
+
+    /** Called with the screen area of every tile that arrives from a worker. */
+    public void setRepaintListener(Consumer<Rectangle> listener) {
+        repaintListener = listener;
+    }
+
+    /**
+     * A shape being drawn that isn't in the document yet; it is drawn over
+     * tiles that arrive from the workers, which don't know about it.
+     */
+    public void setLiveShape(PaintApp.ColoredShape cs) {
+        liveShape = cs;
+    }
+
+    public void setCacheBudget(long bytes) {
+        cacheBudget = bytes;
+        evict();
+    }
+
+    /** Commands between checkpoints of a tile; 0 turns checkpoints off. */
+    public void setCheckpointInterval(int commands) {
+        checkpointInterval = commands;
+        checkpoints.clear();
+    }
+
+    public void setCheckpointBudget(long bytes) {
+        checkpointBudget = bytes;
+        evictCheckpoints();
+    }
+
+    /** Shapes currently drawn, i.e. commands not undone. */
+    public int getShapeCount() {
+        return cursor;
+    }
+
+    public PaintApp.ColoredShape getShape(int id) {
+        return shapes.get(id);
+    }
+
+    /**
+     * Adds a finished shape and marks the cached tiles it touches as stale.
+     * Anything that could still be redone is dropped.
+     */
+    public void add(PaintApp.ColoredShape cs) {
+        if (cursor < shapes.size())
+            dropRedo();
+        Rectangle2D bounds = cs.shape.getBounds2D();
+        documentLock.writeLock().lock();
+        try {
+            index.add(shapes.size(), bounds);
+            shapes.add(cs);
+        } finally {
+            documentLock.writeLock().unlock();
+        }
+        cursor++;
+        invalidate(bounds);
+    }
+
+    public boolean canUndo() {
+        return cursor > 0;
+    }
+
+    public boolean canRedo() {
+        return cursor < shapes.size();
+    }
+
+    /** Hides the last drawn shape; returns its world bounds, or null if there is none. */
+    public Rectangle2D undo() {
+        if (!canUndo())
+            return null;
+        Rectangle2D bounds = shapes.get(--cursor).shape.getBounds2D();
+        invalidate(bounds);
+        return bounds;
+    }
+
+    /** Shows the last undone shape again; returns its world bounds, or null if there is none. */
+    public Rectangle2D redo() {
+        if (!canRedo())
+            return null;
+        Rectangle2D bounds = shapes.get(cursor++).shape.getBounds2D();
+        invalidate(bounds);
+        return bounds;
+    }
+
+    // Truncates the log to the cursor. Undone shapes aren't on any tile, but
+    // checkpoints past the cursor may contain them
+    private void dropRedo() {
+        documentLock.writeLock().lock();
+        try {
+            for (int id = shapes.size() - 1; id >= cursor; id--) {
+                index.remove(id, shapes.get(id).shape.getBounds2D());
+                shapes.remove(id);
+            }
+        } finally {
+            documentLock.writeLock().unlock();
+        }
+        checkpoints.keySet().removeIf(checkpoint -> checkpoint.commands > cursor);
+        logVersion++;
+    }
+
+    /**
+     * Marks the cached tiles (at every zoom level) that overlap world as stale
+     * and drops the jobs for them, whose snapshots are now out of date.
+     */
+    public void invalidate(Rectangle2D world) {
+        double x = world.getX(), y = world.getY();
+        double w = Math.max(world.getWidth(), 1e-9), h = Math.max(world.getHeight(), 1e-9);
+        for (Tile tile : tiles.values()) {
+            if (tile.world.intersects(x, y, w, h))
+                tile.stale = true;
+        }
+        for (Iterator<Job> it = pending.values().iterator(); it.hasNext(); ) {
+            Job job = it.next();
+            if (job.world.intersects(x, y, w, h)) {
+                job.cancelled = true;
+                it.remove();
+                jobsCancelled++;
+            }
+        }
+    }
+
+    /**
+     * Draws shape straight into the cached tiles of the current level, for
+     * live feedback (a stroke being drawn) without rasterizing tiles again.
+     */
+    public void drawOnCachedTiles(Shape shape, Color color) {
+        Rectangle2D bounds = shape.getBounds2D();
+        for (Tile tile : tiles.values()) {
+            if (tile.level == level && tile.world.intersects(bounds.getX(), bounds.getY(),
+                    Math.max(bounds.getWidth(), 1e-9), Math.max(bounds.getHeight(), 1e-9)))
+                drawOnTile(tile, shape, color);
+        }
+    }
+
+    private void drawOnTile(Tile tile, Shape shape, Color color) {
+        Graphics2D g2d = tile.image.createGraphics();
+        g2d.translate(-(double) tile.tx * TILE_SIZE, -(double) tile.ty * TILE_SIZE);
+        g2d.scale(Math.pow(2, tile.level / 4.0), Math.pow(2, tile.level / 4.0));
+        g2d.setColor(color);
+        g2d.draw(shape);
+        g2d.dispose();
+    }
+
+    /** Paints the tiles under clip (screen coordinates); never waits for a worker. */
+    public void paint(Graphics2D g2d, Rectangle clip) {
+        int minX = (int) Math.floorDiv(clip.x + viewX, (long) TILE_SIZE);
+        int maxX = (int) Math.floorDiv(clip.x + clip.width - 1 + viewX, (long) TILE_SIZE);
+        int minY = (int) Math.floorDiv(clip.y + viewY, (long) TILE_SIZE);
+        int maxY = (int) Math.floorDiv(clip.y + clip.height - 1 + viewY, (long) TILE_SIZE);
+        for (int ty = minY; ty <= maxY; ty++) {
+            for (int tx = minX; tx <= maxX; tx++) {
+                long key = key(level, tx, ty);
+                Tile tile = tiles.get(key);
+                if (tile == null || tile.stale)
+                    request(key, tx, ty);
+                int x = (int) ((long) tx * TILE_SIZE - viewX), y = (int) ((long) ty * TILE_SIZE - viewY);
+                if (tile != null)
+                    g2d.drawImage(tile.image, x, y, null);
+                else
+                    drawPlaceholder(g2d, tx, ty, x, y);
+            }
+        }
+    }
+
+    // Queues a tile for the workers, with the command count as it is now
+    private void request(long key, int tx, int ty) {
+        if (pending.containsKey(key))
+            return;
+        double size = TILE_SIZE / zoom;
+        double pad = 2 / zoom + 1; // line width, in world units
+        Rectangle2D.Double world = new Rectangle2D.Double(
+                tx * size - pad, ty * size - pad, size + 2 * pad, size + 2 * pad);
+
+        // Start from the latest checkpoint at or before the cursor, if any
+        int from = 0;
+        BufferedImage base = null;
+        int interval = checkpointInterval;
+        for (int commands = interval > 0 ? cursor / interval * interval : 0;
+             commands > 0 && base == null; commands -= interval) {
+            base = checkpoints.get(new CheckpointKey(key, commands));
+            if (base != null)
+                from = commands;
+        }
+        // Save the last boundary strictly before the cursor: a checkpoint at
+        // the cursor itself would just be this raster, of no use to an undo
+        int latest = interval > 0 ? (cursor - 1) / interval * interval : 0;
+        Job job = new Job(key, tx, ty, world, from, base, latest, spare);
+        spare = null;
+        pending.put(key, job);
+        workers.execute(job);
+    }
+
+    // On the EDT: caches a finished tile unless it was invalidated meanwhile
+    private void publish(Job job) {
+        if (pending.get(job.key) != job) {
+            spare = job.image; // Invalidated or scrolled away meanwhile
+            return;
+        }
+        pending.remove(job.key);
+        Tile tile = new Tile(job.level, job.tx, job.ty, job.world, job.image);
+        if (liveShape instanceof PaintApp.PolylineStroke)
+            drawOnTile(tile, ((PaintApp.PolylineStroke) liveShape).toPath(), liveShape.color);
+        else if (liveShape != null)
+            drawOnTile(tile, liveShape.shape, liveShape.color);
+        tiles.put(job.key, tile);
+        evict();
+        if (job.checkpoint != null && job.logVersion == logVersion) {
+            checkpoints.put(new CheckpointKey(job.key, job.checkpointCommands), job.checkpoint);
+            evictCheckpoints();
+        }
+        tilesRendered++;
+        shapesDrawn += job.shapeCount;
+        if (job.level == level) {
+            repaintListener.accept(new Rectangle((int) ((long) job.tx * TILE_SIZE - viewX),
+                    (int) ((long) job.ty * TILE_SIZE - viewY), TILE_SIZE, TILE_SIZE));
+        }
+    }
+
+    // Fills a missing tile with whatever other zoom levels have cached there,
+    // scaled, drawing the closest level last so it ends up on top
+    private void drawPlaceholder(Graphics2D g2d, int tx, int ty, int x, int y) {
+        g2d.setColor(PLACEHOLDER);
+        g2d.fillRect(x, y, TILE_SIZE, TILE_SIZE);
+        double size = TILE_SIZE / zoom;
+        placeholders.clear();
+        for (Tile tile : tiles.values()) {
+            if (tile.level != level && tile.world.intersects(tx * size, ty * size, size, size))
+                placeholders.add(tile);
+        }
+        if (placeholders.isEmpty())
+            return;
+        placeholders.sort((a, b) -> Math.abs(b.level - level) - Math.abs(a.level - level));
+        Graphics2D g = (Graphics2D) g2d.create();
+        g.clipRect(x, y, TILE_SIZE, TILE_SIZE);
+        g.translate(-viewX, -viewY);
+        for (Tile tile : placeholders) {
+            double scale = Math.pow(2, (level - tile.level) / 4.0);
+            AffineTransform transform = AffineTransform.getScaleInstance(scale, scale);
+            transform.translate((double) tile.tx * TILE_SIZE, (double) tile.ty * TILE_SIZE);
+            g.drawImage(tile.image, transform, null);
+        }
+        g.dispose();
+    }
+
+    // Drops least recently used tiles until the cache fits the budget
+    private void evict() {
+        Iterator<Tile> it = tiles.values().iterator();
+        while (tiles.size() * TILE_BYTES > cacheBudget && tiles.size() > 1) {
+            spare = it.next().image;
+            it.remove();
+            tilesEvicted++;
+        }
+    }
+
+    private void evictCheckpoints() {
+        Iterator<BufferedImage> it = checkpoints.values().iterator();
+        while (checkpoints.size() * TILE_BYTES > checkpointBudget && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private static BufferedImage copy(BufferedImage image) {
+        BufferedImage copy = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = copy.createGraphics();
+        g2d.drawImage(image, 0, 0, null);
+        g2d.dispose();
+        return copy;
+    }
+
+    // Drops queued jobs for tiles that are no longer on screen
+    private void cancelHidden() {
+        int minX = (int) Math.floorDiv(viewX, (long) TILE_SIZE);
+        int maxX = (int) Math.floorDiv(viewX + viewWidth - 1, (long) TILE_SIZE);
+        int minY = (int) Math.floorDiv(viewY, (long) TILE_SIZE);
+        int maxY = (int) Math.floorDiv(viewY + viewHeight - 1, (long) TILE_SIZE);
+        for (Iterator<Job> it = pending.values().iterator(); it.hasNext(); ) {
+            Job job = it.next();
+            if (job.level != level || job.tx < minX || job.tx > maxX || job.ty < minY || job.ty > maxY) {
+                job.cancelled = true;
+                it.remove();
+                jobsCancelled++;
+            }
+        }
+    }
+
+    private static long key(int level, int tx, int ty) {
+        return ((long) (level & 0xFF) << 56) | ((long) (tx & 0xFFFFFFF) << 28) | (ty & 0xFFFFFFF);
+    }
+
+    // View
+
+    public void setViewSize(int width, int height) {
+        viewWidth = width;
+        viewHeight = height;
+    }
+
+    public void pan(int dx, int dy) {
+        viewX -= dx;
+        viewY -= dy;
+        cancelHidden();
+    }
+
+    /** Zooms by steps quarter-octaves, keeping the world point under (x, y) in place. */
+    public void zoom(int steps, int x, int y) {
+        int newLevel = Math.max(MIN_LEVEL, Math.min(MAX_LEVEL, level + steps));
+        if (newLevel == level)
+            return;
+        double worldX = (x + viewX) / zoom, worldY = (y + viewY) / zoom;
+        level = newLevel;
+        zoom = Math.pow(2, level / 4.0);
+        viewX = Math.round(worldX * zoom - x);
+        viewY = Math.round(worldY * zoom - y);
+        cancelHidden();
+    }
+
+    public double getZoom() {
+        return zoom;
+    }
+
+    public Point2D.Double toWorld(int x, int y) {
+        return new Point2D.Double((x + viewX) / zoom, (y + viewY) / zoom);
+    }
+
+    /** Screen pixels covered by a 1-unit outline of a shape with these world bounds. */
+    public Rectangle toScreen(Rectangle2D world) {
+        int pad = 2 + (int) Math.ceil(zoom);
+        int x0 = (int) Math.floor(world.getMinX() * zoom - viewX) - pad;
+        int y0 = (int) Math.floor(world.getMinY() * zoom - viewY) - pad;
+        int x1 = (int) Math.ceil(world.getMaxX() * zoom - viewX) + pad;
+        int y1 = (int) Math.ceil(world.getMaxY() * zoom - viewY) + pad;
+        return new Rectangle(x0, y0, x1 - x0, y1 - y0);
+    }
+
+    /** World to screen, for drawing previews on top of the tiles. */
+    public AffineTransform getViewTransform() {
+        return new AffineTransform(zoom, 0, 0, zoom, -viewX, -viewY);
+    }
+
+    // Stats
+
+    /** Tiles queued or being rasterized. */
+    public int getPendingTiles() {
+        return pending.size();
+    }
+
+    public int getCachedTiles() {
+        return tiles.size();
+    }
+
+    public int getCheckpoints() {
+        return checkpoints.size();
+    }
+
+    /** Commands in the log, including the ones that can be redone. */
+    public int getCommandCount() {
+        return shapes.size();
+    }
+
+    public int getTilesRendered() {
+        return tilesRendered;
+    }
+
+    public int getTilesEvicted() {
+        return tilesEvicted;
+    }
+
+    public int getJobsCancelled() {
+        return jobsCancelled;
+    }
+
+    public long getShapesDrawn() {
+        return shapesDrawn;
+    }
+}
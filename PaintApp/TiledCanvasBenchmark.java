@@ -0,0 +1,133 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Paint times of a 900x600 view over a document of N random shapes: drawing the
+ * whole flat shape list (what DrawingPanel used to do on every repaint) against
+ * TiledCanvas with a cold cache, a warm cache, a one-tile pan and a zoom step.
+ * For TiledCanvas it reports how long paint() held the EDT and how long the
+ * workers took until every visible tile had arrived.
+ *
+ * Usage: java TiledCanvasBenchmark [shapes=1000000] [threads=cores-1]
+ */
+public class TiledCanvasBenchmark {
+    private static final int WIDTH = 900, HEIGHT = 600;
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1])
+                : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        List<PaintApp.ColoredShape> shapes = randomShapes(count, new Random(7));
+        BufferedImage screen = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = screen.createGraphics();
+        Rectangle view = new Rectangle(0, 0, WIDTH, HEIGHT);
+
+        long start = System.nanoTime();
+        TiledCanvas canvas = new TiledCanvas(Color.WHITE, threads);
+        for (PaintApp.ColoredShape cs : shapes)
+            canvas.add(cs);
+        System.out.printf("%,d shapes indexed in %.0f ms%n", count, millis(start));
+
+        // Flat list: every shape, clipped to the view
+        start = System.nanoTime();
+        g2d.setClip(view);
+        for (PaintApp.ColoredShape cs : shapes) {
+            g2d.setColor(cs.color);
+            g2d.draw(cs.shape);
+        }
+        System.out.printf("Flat list repaint:      %8.2f ms%n", millis(start));
+
+        System.out.printf("%d raster threads%n", threads);
+        int middle = (int) (worldSide(count) / 2);
+        canvas.setViewSize(WIDTH, HEIGHT);
+        // Warm up the JIT and Java2D on a corner of the document first
+        warmUp(canvas, g2d, view);
+        SwingUtilities.invokeAndWait(() -> canvas.pan(WIDTH / 2 - middle, HEIGHT / 2 - middle));
+        measure("Tiles, cold cache:", canvas, g2d, view);
+        measure("Tiles, warm cache:", canvas, g2d, view);
+        SwingUtilities.invokeAndWait(() -> canvas.pan(-TiledCanvas.TILE_SIZE, 0));
+        measure("Tiles, pan one tile:", canvas, g2d, view);
+        SwingUtilities.invokeAndWait(() -> canvas.zoom(-1, WIDTH / 2, HEIGHT / 2));
+        measure("Tiles, zoom out:", canvas, g2d, view);
+        SwingUtilities.invokeAndWait(() -> canvas.zoom(1, WIDTH / 2, HEIGHT / 2));
+        measure("Tiles, zoom back in:", canvas, g2d, view);
+        System.out.printf("%d tiles rendered, %,d shapes drawn into them, %d cached%n",
+                canvas.getTilesRendered(), canvas.getShapesDrawn(), canvas.getCachedTiles());
+        g2d.dispose();
+    }
+
+    private static void warmUp(TiledCanvas canvas, Graphics2D g2d, Rectangle view) throws Exception {
+        int[] pending = new int[1];
+        for (int i = 0; i < 20; i++) {
+            SwingUtilities.invokeAndWait(() -> {
+                canvas.paint(g2d, view);
+                canvas.pan(0, -HEIGHT);
+            });
+            do {
+                SwingUtilities.invokeAndWait(() -> pending[0] = canvas.getPendingTiles());
+            } while (pending[0] > 0);
+        }
+    }
+
+    // Everything on the EDT, as in the app; pending tiles are polled until none are left
+    private static void measure(String label, TiledCanvas canvas, Graphics2D g2d, Rectangle view)
+            throws Exception {
+        int rendered = canvas.getTilesRendered();
+        long[] paint = new long[1];
+        int[] pending = new int[1];
+        long start = System.nanoTime();
+        SwingUtilities.invokeAndWait(() -> {
+            canvas.paint(g2d, view);
+            paint[0] = System.nanoTime() - start;
+        });
+        do {
+            SwingUtilities.invokeAndWait(() -> pending[0] = canvas.getPendingTiles());
+        } while (pending[0] > 0);
+        double ready = millis(start);
+        SwingUtilities.invokeAndWait(() -> canvas.paint(g2d, view));
+        System.out.printf("%-23s EDT %6.2f ms, tiles ready after %8.2f ms (%d tiles rendered)%n",
+                label, paint[0] / 1e6, ready, canvas.getTilesRendered() - rendered);
+    }
+
+    // Lines, rectangles and ovals spread so a tile holds ~25 shapes at any size
+    static List<PaintApp.ColoredShape> randomShapes(int count, Random random) {
+        double side = worldSide(count);
+        Color[] colors = { Color.BLACK, Color.RED, Color.BLUE, Color.GREEN };
+        List<PaintApp.ColoredShape> shapes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double x = random.nextDouble() * side, y = random.nextDouble() * side;
+            double w = 5 + random.nextDouble() * 55, h = 5 + random.nextDouble() * 55;
+            Color color = colors[random.nextInt(colors.length)];
+            switch (i % 3) {
+                case 0:
+                    shapes.add(new PaintApp.ColoredShape(new Line2D.Double(x, y, x + w, y + h), color));
+                    break;
+                case 1:
+                    shapes.add(new PaintApp.ColoredShape(new Rectangle2D.Double(x, y, w, h), color));
+                    break;
+                default:
+                    shapes.add(new PaintApp.ColoredShape(new Ellipse2D.Double(x, y, w, h), color));
+                    break;
+            }
+        }
+        return shapes;
+    }
+
+    static double worldSide(int count) {
+        return Math.sqrt(count) * 50;
+    }
+
+    private static double millis(long start) {
+        return (System.nanoTime() - start) / 1e6;
+    }
+}
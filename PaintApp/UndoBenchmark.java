@@ -0,0 +1,89 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Line2D;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.Random;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Undo and redo latency on a document of N commands all drawn inside one
+ * 900x600 view, the worst case for re-rasterizing a tile: every tile holds
+ * thousands of shapes. Runs the same steps with tile checkpoints and without
+ * them, and reports how long each step held the EDT and how long until its
+ * tiles were back.
+ *
+ * Usage: java UndoBenchmark [commands=100000] [steps=100] [interval=1000]
+ */
+public class UndoBenchmark {
+    private static final int WIDTH = 900, HEIGHT = 600;
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int steps = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int interval = args.length > 2 ? Integer.parseInt(args[2]) : TiledCanvas.DEFAULT_CHECKPOINT_INTERVAL;
+        List<PaintApp.ColoredShape> shapes = TiledCanvasBenchmark.randomShapes(count, new Random(11));
+        // Squeeze the document into the view
+        double scale = Math.min(WIDTH, HEIGHT) / TiledCanvasBenchmark.worldSide(count);
+        AffineTransform squeeze = AffineTransform.getScaleInstance(scale, scale);
+        for (PaintApp.ColoredShape cs : shapes)
+            cs.shape = squeeze.createTransformedShape(cs.shape);
+
+        run("Checkpoints every " + interval + ":", shapes, steps, interval);
+        run("No checkpoints:", shapes, steps, 0);
+    }
+
+    private static void run(String label, List<PaintApp.ColoredShape> shapes, int steps, int interval)
+            throws Exception {
+        BufferedImage screen = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = screen.createGraphics();
+        Rectangle view = new Rectangle(0, 0, WIDTH, HEIGHT);
+        TiledCanvas canvas = new TiledCanvas(Color.WHITE);
+        canvas.setCheckpointInterval(interval);
+        canvas.setViewSize(WIDTH, HEIGHT);
+        for (PaintApp.ColoredShape cs : shapes)
+            canvas.add(cs);
+        System.out.printf("%s %,d commands%n", label, shapes.size());
+        step("  first paint:", 1, canvas, g2d, view, () -> { });
+        step("  undo:", steps, canvas, g2d, view, canvas::undo);
+        step("  redo:", steps, canvas, g2d, view, canvas::redo);
+        step("  undo again:", steps, canvas, g2d, view, canvas::undo);
+        PaintApp.ColoredShape line = new PaintApp.ColoredShape(new Line2D.Double(10, 10, 200, 150), Color.RED);
+        step("  draw, dropping redo:", 1, canvas, g2d, view, () -> canvas.add(line));
+        System.out.printf("  %d tiles rendered, %,d shapes drawn into them, %d checkpoints%n",
+                canvas.getTilesRendered(), canvas.getShapesDrawn(), canvas.getCheckpoints());
+        g2d.dispose();
+    }
+
+    // Runs action then paint on the EDT, as the app does, and polls until the tiles are back
+    private static void step(String label, int repeat, TiledCanvas canvas, Graphics2D g2d, Rectangle view,
+                             Runnable action) throws Exception {
+        long[] edt = new long[1];
+        long totalEdt = 0, maxEdt = 0, ready = 0, maxReady = 0;
+        int[] pending = new int[1];
+        long drawn = canvas.getShapesDrawn();
+        for (int i = 0; i < repeat; i++) {
+            long start = System.nanoTime();
+            SwingUtilities.invokeAndWait(() -> {
+                action.run();
+                canvas.paint(g2d, view);
+                edt[0] = System.nanoTime() - start;
+            });
+            do {
+                SwingUtilities.invokeAndWait(() -> pending[0] = canvas.getPendingTiles());
+            } while (pending[0] > 0);
+            long nanos = System.nanoTime() - start;
+            totalEdt += edt[0];
+            maxEdt = Math.max(maxEdt, edt[0]);
+            ready += nanos;
+            maxReady = Math.max(maxReady, nanos);
+        }
+        System.out.printf("  %-22s EDT avg %5.2f ms, max %6.2f ms | tiles ready avg %7.2f ms, max %7.2f ms"
+                        + " (%,d shapes drawn/step)%n",
+                label, totalEdt / 1e6 / repeat, maxEdt / 1e6, ready / 1e6 / repeat, maxReady / 1e6,
+                (canvas.getShapesDrawn() - drawn) / repeat);
+    }
+}
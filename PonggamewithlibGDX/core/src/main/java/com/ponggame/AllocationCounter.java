@@ -0,0 +1,44 @@
+package com.ponggame;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Counts the heap bytes the current thread allocates between {@link #start()}
+ * and {@link #stop()}, using HotSpot's per-thread allocation counter. On JVMs
+ * without that counter {@link #isSupported()} is false and nothing is measured.
+ */
+class AllocationCounter {
+    private final com.sun.management.ThreadMXBean threads;
+    private long startBytes;
+
+    AllocationCounter() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean hotspot = null;
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            hotspot = (com.sun.management.ThreadMXBean) bean;
+            if (hotspot.isThreadAllocatedMemorySupported()) {
+                hotspot.setThreadAllocatedMemoryEnabled(true);
+            } else {
+                hotspot = null;
+            }
+        }
+        threads = hotspot;
+    }
+
+    boolean isSupported() {
+        return threads != null;
+    }
+
+    void start() {
+        if (threads != null)
+            startBytes = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /** Bytes allocated since {@link #start()}. */
+    long stop() {
+        if (threads == null)
+            return 0;
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - startBytes;
+    }
+}
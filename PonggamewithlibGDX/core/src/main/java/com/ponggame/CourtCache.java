@@ -0,0 +1,81 @@
+package com.ponggame;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteCache;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * Static court geometry (currently the dashed center net) baked once into a
+ * {@link SpriteCache} and drawn with a single call. The cache only has to be
+ * rebuilt when the court size changes. {@link #drawImmediate} draws the same
+ * geometry the old way, rect by rect, for frame-time comparisons.
+ */
+class CourtCache implements Disposable {
+    // 1. Court Net (center line) attributes
+    private static final float CENTER_LINE_WIDTH = 4;
+    private static final float CENTER_LINE_SEGMENT_HEIGHT = 20;
+    private static final float CENTER_LINE_GAP = 10;
+
+    private static final int MAX_SPRITES = 256;
+
+    private final SpriteCache cache = new SpriteCache(MAX_SPRITES, true);
+    private final Texture white;
+    private final TextureRegion whiteRegion;
+    private int courtCacheId = -1;
+
+    private float width;
+    private float height;
+
+    CourtCache() {
+        Pixmap pixel = new Pixmap(1, 1, Pixmap.Format.RGBA8888);
+        pixel.setColor(Color.WHITE);
+        pixel.fill();
+        white = new Texture(pixel);
+        pixel.dispose();
+        whiteRegion = new TextureRegion(white);
+    }
+
+    /** Bakes the geometry for a court of the given size. */
+    void rebuild(float width, float height) {
+        this.width = width;
+        this.height = height;
+
+        cache.clear();
+        cache.beginCache();
+        cache.setColor(Color.GRAY);
+        for (float y = 0; y < height; y += CENTER_LINE_SEGMENT_HEIGHT + CENTER_LINE_GAP) {
+            cache.add(whiteRegion, netX(), y, CENTER_LINE_WIDTH, CENTER_LINE_SEGMENT_HEIGHT);
+        }
+        courtCacheId = cache.endCache();
+        cache.getProjectionMatrix().setToOrtho2D(0, 0, width, height);
+    }
+
+    /** Draws the baked geometry with one draw call. */
+    void draw() {
+        cache.begin();
+        cache.draw(courtCacheId);
+        cache.end();
+    }
+
+    /** Submits the same geometry to an active filled {@link ShapeRenderer}. */
+    void drawImmediate(ShapeRenderer shapeRenderer) {
+        shapeRenderer.setColor(Color.GRAY);
+        for (float y = 0; y < height; y += CENTER_LINE_SEGMENT_HEIGHT + CENTER_LINE_GAP) {
+            shapeRenderer.rect(netX(), y, CENTER_LINE_WIDTH, CENTER_LINE_SEGMENT_HEIGHT);
+        }
+    }
+
+    private float netX() {
+        return width / 2f - CENTER_LINE_WIDTH / 2f;
+    }
+
+    @Override
+    public void dispose() {
+        cache.dispose();
+        white.dispose();
+    }
+}
@@ -0,0 +1,119 @@
+package com.ponggame;
+
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.BitmapFontCache;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+
+/**
+ * Draws the scores and status messages from prebuilt {@link BitmapFontCache}s.
+ * Static labels are laid out once per court size, and the score caches are
+ * only rebuilt (through a reused {@link StringBuilder}) when a score changes,
+ * so a steady-state frame creates no garbage.
+ */
+class HudRenderer {
+    private final BitmapFont font;
+
+    // 1. Static labels
+    private final BitmapFontCache pausedLabel;
+    private final BitmapFontCache serveLabel;
+    private final BitmapFontCache player1WinsLabel;
+    private final BitmapFontCache player2WinsLabel;
+
+    // 2. Scores, rebuilt on change
+    private final BitmapFontCache player1ScoreLabel;
+    private final BitmapFontCache player2ScoreLabel;
+    private final StringBuilder scoreText = new StringBuilder(4);
+    private int shownPlayer1Score = -1;
+    private int shownPlayer2Score = -1;
+
+    // 3. Loading screen, rebuilt when the percentage changes
+    private final BitmapFontCache loadingLabel;
+    private final StringBuilder loadingText = new StringBuilder(12);
+    private int shownLoadingPercent = -1;
+
+    private float width;
+    private float height;
+
+    HudRenderer(BitmapFont font) {
+        this.font = font;
+        pausedLabel = font.newFontCache();
+        serveLabel = font.newFontCache();
+        player1WinsLabel = font.newFontCache();
+        player2WinsLabel = font.newFontCache();
+        player1ScoreLabel = font.newFontCache();
+        player2ScoreLabel = font.newFontCache();
+        loadingLabel = font.newFontCache();
+    }
+
+    /** Lays the labels out for a court of the given size. */
+    void layout(float width, float height) {
+        this.width = width;
+        this.height = height;
+
+        pausedLabel.setText("PAUSED", width / 2f - 50, height / 2f + 50);
+        pausedLabel.addText("Press ESC to resume", width / 2f - 100, height / 2f - 50);
+        serveLabel.setText("PRESS SPACE to serve", width / 2f - 100, 50);
+        player1WinsLabel.setText("Player 1 Wins!", width / 2f - 100, height / 2f + 50);
+        player1WinsLabel.addText("Press R to restart", width / 2f - 100, height / 2f - 50);
+        player2WinsLabel.setText("Player 2 Wins!", width / 2f - 100, height / 2f + 50);
+        player2WinsLabel.addText("Press R to restart", width / 2f - 100, height / 2f - 50);
+
+        // Force the scores to be laid out again as well
+        shownPlayer1Score = -1;
+        shownPlayer2Score = -1;
+        shownLoadingPercent = -1;
+    }
+
+    /**
+     * Draws the HUD for the current state of {@code simulation}. Returns
+     * whether a score had to be rebuilt this frame.
+     */
+    boolean draw(SpriteBatch batch, PongSimulation simulation) {
+        boolean rebuilt = false;
+        int player1Score = simulation.getPlayer1Score();
+        int player2Score = simulation.getPlayer2Score();
+        if (player1Score != shownPlayer1Score) {
+            setScore(player1ScoreLabel, player1Score, width / 2f - 50);
+            shownPlayer1Score = player1Score;
+            rebuilt = true;
+        }
+        if (player2Score != shownPlayer2Score) {
+            setScore(player2ScoreLabel, player2Score, width / 2f + 30);
+            shownPlayer2Score = player2Score;
+            rebuilt = true;
+        }
+
+        player1ScoreLabel.draw(batch);
+        player2ScoreLabel.draw(batch);
+
+        if (simulation.isPaused()) {
+            pausedLabel.draw(batch);
+        } else if (simulation.getState() == PongSimulation.State.SERVING) {
+            serveLabel.draw(batch);
+        } else if (simulation.getState() == PongSimulation.State.GAME_OVER) {
+            if (player1Score > player2Score)
+                player1WinsLabel.draw(batch);
+            else
+                player2WinsLabel.draw(batch);
+        }
+        return rebuilt;
+    }
+
+    /** Draws the loading screen for {@code progress} in [0, 1]. */
+    void drawLoading(SpriteBatch batch, float progress) {
+        int percent = (int) (progress * 100);
+        if (percent != shownLoadingPercent) {
+            loadingText.setLength(0);
+            loadingText.append("LOADING ").append(percent).append('%');
+            loadingLabel.setText(loadingText, width / 2f - 80, height / 2f);
+            shownLoadingPercent = percent;
+        }
+        loadingLabel.draw(batch);
+    }
+
+    private void setScore(BitmapFontCache label, int score, float x) {
+        scoreText.setLength(0);
+        scoreText.append(score);
+        label.setText(scoreText, x, height - 20);
+    }
+}
@@ -0,0 +1,152 @@
+package com.ponggame;
+
+import static com.ponggame.PongSimulation.BALL_SIZE;
+import static com.ponggame.PongSimulation.FIXED_TIMESTEP;
+import static com.ponggame.PongSimulation.PADDLE_HEIGHT;
+import static com.ponggame.PongSimulation.PADDLE_OFFSET;
+import static com.ponggame.PongSimulation.PADDLE_SPEED;
+import static com.ponggame.PongSimulation.PADDLE_WIDTH;
+
+/**
+ * CPU player for one paddle. It predicts where the ball will cross its paddle
+ * analytically, folding the straight-line path back into the court for every
+ * top/bottom wall reflection, rather than stepping the simulation forward.
+ * <p>
+ * Difficulty comes from how often it looks at the ball (reaction delay) and
+ * how far off its aim is (normally distributed error that grows with the
+ * ball's speed, so rallies end); with its own seeded
+ * generator the bot stays deterministic, so bot matches replay exactly.
+ */
+public class PongAi {
+    public enum Difficulty {
+        EASY(24, 60f, 60),
+        MEDIUM(12, 40f, 40),
+        HARD(4, 25f, 20);
+
+        final int reactionTicks;
+        final float aimError;
+        final int serveDelayTicks;
+
+        Difficulty(int reactionTicks, float aimError, int serveDelayTicks) {
+            this.reactionTicks = reactionTicks;
+            this.aimError = aimError;
+            this.serveDelayTicks = serveDelayTicks;
+        }
+    }
+
+    private final int player;
+    private final Difficulty difficulty;
+    private long rngState;
+
+    private float targetY;
+    private int ticksUntilLook;
+    private int servingTicks;
+    private boolean ballIncoming;
+    private float aimOffset;
+
+    /** @param player 1 (left paddle) or 2 (right paddle) */
+    public PongAi(int player, Difficulty difficulty, long seed) {
+        if (player != 1 && player != 2)
+            throw new IllegalArgumentException("player must be 1 or 2");
+        this.player = player;
+        this.difficulty = difficulty;
+        this.rngState = seed;
+    }
+
+    /** Returns this paddle's {@link PongInput} bits for the coming tick. */
+    public int input(PongSimulation simulation) {
+        if (simulation.isPaused())
+            return PongInput.NONE;
+
+        int input = PongInput.NONE;
+        if (simulation.getState() == PongSimulation.State.SERVING) {
+            if (++servingTicks >= difficulty.serveDelayTicks) {
+                servingTicks = 0;
+                input |= PongInput.SERVE;
+            }
+        } else {
+            servingTicks = 0;
+        }
+
+        // Only look at the ball every reactionTicks; act on the old plan in between
+        if (--ticksUntilLook <= 0) {
+            ticksUntilLook = difficulty.reactionTicks;
+            look(simulation);
+        }
+
+        float paddleY = player == 1 ? simulation.getPlayer1Y() : simulation.getPlayer2Y();
+        float paddleCenter = paddleY + PADDLE_HEIGHT / 2f;
+        float deadZone = PADDLE_SPEED * FIXED_TIMESTEP;
+        if (paddleCenter < targetY - deadZone)
+            input |= player == 1 ? PongInput.P1_UP : PongInput.P2_UP;
+        else if (paddleCenter > targetY + deadZone)
+            input |= player == 1 ? PongInput.P1_DOWN : PongInput.P2_DOWN;
+        return input;
+    }
+
+    private void look(PongSimulation simulation) {
+        float speedX = simulation.getBallSpeedX();
+        boolean incoming = simulation.getState() == PongSimulation.State.PLAYING
+                && (player == 1 ? speedX < 0 : speedX > 0);
+
+        if (!incoming) {
+            // Drift back to the middle while the ball is away
+            targetY = simulation.getCourtHeight() / 2f;
+            ballIncoming = false;
+            return;
+        }
+
+        if (!ballIncoming) {
+            // One aiming error per approach, so the paddle does not jitter;
+            // faster balls are harder to read
+            float speed = (float) Math.sqrt(speedX * speedX
+                    + simulation.getBallSpeedY() * simulation.getBallSpeedY());
+            aimOffset = nextGaussian() * difficulty.aimError * speed / PongSimulation.INITIAL_BALL_SPEED;
+            ballIncoming = true;
+        }
+        targetY = predictInterceptY(simulation) + BALL_SIZE / 2f + aimOffset;
+    }
+
+    /**
+     * Y of the ball (bottom edge) when it reaches this paddle's face, with
+     * wall reflections folded in: the unbounded path is mapped onto a
+     * triangle wave over [0, courtHeight - BALL_SIZE].
+     */
+    public float predictInterceptY(PongSimulation simulation) {
+        float faceX = player == 1
+                ? PADDLE_OFFSET + PADDLE_WIDTH
+                : simulation.getCourtWidth() - PADDLE_OFFSET - PADDLE_WIDTH - BALL_SIZE;
+        float speedX = simulation.getBallSpeedX();
+        if (speedX == 0)
+            return simulation.getBallY();
+        float time = (faceX - simulation.getBallX()) / speedX;
+        if (time < 0)
+            return simulation.getBallY();
+        return fold(simulation.getBallY() + simulation.getBallSpeedY() * time,
+                simulation.getCourtHeight() - BALL_SIZE);
+    }
+
+    static float fold(float y, float range) {
+        if (range <= 0)
+            return 0;
+        float period = 2 * range;
+        float m = y % period;
+        if (m < 0)
+            m += period;
+        return m <= range ? m : period - m;
+    }
+
+    // SplitMix64 + Box-Muller, allocation free and deterministic per seed
+    private long nextLong() {
+        long z = (rngState += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private float nextGaussian() {
+        double u1 = ((nextLong() >>> 11) + 1) * 0x1.0p-53;
+        double u2 = (nextLong() >>> 11) * 0x1.0p-53;
+        return (float) (Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2));
+    }
+}
@@ -0,0 +1,110 @@
+package com.ponggame;
+
+/**
+ * Plays {@link PongAi} against {@link PongAi} on the real {@link PongSimulation}
+ * rules, with no rendering and no real-time pacing, and reports how many
+ * matches per second one core gets through plus a rally-length histogram.
+ * Everything is seeded, so the same arguments always play the same matches.
+ * <pre>
+ * PongBotBenchmark [matches=2000] [difficulty1=HARD] [difficulty2=HARD] [seed=1]
+ * </pre>
+ */
+public class PongBotBenchmark {
+    // Longest match before it is abandoned (ten minutes of game time)
+    private static final int MAX_TICKS_PER_MATCH = (int) (600 / PongSimulation.FIXED_TIMESTEP);
+    private static final int HISTOGRAM_BUCKETS = 16;
+    private static final int HISTOGRAM_BUCKET_SIZE = 2;
+    private static final int HISTOGRAM_WIDTH = 50;
+
+    public static void main(String[] args) {
+        int matches = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        PongAi.Difficulty difficulty1 = args.length > 1 ? PongAi.Difficulty.valueOf(args[1]) : PongAi.Difficulty.HARD;
+        PongAi.Difficulty difficulty2 = args.length > 2 ? PongAi.Difficulty.valueOf(args[2]) : PongAi.Difficulty.HARD;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 1;
+
+        // Warm up the JIT on a separate run so it does not skew the timing
+        play(Math.max(1, matches / 10), difficulty1, difficulty2, seed + 1);
+        Result result = play(matches, difficulty1, difficulty2, seed);
+
+        double seconds = result.nanos / 1e9;
+        double gameSeconds = result.ticks * (double) PongSimulation.FIXED_TIMESTEP;
+        System.out.printf("%s vs %s: %d matches in %.2fs = %.0f matches/s (%.0f ticks/s, %.0fx real time)%n",
+                difficulty1, difficulty2, matches, seconds, matches / seconds,
+                result.ticks / seconds, gameSeconds / seconds);
+        System.out.printf("Player 1 won %d, player 2 won %d, %d abandoned; %d points, %.1f hits per rally%n",
+                result.player1Wins, result.player2Wins, result.abandoned, result.points,
+                result.hits / (double) Math.max(1, result.points));
+
+        long most = 1;
+        for (long count : result.histogram)
+            most = Math.max(most, count);
+        System.out.println("Rally length (paddle hits per point):");
+        for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+            int from = i * HISTOGRAM_BUCKET_SIZE;
+            String label = i == HISTOGRAM_BUCKETS - 1
+                    ? String.format("%3d+   ", from)
+                    : String.format("%3d-%-3d", from, from + HISTOGRAM_BUCKET_SIZE - 1);
+            StringBuilder bar = new StringBuilder();
+            for (long n = result.histogram[i] * HISTOGRAM_WIDTH / most; n > 0; n--)
+                bar.append('#');
+            System.out.printf("  %s %8d %s%n", label, result.histogram[i], bar);
+        }
+    }
+
+    private static Result play(int matches, PongAi.Difficulty difficulty1, PongAi.Difficulty difficulty2, long seed) {
+        Result result = new Result();
+        PongSimulation simulation = new PongSimulation(800, 600, seed);
+        simulation.setListener(result);
+        PongAi ai1 = new PongAi(1, difficulty1, seed * 31 + 1);
+        PongAi ai2 = new PongAi(2, difficulty2, seed * 31 + 2);
+
+        long start = System.nanoTime();
+        for (int match = 0; match < matches; match++) {
+            int ticks = 0;
+            while (simulation.getState() != PongSimulation.State.GAME_OVER && ticks < MAX_TICKS_PER_MATCH) {
+                simulation.step(ai1.input(simulation) | ai2.input(simulation));
+                ticks++;
+            }
+            result.ticks += ticks;
+            if (simulation.getState() != PongSimulation.State.GAME_OVER)
+                result.abandoned++;
+            else if (simulation.getPlayer1Score() > simulation.getPlayer2Score())
+                result.player1Wins++;
+            else
+                result.player2Wins++;
+            simulation.resetGame();
+            result.rallyHits = 0;
+        }
+        result.nanos = System.nanoTime() - start;
+        return result;
+    }
+
+    private static class Result implements PongSimulation.Listener {
+        final long[] histogram = new long[HISTOGRAM_BUCKETS];
+        long nanos;
+        long ticks;
+        long points;
+        long hits;
+        int player1Wins;
+        int player2Wins;
+        int abandoned;
+        int rallyHits;
+
+        @Override
+        public void onEvent(PongSimulation.Event event) {
+            switch (event) {
+                case PADDLE_HIT:
+                    rallyHits++;
+                    break;
+                case SCORE:
+                    histogram[Math.min(rallyHits / HISTOGRAM_BUCKET_SIZE, HISTOGRAM_BUCKETS - 1)]++;
+                    hits += rallyHits;
+                    points++;
+                    rallyHits = 0;
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+}
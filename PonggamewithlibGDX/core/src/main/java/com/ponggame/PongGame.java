@@ -3,357 +3,550 @@ package com.ponggame;
 import com.badlogic.gdx.ApplicationAdapter;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
+import com.badlogic.gdx.assets.AssetManager;
 import com.badlogic.gdx.audio.Music;
 import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
-import com.badlogic.gdx.math.MathUtils;
-import com.badlogic.gdx.utils.ScreenUtils;
+import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.badlogic.gdx.utils.TimeUtils;
-
-public class PongGame extends ApplicationAdapter {
+import com.ponggame.net.RollbackSession;
+import com.ponggame.net.UdpTransport;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.ponggame.PongSimulation.BALL_SIZE;
+import static com.ponggame.PongSimulation.FIXED_TIMESTEP;
+import static com.ponggame.PongSimulation.PADDLE_HEIGHT;
+import static com.ponggame.PongSimulation.PADDLE_OFFSET;
+import static com.ponggame.PongSimulation.PADDLE_WIDTH;
+
+public class PongGame extends ApplicationAdapter implements PongSimulation.Listener {
     private SpriteBatch batch;
 
-    // 1. Paddle attributes
-    private static final float PADDLE_WIDTH = 15;
-    private static final float PADDLE_HEIGHT = 100;
-    private static final float PADDLE_SPEED = 500;
-    private static final float PADDLE_OFFSET = 20;
-
-    // 2. Ball attributes
-    private static final float BALL_SIZE = 15;
-    private static final float INITIAL_BALL_SPEED = 300;
-    private static final float BALL_SPEED_INCREASE = 1.05f;
-    private static final float MAX_BALL_SPEED = 600;
-
-    // 3. Court Net (center line) attributes
-    private static final float CENTER_LINE_WIDTH = 4;
-    private static final float CENTER_LINE_SEGMENT_HEIGHT = 20;
-    private static final float CENTER_LINE_GAP = 10;
-
-    // 4. Winning score
-    private static final int WINNING_SCORE = 5;
-
-    // 5. Player positions
-    private float player1Y;
-    private float player2Y;
-
-    // 6. Player scores
-    private int player1Score;
-    private int player2Score;
-
-    // 7. Ball position and speed
-    private float ballX;
-    private float ballY;
-    private float ballSpeedX;
-    private float ballSpeedY;
-
-    // 8. Last score time
-    private long lastScoreTime;
-
-    // 9. Game state
-    private enum GameState {
-        PLAYING,
-        SERVING,
-        GAME_OVER
+    // 1. Frame-time comparison of the cached net (-Dpong.compareNet=true)
+    private static final boolean COMPARE_NET = Boolean.getBoolean("pong.compareNet");
+    private static final int COMPARE_REPORT_FRAMES = 600;
+
+    // 2. Longest frame fed to the fixed-step loop, avoids a spiral after a hitch
+    private static final float MAX_FRAME_TIME = 0.25f;
+
+    // 3. Game logic (paddles, ball, scores and state live in the simulation)
+    private PongSimulation simulation;
+    private float accumulator;
+    private int pendingPresses;
+
+    // 4. Replay recording (optional)
+    private final String replayPath;
+    private PongReplayWriter replayWriter;
+
+    // 5. Networked play (optional): each peer drives one paddle
+    private int netPlayer;
+    private InetSocketAddress netLocal;
+    private InetSocketAddress netRemote;
+    private long netSeed;
+    private UdpTransport netTransport;
+    private RollbackSession netSession;
+
+    // 6. CPU-controlled paddles (optional, local play only)
+    private PongAi.Difficulty player1AiDifficulty;
+    private PongAi.Difficulty player2AiDifficulty;
+    private PongAi player1Ai;
+    private PongAi player2Ai;
+
+    // 7. Rendering
+    private ShapeRenderer shapeRenderer;
+    private BitmapFont font;
+    private HudRenderer hud;
+    private CourtCache courtCache;
+    private long cachedNetNanos;
+    private long immediateNetNanos;
+    private int comparedFrames;
+
+    // 8. Debug builds (-ea): steady-state frames must not allocate
+    private static final int ALLOCATION_WARMUP_FRAMES = 120;
+    private AllocationCounter allocationCounter;
+    private int debugFrames;
+    private boolean frameMayAllocate;
+
+    // 9. Audio: effects are posted to the mixer by id and played once per frame
+    private static final int SOUND_QUEUE_CAPACITY = 64;
+    private static final float SOUND_COALESCE_SECONDS = 0.03f;
+    private SoundMixer soundMixer;
+    private int paddleHitSound;
+    private int wallBounceSound;
+    private int scoreSound;
+    private int roundEndSound;
+    private int gameStartSound;
+    private int pauseSound;
+    private int resumeSound;
+    private Music backgroundMusic;
+
+    // 10. Startup: the sound effects decode in parallel behind a loading screen
+    // and the match only starts once they are ready; the music then streams in
+    // through the AssetManager
+    private static final String[] SOUND_FILES = {
+            "paddle_hit.ogg", "wall_bounce.ogg", "score.ogg", "round_end.ogg",
+            "game_start.ogg", "pause.ogg", "resume.ogg"
+    };
+    private static final String BACKGROUND_MUSIC = "background_music.ogg";
+    private ExecutorService soundDecoder;
+    private final List<Future<Sound>> decodedSounds = new ArrayList<>();
+    private AssetManager assets;
+    private boolean interactive;
+    private long createNanos;
+    private boolean firstFrameLogged;
+
+    public PongGame() {
+        this(null);
     }
 
-    private GameState gameState;
-    private boolean serveToPlayer1;
-    private boolean isPaused;
+    /** @param replayPath file to record the match into, or null to not record */
+    public PongGame(String replayPath) {
+        this.replayPath = replayPath;
+    }
 
-    // 10. Rendering
-    private ShapeRenderer shapeRenderer;
-    private BitmapFont font;
+    /**
+     * Plays against a remote peer instead of sharing the keyboard. Both peers
+     * must use the same {@code seed} and opposite {@code player} numbers.
+     * Call before the application starts.
+     */
+    public void setNetplay(int player, InetSocketAddress local, InetSocketAddress remote, long seed) {
+        this.netPlayer = player;
+        this.netLocal = local;
+        this.netRemote = remote;
+        this.netSeed = seed;
+    }
 
-    // 11. Audio
-    private Sound paddleHitSound;
-    private Sound wallBounceSound;
-    private Sound scoreSound;
-    private Sound roundEndSound;
-    private Sound gameStartSound;
-    private Sound pauseSound;
-    private Sound resumeSound;
-    private Music backgroundMusic;
+    /**
+     * Lets the computer drive {@code player}'s paddle in a local match; that
+     * player's keys are ignored. Call before the application starts.
+     */
+    public void setCpuPlayer(int player, PongAi.Difficulty difficulty) {
+        if (player == 1)
+            player1AiDifficulty = difficulty;
+        else
+            player2AiDifficulty = difficulty;
+    }
 
     @Override
     public void create() {
+        createNanos = TimeUtils.nanoTime();
+
         // shape renderer and font
         shapeRenderer = new ShapeRenderer();
         font = new BitmapFont();
         font.getData().setScale(2); // Make font larger
+        hud = new HudRenderer(font);
+        courtCache = new CourtCache();
+
+        // Allocation checks only run with assertions enabled
+        boolean debug = false;
+        assert debug = true;
+        if (debug) {
+            allocationCounter = new AllocationCounter();
+            if (!allocationCounter.isSupported())
+                allocationCounter = null;
+        }
 
         // sprite batch
         batch = new SpriteBatch();
 
-        // Load sound effects
-        paddleHitSound = Gdx.audio.newSound(Gdx.files.internal("paddle_hit.ogg"));
-        wallBounceSound = Gdx.audio.newSound(Gdx.files.internal("wall_bounce.ogg"));
-        scoreSound = Gdx.audio.newSound(Gdx.files.internal("score.ogg"));
-        roundEndSound = Gdx.audio.newSound(Gdx.files.internal("round_end.ogg"));
-        gameStartSound = Gdx.audio.newSound(Gdx.files.internal("game_start.ogg"));
-        pauseSound = Gdx.audio.newSound(Gdx.files.internal("pause.ogg"));
-        resumeSound = Gdx.audio.newSound(Gdx.files.internal("resume.ogg"));
-
-        // Load and configure background music
-        backgroundMusic = Gdx.audio.newMusic(Gdx.files.internal("background_music.ogg"));
-        backgroundMusic.setLooping(true);
-        backgroundMusic.setVolume(0.8f); // Lower volume for background music
+        // Decode the sound effects on a small pool while the loading screen is
+        // up (the AssetManager would load them one at a time on its single
+        // thread); updateLoading() picks them up on the render thread. The
+        // music is only queued once they are done
+        int decoders = Math.min(SOUND_FILES.length, Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+        soundDecoder = Executors.newFixedThreadPool(decoders, task -> {
+            Thread thread = new Thread(task, "PongSoundDecoder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (String file : SOUND_FILES) {
+            FileHandle handle = Gdx.files.internal(file);
+            decodedSounds.add(soundDecoder.submit(() -> Gdx.audio.newSound(handle)));
+        }
+        assets = new AssetManager();
 
         // Initialize game state
-        resetGame();
+        long seed = netRemote != null ? netSeed : TimeUtils.nanoTime();
+        simulation = new PongSimulation(Gdx.graphics.getWidth(), Gdx.graphics.getHeight(), seed);
+        simulation.setListener(this);
+        hud.layout(simulation.getCourtWidth(), simulation.getCourtHeight());
+        courtCache.rebuild(simulation.getCourtWidth(), simulation.getCourtHeight());
+        if (netRemote != null) {
+            try {
+                netTransport = new UdpTransport(netLocal, netRemote);
+            } catch (IOException e) {
+                throw new GdxRuntimeException("Could not open UDP port " + netLocal, e);
+            }
+            netSession = new RollbackSession(simulation, netPlayer, netTransport);
+        } else {
+            if (player1AiDifficulty != null)
+                player1Ai = new PongAi(1, player1AiDifficulty, seed + 1);
+            if (player2AiDifficulty != null)
+                player2Ai = new PongAi(2, player2AiDifficulty, seed + 2);
+        }
+        if (replayPath != null) {
+            try {
+                replayWriter = new PongReplayWriter(Paths.get(replayPath),
+                        simulation.getCourtWidth(), simulation.getCourtHeight(), seed);
+            } catch (IOException e) {
+                throw new GdxRuntimeException("Could not create replay " + replayPath, e);
+            }
+            // A net match is recorded frame by frame as both inputs get confirmed
+            if (netSession != null)
+                netSession.setConfirmedFrameListener(this::recordConfirmedFrame);
+        }
+    }
 
-        // Play game start sound and background music
-        gameStartSound.play();
-        backgroundMusic.play();
+    @Override
+    public void resize(int width, int height) {
+        // The replay header holds the court size and the rollback peer never
+        // hears of a change, so recorded and net matches keep their court and
+        // the window just scales it. Minimizing the window reports 0x0
+        if (replayWriter != null || netSession != null || width <= 0 || height <= 0)
+            return;
+        simulation.setCourtSize(width, height);
+        hud.layout(width, height);
+        courtCache.rebuild(width, height);
     }
 
     @Override
     public void render() {
+        if (allocationCounter != null)
+            allocationCounter.start();
+
         // Clear screen to black
         Gdx.gl.glClearColor(0, 0, 0, 1);
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
 
-        // Handle input every frame
-        handleInput(Gdx.graphics.getDeltaTime());
-
-        // Update game logic only if not paused
-        if (!isPaused) {
-            update(Gdx.graphics.getDeltaTime());
+        // Nothing to simulate until the sound effects are in
+        if (!interactive && !updateLoading()) {
+            batch.begin();
+            hud.drawLoading(batch, getLoadingProgress());
+            batch.end();
+            logFirstFrame();
+            if (allocationCounter != null)
+                checkAllocations(false);
+            return;
         }
+        updateMusic();
+
+        // Presses are latched until a tick consumes them, so none get lost on
+        // frames that run zero ticks or repeated on frames that run several
+        pendingPresses |= pollPresses();
+
+        // Step the simulation at a fixed rate
+        accumulator += Math.min(Gdx.graphics.getDeltaTime(), MAX_FRAME_TIME);
+        while (accumulator >= FIXED_TIMESTEP) {
+            int input = pollHeldButtons() | pendingPresses;
+            pendingPresses = 0;
+            if (netSession != null) {
+                // Either key pair moves this peer's own paddle
+                netSession.advance(toOwnPaddle(input));
+                accumulator -= FIXED_TIMESTEP;
+                continue;
+            }
+            if (player1Ai != null)
+                input = (input & ~(PongInput.P1_UP | PongInput.P1_DOWN)) | player1Ai.input(simulation);
+            if (player2Ai != null)
+                input = (input & ~(PongInput.P2_UP | PongInput.P2_DOWN)) | player2Ai.input(simulation);
+            if (replayWriter != null)
+                replayWriter.recordTick(input);
+            simulation.step(input);
+            if (replayWriter != null && replayWriter.isChecksumDue())
+                replayWriter.recordChecksum(simulation.checksum());
+            accumulator -= FIXED_TIMESTEP;
+        }
+
+        // Play this frame's sound effects, on this thread like the music
+        if (soundMixer.update() > 0)
+            frameMayAllocate = true;
 
         // Draw everything
-        draw();
+        boolean hudRebuilt = draw(accumulator / FIXED_TIMESTEP);
+        logFirstFrame();
+
+        if (allocationCounter != null)
+            checkAllocations(hudRebuilt);
     }
 
     @Override
     public void dispose() {
         shapeRenderer.dispose();
+        courtCache.dispose();
         font.dispose();
         batch.dispose();
 
-        // Dispose sound effects
-        paddleHitSound.dispose();
-        wallBounceSound.dispose();
-        scoreSound.dispose();
-        roundEndSound.dispose();
-        gameStartSound.dispose();
-        pauseSound.dispose();
-        resumeSound.dispose();
-
-        // Dispose background music
-        backgroundMusic.dispose();
-    }
+        // Drop queued effects first, then dispose sound effects (waiting for any
+        // still decoding) and background music
+        if (soundMixer != null) {
+            soundMixer.dispose();
+            Gdx.app.log("PongGame", "Sound mixer: " + soundMixer.getPlayed() + " played, "
+                    + soundMixer.getCoalesced() + " coalesced, " + soundMixer.getRecycledVoices()
+                    + " voices recycled, " + soundMixer.getOverflowed() + " dropped on a full queue");
+        }
+        soundDecoder.shutdown();
+        try {
+            soundDecoder.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Future<Sound> decoded : decodedSounds) {
+            try {
+                if (decoded.isDone())
+                    decoded.get().dispose();
+            } catch (InterruptedException | ExecutionException e) {
+                // Never loaded, nothing to dispose
+            }
+        }
+        assets.dispose();
+
+        // Close the network link
+        if (netTransport != null) {
+            try {
+                netTransport.close();
+            } catch (IOException e) {
+                Gdx.app.error("PongGame", "Could not close UDP transport", e);
+            }
+        }
 
-    // --- Custom methods ---
+        // Finish the replay
+        if (replayWriter != null) {
+            try {
+                replayWriter.close();
+            } catch (IOException e) {
+                Gdx.app.error("PongGame", "Could not finish replay " + replayPath, e);
+            }
+        }
+    }
 
-    private void resetBall() {
-        ballX = Gdx.graphics.getWidth() / 2f - BALL_SIZE / 2f;
-        ballY = Gdx.graphics.getHeight() / 2f - BALL_SIZE / 2f;
-        ballSpeedX = 0;
-        ballSpeedY = 0;
-        lastScoreTime = TimeUtils.millis();
-        gameState = GameState.SERVING;
+    @Override
+    public void onEvent(PongSimulation.Event event) {
+        switch (event) {
+            case SERVE:
+            case PADDLE_HIT:
+                soundMixer.post(paddleHitSound, 1);
+                break;
+            case WALL_BOUNCE:
+                soundMixer.post(wallBounceSound, 0.5f);
+                break;
+            case SCORE:
+                soundMixer.post(scoreSound, 1);
+                break;
+            case GAME_OVER:
+                soundMixer.post(roundEndSound, 1);
+                break;
+            case PAUSE:
+                soundMixer.post(pauseSound, 1);
+                break;
+            case RESUME:
+                soundMixer.post(resumeSound, 1);
+                break;
+            case RESTART:
+                soundMixer.post(gameStartSound, 1);
+                break;
+        }
     }
 
-    private void resetGame() {
-        player1Y = Gdx.graphics.getHeight() / 2f - PADDLE_HEIGHT / 2f;
-        player2Y = Gdx.graphics.getHeight() / 2f - PADDLE_HEIGHT / 2f;
+    // --- Custom methods ---
 
-        player1Score = 0;
-        player2Score = 0;
+    /** Returns true once every sound effect has been decoded and handed to the mixer. */
+    private boolean updateLoading() {
+        frameMayAllocate = true;
+        if (getLoadingProgress() == 1) {
+            soundDecoder.shutdown();
+            // Hits and bounces can come in bursts; everything else is one-off
+            soundMixer = new SoundMixer(SOUND_FILES.length, SOUND_QUEUE_CAPACITY);
+            paddleHitSound = soundMixer.add(getDecodedSound("paddle_hit.ogg"), 4, SOUND_COALESCE_SECONDS);
+            wallBounceSound = soundMixer.add(getDecodedSound("wall_bounce.ogg"), 4, SOUND_COALESCE_SECONDS);
+            scoreSound = soundMixer.add(getDecodedSound("score.ogg"), 2, SOUND_COALESCE_SECONDS);
+            roundEndSound = soundMixer.add(getDecodedSound("round_end.ogg"), 1, SOUND_COALESCE_SECONDS);
+            gameStartSound = soundMixer.add(getDecodedSound("game_start.ogg"), 1, SOUND_COALESCE_SECONDS);
+            pauseSound = soundMixer.add(getDecodedSound("pause.ogg"), 1, SOUND_COALESCE_SECONDS);
+            resumeSound = soundMixer.add(getDecodedSound("resume.ogg"), 1, SOUND_COALESCE_SECONDS);
+            interactive = true;
+            Gdx.app.log("PongGame", "Time to interactive: " + millisSinceCreate()
+                    + " ms after create(), " + ManagementFactory.getRuntimeMXBean().getUptime()
+                    + " ms after JVM start");
+
+            // Music streams from disk while playing, so it only needs to be opened
+            assets.load(BACKGROUND_MUSIC, Music.class);
+            soundMixer.post(gameStartSound, 1);
+        }
+        return interactive;
+    }
 
-        serveToPlayer1 = MathUtils.randomBoolean();
-        resetBall();
-        isPaused = false;
+    // Share of the sound effects decoded so far
+    private float getLoadingProgress() {
+        int done = 0;
+        for (Future<Sound> decoded : decodedSounds) {
+            if (decoded.isDone())
+                done++;
+        }
+        return done / (float) SOUND_FILES.length;
     }
 
-    private void handleInput(float delta) {
-        // Toggle pause
-        if (Gdx.input.isKeyJustPressed(Input.Keys.ESCAPE)) {
-            isPaused = !isPaused;
-            if (isPaused)
-                pauseSound.play();
-            else
-                resumeSound.play();
+    private Sound getDecodedSound(String file) {
+        Future<Sound> decoded = decodedSounds.get(Arrays.asList(SOUND_FILES).indexOf(file));
+        try {
+            return decoded.get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new GdxRuntimeException("Could not load " + file, e);
         }
-        if (isPaused && !Gdx.input.isKeyJustPressed(Input.Keys.ESCAPE)) {
+    }
+
+    // Starts the background music as soon as it has been opened
+    private void updateMusic() {
+        if (backgroundMusic != null)
             return;
+        frameMayAllocate = true;
+        if (assets.update()) {
+            backgroundMusic = assets.get(BACKGROUND_MUSIC, Music.class);
+            backgroundMusic.setLooping(true);
+            backgroundMusic.setVolume(0.8f); // Lower volume for background music
+            backgroundMusic.play();
         }
+    }
+
+    private void recordConfirmedFrame(int frame, int input, PongSimulation after) {
+        replayWriter.recordTick(input);
+        if (replayWriter.isChecksumDue())
+            replayWriter.recordChecksum(after.checksum());
+    }
 
-        // Restart if game over
-        if (gameState == GameState.GAME_OVER && Gdx.input.isKeyJustPressed(Input.Keys.R)) {
-            resetGame();
-            gameStartSound.play();
+    private void logFirstFrame() {
+        if (firstFrameLogged)
             return;
-        }
+        firstFrameLogged = true;
+        Gdx.app.log("PongGame", "Time to first frame: " + millisSinceCreate()
+                + " ms after create(), " + ManagementFactory.getRuntimeMXBean().getUptime()
+                + " ms after JVM start");
+    }
 
+    private long millisSinceCreate() {
+        return TimeUtils.nanosToMillis(TimeUtils.nanoTime() - createNanos);
+    }
+
+    private int pollHeldButtons() {
+        int input = PongInput.NONE;
         // Player 1 (W/S)
         if (Gdx.input.isKeyPressed(Input.Keys.W))
-            player1Y += PADDLE_SPEED * delta;
+            input |= PongInput.P1_UP;
         if (Gdx.input.isKeyPressed(Input.Keys.S))
-            player1Y -= PADDLE_SPEED * delta;
+            input |= PongInput.P1_DOWN;
 
         // Player 2 (UP/DOWN)
         if (Gdx.input.isKeyPressed(Input.Keys.UP))
-            player2Y += PADDLE_SPEED * delta;
+            input |= PongInput.P2_UP;
         if (Gdx.input.isKeyPressed(Input.Keys.DOWN))
-            player2Y -= PADDLE_SPEED * delta;
-
-        // Clamp paddles
-        player1Y = MathUtils.clamp(player1Y, 0, Gdx.graphics.getHeight() - PADDLE_HEIGHT);
-        player2Y = MathUtils.clamp(player2Y, 0, Gdx.graphics.getHeight() - PADDLE_HEIGHT);
-
-        // Serve on SPACE
-        if (gameState == GameState.SERVING && Gdx.input.isKeyJustPressed(Input.Keys.SPACE)) {
-            serveBall();
-        }
+            input |= PongInput.P2_DOWN;
+        return input;
     }
 
-    private void serveBall() {
-        gameState = GameState.PLAYING;
-        float angle;
-        switch (MathUtils.random(0, 2)) {
-            case 0:
-                angle = MathUtils.random(0f, 45f);
-                break;
-            case 1:
-                angle = MathUtils.random(135f, 225f);
-                break;
-            default:
-                angle = MathUtils.random(315f, 360f);
-                break;
-        }
-        if (serveToPlayer1)
-            angle = (angle + 180f) % 360f;
-
-        ballSpeedX = INITIAL_BALL_SPEED * MathUtils.cosDeg(angle);
-        ballSpeedY = INITIAL_BALL_SPEED * MathUtils.sinDeg(angle);
-        paddleHitSound.play();
+    private int pollPresses() {
+        int input = PongInput.NONE;
+        if (Gdx.input.isKeyJustPressed(Input.Keys.SPACE))
+            input |= PongInput.SERVE;
+        if (Gdx.input.isKeyJustPressed(Input.Keys.ESCAPE))
+            input |= PongInput.PAUSE;
+        if (Gdx.input.isKeyJustPressed(Input.Keys.R))
+            input |= PongInput.RESTART;
+        return input;
     }
 
-    private void update(float delta) {
-        if (gameState != GameState.PLAYING)
-            return;
-
-        // Move ball
-        ballX += ballSpeedX * delta;
-        ballY += ballSpeedY * delta;
+    private static int toOwnPaddle(int input) {
+        int own = input & PongInput.PRESSED_MASK;
+        if (PongInput.has(input, PongInput.P1_UP | PongInput.P2_UP))
+            own |= PongInput.P1_UP;
+        if (PongInput.has(input, PongInput.P1_DOWN | PongInput.P2_DOWN))
+            own |= PongInput.P1_DOWN;
+        return own;
+    }
 
-        // Bounce off top/bottom
-        if (ballY < 0 || ballY > Gdx.graphics.getHeight() - BALL_SIZE) {
-            ballSpeedY *= -1;
-            ballY = MathUtils.clamp(ballY, 0, Gdx.graphics.getHeight() - BALL_SIZE);
-            wallBounceSound.play(0.5f);
-        }
+    // Frames that load assets, play a sound, log or relayout a score may
+    // allocate; all others must not. Posting a sound event allocates nothing
+    private void checkAllocations(boolean hudRebuilt) {
+        long bytes = allocationCounter.stop();
+        boolean steady = !frameMayAllocate && !hudRebuilt && ++debugFrames > ALLOCATION_WARMUP_FRAMES;
+        frameMayAllocate = false;
+        assert !steady || bytes == 0 : "Steady-state frame allocated " + bytes + " bytes";
+    }
 
-        // Left paddle collision
-        if (ballX < PADDLE_OFFSET + PADDLE_WIDTH
-                && ballY + BALL_SIZE > player1Y
-                && ballY < player1Y + PADDLE_HEIGHT) {
-
-            float hitPos = (ballY - player1Y) / PADDLE_HEIGHT;
-            float angle = MathUtils.map(0f, 1f, -45f, 45f, hitPos);
-            float speed = Math.min(
-                    (float) Math.hypot(ballSpeedX, ballSpeedY) * BALL_SPEED_INCREASE,
-                    MAX_BALL_SPEED);
-            ballSpeedX = speed * MathUtils.cosDeg(angle);
-            ballSpeedY = speed * MathUtils.sinDeg(angle);
-            ballX = PADDLE_OFFSET + PADDLE_WIDTH; // prevent sticking
-            paddleHitSound.play();
+    private void recordNetTime(boolean immediateNet, long nanos) {
+        if (immediateNet)
+            immediateNetNanos += nanos;
+        else
+            cachedNetNanos += nanos;
+        if (++comparedFrames == COMPARE_REPORT_FRAMES) {
+            float half = COMPARE_REPORT_FRAMES / 2f;
+            float cachedMicros = cachedNetNanos / half / 1000f;
+            float immediateMicros = immediateNetNanos / half / 1000f;
+            Gdx.app.log("PongGame", "Shape pass CPU time: cached net " + cachedMicros
+                    + " us/frame, immediate net " + immediateMicros
+                    + " us/frame, saved " + (immediateMicros - cachedMicros) + " us/frame");
+            frameMayAllocate = true; // the report itself builds strings
+            comparedFrames = 0;
+            cachedNetNanos = 0;
+            immediateNetNanos = 0;
         }
+    }
 
-        // Right paddle collision
-        if (ballX > Gdx.graphics.getWidth() - PADDLE_OFFSET - PADDLE_WIDTH - BALL_SIZE
-                && ballY + BALL_SIZE > player2Y
-                && ballY < player2Y + PADDLE_HEIGHT) {
-
-            float hitPos = (ballY - player2Y) / PADDLE_HEIGHT;
-            float angle = MathUtils.map(0f, 1f, 225f, 135f, hitPos);
-            float speed = Math.min(
-                    (float) Math.hypot(ballSpeedX, ballSpeedY) * BALL_SPEED_INCREASE,
-                    MAX_BALL_SPEED);
-            ballSpeedX = speed * MathUtils.cosDeg(angle);
-            ballSpeedY = speed * MathUtils.sinDeg(angle);
-            ballX = Gdx.graphics.getWidth() - PADDLE_OFFSET - PADDLE_WIDTH - BALL_SIZE;
-            paddleHitSound.play();
-        }
+    /** Draws the frame and returns whether the HUD had to rebuild a score. */
+    private boolean draw(float alpha) {
+        float width = simulation.getCourtWidth();
+        PongSimulation.State gameState = simulation.getState();
 
-        // Score
-        if (ballX < 0) {
-            player2Score++;
-            serveToPlayer1 = true;
-            scoreSound.play();
-            resetBall();
-        }
-        if (ballX > Gdx.graphics.getWidth()) {
-            player1Score++;
-            serveToPlayer1 = false;
-            scoreSound.play();
-            resetBall();
-        }
+        // Comparison mode alternates the net between the cached and the
+        // immediate-mode path and times the whole shape pass for each
+        boolean immediateNet = COMPARE_NET && (comparedFrames & 1) == 1;
+        long shapesStart = COMPARE_NET ? System.nanoTime() : 0;
 
-        // Check for winner
-        if (player1Score >= WINNING_SCORE || player2Score >= WINNING_SCORE) {
-            gameState = GameState.GAME_OVER;
-            roundEndSound.play();
-        }
-    }
+        // Center net, baked once and drawn with a single call
+        if (!immediateNet)
+            courtCache.draw();
 
-    private void draw() {
-        // Draw paddles, ball and net
+        // Draw paddles and ball
         shapeRenderer.begin(ShapeRenderer.ShapeType.Filled);
         shapeRenderer.setColor(Color.WHITE);
-        shapeRenderer.rect(PADDLE_OFFSET, player1Y, PADDLE_WIDTH, PADDLE_HEIGHT);
+        shapeRenderer.rect(PADDLE_OFFSET, simulation.getPlayer1Y(), PADDLE_WIDTH, PADDLE_HEIGHT);
         shapeRenderer.rect(
-                Gdx.graphics.getWidth() - PADDLE_OFFSET - PADDLE_WIDTH,
-                player2Y, PADDLE_WIDTH, PADDLE_HEIGHT);
+                width - PADDLE_OFFSET - PADDLE_WIDTH,
+                simulation.getPlayer2Y(), PADDLE_WIDTH, PADDLE_HEIGHT);
 
         // Blinking ball when serving
-        if (gameState != GameState.SERVING ||
-                (TimeUtils.timeSinceMillis(lastScoreTime) / 200) % 2 == 0) {
-            shapeRenderer.rect(ballX, ballY, BALL_SIZE, BALL_SIZE);
+        if (gameState != PongSimulation.State.SERVING ||
+                (int) (simulation.getTimeSinceReset() / 0.2f) % 2 == 0) {
+            shapeRenderer.rect(simulation.getBallX(alpha), simulation.getBallY(alpha), BALL_SIZE, BALL_SIZE);
         }
 
-        // Center net
-        shapeRenderer.setColor(Color.GRAY);
-        for (int y = 0; y < Gdx.graphics.getHeight(); y += CENTER_LINE_SEGMENT_HEIGHT + CENTER_LINE_GAP) {
-            shapeRenderer.rect(
-                    Gdx.graphics.getWidth() / 2f - CENTER_LINE_WIDTH / 2f,
-                    y,
-                    CENTER_LINE_WIDTH,
-                    CENTER_LINE_SEGMENT_HEIGHT);
-        }
+        if (immediateNet)
+            courtCache.drawImmediate(shapeRenderer);
         shapeRenderer.end();
 
+        if (COMPARE_NET)
+            recordNetTime(immediateNet, System.nanoTime() - shapesStart);
+
         // Draw scores and messages
         batch.begin();
-        font.setColor(Color.WHITE);
-        font.draw(batch, String.valueOf(player1Score),
-                Gdx.graphics.getWidth() / 2f - 50, Gdx.graphics.getHeight() - 20);
-        font.draw(batch, String.valueOf(player2Score),
-                Gdx.graphics.getWidth() / 2f + 30, Gdx.graphics.getHeight() - 20);
-
-        if (isPaused) {
-            font.draw(batch, "PAUSED",
-                    Gdx.graphics.getWidth() / 2f - 50, Gdx.graphics.getHeight() / 2f + 50);
-            font.draw(batch, "Press ESC to resume",
-                    Gdx.graphics.getWidth() / 2f - 100, Gdx.graphics.getHeight() / 2f - 50);
-        } else if (gameState == GameState.SERVING) {
-            font.draw(batch, "PRESS SPACE to serve",
-                    Gdx.graphics.getWidth() / 2f - 100, 50);
-        } else if (gameState == GameState.GAME_OVER) {
-            String winner = player1Score > player2Score
-                    ? "Player 1 Wins!"
-                    : "Player 2 Wins!";
-            font.draw(batch, winner,
-                    Gdx.graphics.getWidth() / 2f - 100, Gdx.graphics.getHeight() / 2f + 50);
-            font.draw(batch, "Press R to restart",
-                    Gdx.graphics.getWidth() / 2f - 100, Gdx.graphics.getHeight() / 2f - 50);
-        }
+        boolean hudRebuilt = hud.draw(batch, simulation);
         batch.end();
+        return hudRebuilt;
     }
 }
@@ -0,0 +1,31 @@
+package com.ponggame;
+
+/**
+ * Bitmask of the buttons that drive one {@link PongSimulation} tick.
+ * Movement bits are "held" buttons; {@link #SERVE}, {@link #PAUSE} and
+ * {@link #RESTART} are edge-triggered and only act on the tick they arrive in.
+ */
+public final class PongInput {
+    public static final int NONE = 0;
+
+    // 1. Held buttons
+    public static final int P1_UP = 1; // W
+    public static final int P1_DOWN = 1 << 1; // S
+    public static final int P2_UP = 1 << 2; // UP
+    public static final int P2_DOWN = 1 << 3; // DOWN
+
+    // 2. Edge-triggered buttons
+    public static final int SERVE = 1 << 4; // SPACE
+    public static final int PAUSE = 1 << 5; // ESC
+    public static final int RESTART = 1 << 6; // R
+
+    public static final int HELD_MASK = P1_UP | P1_DOWN | P2_UP | P2_DOWN;
+    public static final int PRESSED_MASK = SERVE | PAUSE | RESTART;
+
+    private PongInput() {
+    }
+
+    public static boolean has(int input, int button) {
+        return (input & button) != 0;
+    }
+}
@@ -0,0 +1,265 @@
+package com.ponggame;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Server-side host for many simultaneous Pong matches. Every match's state is
+ * packed into structure-of-arrays primitive buffers (one array per field,
+ * indexed by match) and all matches are stepped together, split into fixed
+ * chunks across a {@link ForkJoinPool}.
+ * <p>
+ * Each chunk steps its matches through one reusable {@link PongSimulation}
+ * (load slot, {@link PongSimulation#step(int)}, store slot), so the rules are
+ * exactly the ones the client runs. Chunks, tasks and scratch simulations are
+ * created up front; {@link #step()} allocates nothing.
+ */
+public class PongMatchEngine {
+    private static final int DEFAULT_CHUNK_SIZE = 1024;
+    private static final PongSimulation.State[] STATES = PongSimulation.State.values();
+
+    /** Supplies the input of one match for the coming tick, e.g. from the network. */
+    public interface InputProvider {
+        int input(PongMatchEngine engine, int match);
+    }
+
+    // 1. Match state, one slot per match (see PongSimulation load/store)
+    final float[] player1Y;
+    final float[] player2Y;
+    final int[] player1Score;
+    final int[] player2Score;
+    final float[] ballX;
+    final float[] ballY;
+    final float[] previousBallX;
+    final float[] previousBallY;
+    final float[] ballSpeedX;
+    final float[] ballSpeedY;
+    final byte[] state;
+    final boolean[] serveToPlayer1;
+    final boolean[] paused;
+    final long[] tick;
+    final long[] resetTick;
+    final long[] rngState;
+
+    // 2. Inputs for the next tick
+    private final int[] inputs;
+    private InputProvider inputProvider;
+
+    // 3. Scheduling
+    private final int matchCount;
+    private final float courtWidth;
+    private final float courtHeight;
+    private final ForkJoinPool pool;
+    private final StepChunk[] chunks;
+    private final StepAll stepAll;
+    private long ticks;
+
+    public PongMatchEngine(int matchCount, float courtWidth, float courtHeight, long seed) {
+        this(matchCount, courtWidth, courtHeight, seed, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    public PongMatchEngine(int matchCount, float courtWidth, float courtHeight, long seed,
+            ForkJoinPool pool, int chunkSize) {
+        if (matchCount <= 0 || chunkSize <= 0)
+            throw new IllegalArgumentException("matchCount and chunkSize must be positive");
+        this.matchCount = matchCount;
+        this.courtWidth = courtWidth;
+        this.courtHeight = courtHeight;
+        this.pool = pool;
+
+        player1Y = new float[matchCount];
+        player2Y = new float[matchCount];
+        player1Score = new int[matchCount];
+        player2Score = new int[matchCount];
+        ballX = new float[matchCount];
+        ballY = new float[matchCount];
+        previousBallX = new float[matchCount];
+        previousBallY = new float[matchCount];
+        ballSpeedX = new float[matchCount];
+        ballSpeedY = new float[matchCount];
+        state = new byte[matchCount];
+        serveToPlayer1 = new boolean[matchCount];
+        paused = new boolean[matchCount];
+        tick = new long[matchCount];
+        resetTick = new long[matchCount];
+        rngState = new long[matchCount];
+        inputs = new int[matchCount];
+
+        // Give every match its own seed and a freshly reset state
+        for (int i = 0; i < matchCount; i++) {
+            new PongSimulation(courtWidth, courtHeight, matchSeed(seed, i)).store(this, i);
+        }
+
+        int chunkCount = (matchCount + chunkSize - 1) / chunkSize;
+        chunks = new StepChunk[chunkCount];
+        for (int c = 0; c < chunkCount; c++) {
+            chunks[c] = new StepChunk(c * chunkSize, Math.min(matchCount, (c + 1) * chunkSize));
+        }
+        stepAll = new StepAll();
+    }
+
+    // The SplitMix64 finalizer of seed + match. Adding a multiple of the
+    // generator's own increment instead would just shift match 0's stream
+    private static long matchSeed(long seed, int match) {
+        long z = seed + match;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /** Pulls inputs from {@code provider} at the start of every tick instead of {@link #setInput}. */
+    public void setInputProvider(InputProvider provider) {
+        this.inputProvider = provider;
+    }
+
+    /** Sets the input of one match for the next {@link #step()}; it is cleared afterwards. */
+    public void setInput(int match, int input) {
+        inputs[match] = input;
+    }
+
+    /** Advances every match by one {@link PongSimulation#FIXED_TIMESTEP}. */
+    public void step() {
+        for (StepChunk chunk : chunks) {
+            chunk.reinitialize();
+        }
+        stepAll.reinitialize();
+        pool.invoke(stepAll);
+        ticks++;
+    }
+
+    private final class StepAll extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void compute() {
+            invokeAll(chunks);
+        }
+    }
+
+    private final class StepChunk extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final PongSimulation scratch = new PongSimulation(courtWidth, courtHeight, 0);
+
+        StepChunk(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            PongMatchEngine engine = PongMatchEngine.this;
+            InputProvider provider = inputProvider;
+            for (int i = from; i < to; i++) {
+                scratch.load(engine, i);
+                int input = provider != null ? provider.input(engine, i) : inputs[i];
+                inputs[i] = PongInput.NONE;
+                scratch.step(input);
+                scratch.store(engine, i);
+            }
+        }
+    }
+
+    // --- Accessors ---
+
+    public int getMatchCount() {
+        return matchCount;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public float getCourtWidth() {
+        return courtWidth;
+    }
+
+    public float getCourtHeight() {
+        return courtHeight;
+    }
+
+    public float getPlayer1Y(int match) {
+        return player1Y[match];
+    }
+
+    public float getPlayer2Y(int match) {
+        return player2Y[match];
+    }
+
+    public int getPlayer1Score(int match) {
+        return player1Score[match];
+    }
+
+    public int getPlayer2Score(int match) {
+        return player2Score[match];
+    }
+
+    public float getBallX(int match) {
+        return ballX[match];
+    }
+
+    public float getBallY(int match) {
+        return ballY[match];
+    }
+
+    public PongSimulation.State getState(int match) {
+        return STATES[state[match]];
+    }
+
+    // --- Throughput report ---
+
+    /**
+     * Steps {@code matches} matches (default 10000) for {@code seconds}
+     * (default 10) with both paddles tracking the ball, then prints match
+     * ticks per second and how many real-time (120 Hz) matches one core holds.
+     */
+    public static void main(String[] args) {
+        int matches = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 10;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        PongMatchEngine engine = new PongMatchEngine(matches, 800, 600, System.nanoTime());
+        final byte serving = (byte) PongSimulation.State.SERVING.ordinal();
+        final byte gameOver = (byte) PongSimulation.State.GAME_OVER.ordinal();
+        engine.setInputProvider(new InputProvider() {
+            @Override
+            public int input(PongMatchEngine e, int match) {
+                if (e.state[match] == serving)
+                    return PongInput.SERVE;
+                if (e.state[match] == gameOver)
+                    return PongInput.RESTART;
+                float target = e.ballY[match] + PongSimulation.BALL_SIZE / 2f - PongSimulation.PADDLE_HEIGHT / 2f;
+                int input = PongInput.NONE;
+                input |= e.player1Y[match] < target - 5 ? PongInput.P1_UP
+                        : e.player1Y[match] > target + 5 ? PongInput.P1_DOWN : 0;
+                input |= e.player2Y[match] < target - 5 ? PongInput.P2_UP
+                        : e.player2Y[match] > target + 5 ? PongInput.P2_DOWN : 0;
+                return input;
+            }
+        });
+
+        // Warm up the JIT before measuring
+        for (int i = 0; i < 600; i++) {
+            engine.step();
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + (long) (seconds * 1e9);
+        long steps = 0;
+        while (System.nanoTime() < deadline) {
+            engine.step();
+            steps++;
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        double matchTicksPerSecond = steps * (double) matches / elapsed;
+        double realTimeMatches = matchTicksPerSecond * PongSimulation.FIXED_TIMESTEP;
+        System.out.printf("%d matches, %d ticks in %.2fs on %d cores%n", matches, steps, elapsed, cores);
+        System.out.printf("%.0f match-ticks/s, %.1fx real time per match%n",
+                matchTicksPerSecond, steps * PongSimulation.FIXED_TIMESTEP / elapsed);
+        System.out.printf("%.0f real-time matches total, %.0f per core%n",
+                realTimeMatches, realTimeMatches / cores);
+    }
+}
@@ -0,0 +1,182 @@
+package com.ponggame;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a replay written by {@link PongReplayWriter} and re-simulates it
+ * headless, as fast as the CPU allows.
+ * <p>
+ * {@code main} takes a replay path (and optionally a tick to stop at), then
+ * prints how fast the match re-simulated and the first tick whose state
+ * checksum differs from the recording, which is where to start bisecting a
+ * desync.
+ */
+public class PongReplayReader implements Closeable {
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    private final float courtWidth;
+    private final float courtHeight;
+    private final long seed;
+
+    // Last record read by next()
+    private int kind;
+    private long recordTick;
+    private long value;
+
+    public PongReplayReader(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (buffer.getInt() != PongReplayWriter.MAGIC)
+            throw new IOException("Not a Pong replay: " + file);
+        int version = buffer.getInt();
+        if (version != PongReplayWriter.VERSION)
+            throw new IOException("Unsupported replay version " + version);
+        courtWidth = buffer.getFloat();
+        courtHeight = buffer.getFloat();
+        seed = buffer.getLong();
+        long dataLength = buffer.getLong();
+        // An unclosed replay (e.g. after a crash) is followed by zero padding
+        // up to the end of the mapped chunk, which next() stops at
+        if (dataLength > 0)
+            buffer.limit((int) dataLength);
+    }
+
+    /**
+     * Advances to the next record. Returns its kind, or
+     * {@link PongReplayWriter#KIND_END} at the end of the stream.
+     */
+    public int next() {
+        if (!buffer.hasRemaining()) {
+            kind = PongReplayWriter.KIND_END;
+            return kind;
+        }
+        long header = readVarint();
+        // The writer only writes an input when it changes, and always at a
+        // later tick than the record before it (a first input at tick 0 is
+        // never zero), so header 0 with input 0 can only be padding
+        if (header == 0 && (!buffer.hasRemaining() || buffer.get(buffer.position()) == 0)) {
+            buffer.position(buffer.limit());
+            kind = PongReplayWriter.KIND_END;
+            value = 0;
+            return kind;
+        }
+        recordTick += header >>> 2;
+        kind = (int) (header & 3);
+        switch (kind) {
+            case PongReplayWriter.KIND_INPUT:
+                value = buffer.get() & 0xFF;
+                break;
+            case PongReplayWriter.KIND_CHECKSUM:
+                value = readVarint();
+                break;
+            default:
+                value = 0;
+                break;
+        }
+        return kind;
+    }
+
+    private long readVarint() {
+        long result = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            result |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return result;
+    }
+
+    /** Tick the last record applies to. */
+    public long getRecordTick() {
+        return recordTick;
+    }
+
+    /** Input mask or checksum carried by the last record. */
+    public long getValue() {
+        return value;
+    }
+
+    public float getCourtWidth() {
+        return courtWidth;
+    }
+
+    public float getCourtHeight() {
+        return courtHeight;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // --- Headless re-simulation ---
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: PongReplayReader <replay file> [stop tick]");
+            System.exit(1);
+        }
+        long stopTick = args.length > 1 ? Long.parseLong(args[1]) : Long.MAX_VALUE;
+
+        try (PongReplayReader reader = new PongReplayReader(java.nio.file.Paths.get(args[0]))) {
+            PongSimulation simulation = new PongSimulation(
+                    reader.getCourtWidth(), reader.getCourtHeight(), reader.getSeed());
+            long firstDesync = -1;
+            int checksums = 0;
+            int input = PongInput.NONE;
+
+            long start = System.nanoTime();
+            int kind = reader.next();
+            while (kind != PongReplayWriter.KIND_END && simulation.getTick() < stopTick) {
+                // Step up to the tick of the next record with the input in effect
+                while (simulation.getTick() < reader.getRecordTick() && simulation.getTick() < stopTick) {
+                    simulation.step(input);
+                }
+                if (simulation.getTick() >= stopTick)
+                    break;
+                if (kind == PongReplayWriter.KIND_INPUT) {
+                    input = (int) reader.getValue();
+                } else {
+                    // Checksums are taken after their tick, so step it first
+                    simulation.step(input);
+                    checksums++;
+                    if (firstDesync < 0 && (simulation.checksum() & 0xFFFFFFFFL) != reader.getValue())
+                        firstDesync = reader.getRecordTick();
+                }
+                kind = reader.next();
+            }
+            // Run out the ticks after the last input change
+            while (kind == PongReplayWriter.KIND_END
+                    && simulation.getTick() < Math.min(reader.getRecordTick(), stopTick)) {
+                simulation.step(input);
+            }
+            double elapsed = (System.nanoTime() - start) / 1e9;
+
+            long ticks = simulation.getTick();
+            double gameSeconds = ticks * PongSimulation.FIXED_TIMESTEP;
+            System.out.printf("%d ticks (%.1fs of play) re-simulated in %.3fs, %.0fx real time%n",
+                    ticks, gameSeconds, elapsed, gameSeconds / Math.max(elapsed, 1e-9));
+            System.out.printf("Score %d - %d, %d checksums verified%n",
+                    simulation.getPlayer1Score(), simulation.getPlayer2Score(), checksums);
+            if (firstDesync >= 0)
+                System.out.printf("DESYNC: state differs from the recording after tick %d%n", firstDesync);
+            else
+                System.out.println("In sync with the recording");
+        }
+    }
+}
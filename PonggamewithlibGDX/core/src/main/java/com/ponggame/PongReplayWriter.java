@@ -0,0 +1,140 @@
+package com.ponggame;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams a Pong match into a compact binary replay through a memory-mapped
+ * file, so recording costs a few buffer writes per tick and no system calls.
+ * <p>
+ * Layout (little endian):
+ * <pre>
+ * header  int magic 'PRPL', int version, float courtWidth, float courtHeight,
+ *         long seed, long dataLength (0 until the replay is closed)
+ * records varint (tickDelta &lt;&lt; 2 | kind), followed by
+ *           INPUT    byte PongInput mask, in effect from that tick on
+ *           CHECKSUM varint PongSimulation.checksum() after that tick
+ *           END      nothing; the tick is the total tick count
+ * </pre>
+ * Inputs are only written when the mask changes and every record stores its
+ * tick as a delta from the previous record, so idle or held-key stretches
+ * cost nothing. Read it back with {@link PongReplayReader}.
+ */
+public class PongReplayWriter implements Closeable {
+    static final int MAGIC = 0x4C505250; // "PRPL"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int DATA_LENGTH_OFFSET = 24;
+
+    static final int KIND_INPUT = 0;
+    static final int KIND_CHECKSUM = 1;
+    static final int KIND_END = 2;
+
+    /** Ticks between state checksums, used to find the first desynced tick. */
+    public static final int CHECKSUM_INTERVAL = 120;
+
+    private static final int MAP_CHUNK = 1 << 20;
+    private static final int MAX_RECORD_SIZE = 16;
+
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long bufferStart;
+
+    private long tick;
+    private long lastRecordTick;
+    private int lastInput;
+    private boolean closed;
+
+    public PongReplayWriter(Path file, float courtWidth, float courtHeight, long seed) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        map(0);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putFloat(courtWidth);
+        buffer.putFloat(courtHeight);
+        buffer.putLong(seed);
+        buffer.putLong(0);
+    }
+
+    /** Records the input of the next tick; call once per {@link PongSimulation#step(int)}, before it. */
+    public void recordTick(int input) {
+        if (input != lastInput) {
+            writeRecordHeader(KIND_INPUT, tick);
+            buffer.put((byte) input);
+            lastInput = input;
+        }
+        tick++;
+    }
+
+    /** Records the checksum of the state after the tick last passed to {@link #recordTick(int)}. */
+    public void recordChecksum(int checksum) {
+        writeRecordHeader(KIND_CHECKSUM, tick - 1);
+        writeVarint(checksum & 0xFFFFFFFFL);
+    }
+
+    /** Whether the tick just recorded is due a {@link #recordChecksum(int)}. */
+    public boolean isChecksumDue() {
+        return tick % CHECKSUM_INTERVAL == 0;
+    }
+
+    public long getTickCount() {
+        return tick;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+        writeRecordHeader(KIND_END, tick);
+        long length = bufferStart + buffer.position();
+
+        map(0);
+        buffer.putLong(DATA_LENGTH_OFFSET, length);
+        buffer.force();
+        buffer = null;
+        try {
+            channel.truncate(length);
+        } catch (IOException ignored) {
+            // Some platforms refuse to shrink a file that is still mapped;
+            // dataLength in the header already marks the end of the records.
+        }
+        channel.close();
+    }
+
+    private void writeRecordHeader(int kind, long recordTick) {
+        ensureCapacity();
+        writeVarint((recordTick - lastRecordTick) << 2 | kind);
+        lastRecordTick = recordTick;
+    }
+
+    private void writeVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private void ensureCapacity() {
+        if (buffer.remaining() < MAX_RECORD_SIZE) {
+            map(bufferStart + buffer.position());
+        }
+    }
+
+    private void map(long position) {
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, position, MAP_CHUNK);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not map replay file", e);
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        bufferStart = position;
+    }
+}
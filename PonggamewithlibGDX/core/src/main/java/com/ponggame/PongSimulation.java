@@ -0,0 +1,548 @@
+package com.ponggame;
+
+/**
+ * The Pong rules (paddles, ball, scoring, serving) without any libGDX
+ * dependency. The simulation advances in fixed {@link #FIXED_TIMESTEP} ticks
+ * driven by a {@link PongInput} bitmask, uses its own court size and seeded
+ * random generator, and reports sound-worthy moments through a
+ * {@link Listener} instead of playing them, so it can run headless and far
+ * faster than real time.
+ */
+public class PongSimulation {
+    public static final float FIXED_TIMESTEP = 1f / 120f;
+
+    // 1. Paddle attributes
+    public static final float PADDLE_WIDTH = 15;
+    public static final float PADDLE_HEIGHT = 100;
+    public static final float PADDLE_SPEED = 500;
+    public static final float PADDLE_OFFSET = 20;
+
+    // 2. Ball attributes
+    public static final float BALL_SIZE = 15;
+    public static final float INITIAL_BALL_SPEED = 300;
+    public static final float BALL_SPEED_INCREASE = 1.05f;
+    public static final float MAX_BALL_SPEED = 600;
+
+    // 3. Winning score
+    public static final int WINNING_SCORE = 5;
+
+    // 4. Collision resolution
+    private static final int MAX_COLLISIONS_PER_STEP = 8;
+    private static final int HIT_NONE = 0;
+    private static final int HIT_WALL = 1;
+    private static final int HIT_LEFT_PADDLE = 2;
+    private static final int HIT_RIGHT_PADDLE = 3;
+    private static final int HIT_PADDLE_EDGE = 4;
+
+    public enum State {
+        PLAYING,
+        SERVING,
+        GAME_OVER
+    }
+
+    private static final State[] STATES = State.values();
+
+    public enum Event {
+        SERVE,
+        PADDLE_HIT,
+        WALL_BOUNCE,
+        SCORE,
+        GAME_OVER,
+        PAUSE,
+        RESUME,
+        RESTART
+    }
+
+    /** Receives gameplay events synchronously from {@link #step(int)}. */
+    public interface Listener {
+        void onEvent(Event event);
+    }
+
+    // 5. Court
+    private float courtWidth;
+    private float courtHeight;
+
+    // 6. Tunable rules (default to the constants above)
+    private float ballSpeedIncrease = BALL_SPEED_INCREASE;
+    private float maxBallSpeed = MAX_BALL_SPEED;
+
+    // 7. Players
+    private float player1Y;
+    private float player2Y;
+    private int player1Score;
+    private int player2Score;
+
+    // 8. Ball (previous position kept for render interpolation)
+    private float ballX;
+    private float ballY;
+    private float previousBallX;
+    private float previousBallY;
+    private float ballSpeedX;
+    private float ballSpeedY;
+
+    // 9. Game state
+    private State state;
+    private boolean serveToPlayer1;
+    private boolean paused;
+    private long tick;
+    private long resetTick;
+    private long rngState;
+
+    // 10. Result of the last sweep() call
+    private float sweepTime;
+    private boolean sweepHitFront;
+
+    private Listener listener;
+
+    public PongSimulation(float courtWidth, float courtHeight, long seed) {
+        this.courtWidth = courtWidth;
+        this.courtHeight = courtHeight;
+        this.rngState = seed;
+        resetGame();
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public Listener getListener() {
+        return listener;
+    }
+
+    public void setCourtSize(float width, float height) {
+        courtWidth = width;
+        courtHeight = height;
+        player1Y = clamp(player1Y, 0, courtHeight - PADDLE_HEIGHT);
+        player2Y = clamp(player2Y, 0, courtHeight - PADDLE_HEIGHT);
+    }
+
+    public void setBallSpeedIncrease(float ballSpeedIncrease) {
+        this.ballSpeedIncrease = ballSpeedIncrease;
+    }
+
+    public void setMaxBallSpeed(float maxBallSpeed) {
+        this.maxBallSpeed = maxBallSpeed;
+    }
+
+    /** Restarts the match: scores, paddles and ball go back to the serve position. */
+    public void resetGame() {
+        player1Y = courtHeight / 2f - PADDLE_HEIGHT / 2f;
+        player2Y = courtHeight / 2f - PADDLE_HEIGHT / 2f;
+
+        player1Score = 0;
+        player2Score = 0;
+
+        serveToPlayer1 = nextLong() < 0;
+        resetBall();
+        paused = false;
+    }
+
+    /** Advances the match by exactly one {@link #FIXED_TIMESTEP}. */
+    public void step(int input) {
+        tick++;
+        previousBallX = ballX;
+        previousBallY = ballY;
+
+        // Toggle pause
+        if (PongInput.has(input, PongInput.PAUSE)) {
+            paused = !paused;
+            emit(paused ? Event.PAUSE : Event.RESUME);
+        }
+        if (paused) {
+            return;
+        }
+
+        // Restart if game over
+        if (state == State.GAME_OVER && PongInput.has(input, PongInput.RESTART)) {
+            resetGame();
+            emit(Event.RESTART);
+            return;
+        }
+
+        float paddleStep = PADDLE_SPEED * FIXED_TIMESTEP;
+        if (PongInput.has(input, PongInput.P1_UP))
+            player1Y += paddleStep;
+        if (PongInput.has(input, PongInput.P1_DOWN))
+            player1Y -= paddleStep;
+        if (PongInput.has(input, PongInput.P2_UP))
+            player2Y += paddleStep;
+        if (PongInput.has(input, PongInput.P2_DOWN))
+            player2Y -= paddleStep;
+        player1Y = clamp(player1Y, 0, courtHeight - PADDLE_HEIGHT);
+        player2Y = clamp(player2Y, 0, courtHeight - PADDLE_HEIGHT);
+
+        // Serve
+        if (state == State.SERVING && PongInput.has(input, PongInput.SERVE)) {
+            serveBall();
+        }
+
+        updateBall(FIXED_TIMESTEP);
+    }
+
+    private void resetBall() {
+        ballX = courtWidth / 2f - BALL_SIZE / 2f;
+        ballY = courtHeight / 2f - BALL_SIZE / 2f;
+        previousBallX = ballX;
+        previousBallY = ballY;
+        ballSpeedX = 0;
+        ballSpeedY = 0;
+        resetTick = tick;
+        state = State.SERVING;
+    }
+
+    private void serveBall() {
+        state = State.PLAYING;
+        float angle;
+        switch ((int) (nextFloat() * 3)) {
+            case 0:
+                angle = nextFloat() * 45f;
+                break;
+            case 1:
+                angle = 135f + nextFloat() * 90f;
+                break;
+            default:
+                angle = 315f + nextFloat() * 45f;
+                break;
+        }
+        if (serveToPlayer1)
+            angle = (angle + 180f) % 360f;
+
+        setBallVelocity(INITIAL_BALL_SPEED, angle);
+        emit(Event.SERVE);
+    }
+
+    private void updateBall(float delta) {
+        if (state != State.PLAYING)
+            return;
+
+        // Sweep the ball through the step, stopping at each time of impact so
+        // that no wall or paddle can be skipped however large the step is
+        float remaining = delta;
+        for (int i = 0; i < MAX_COLLISIONS_PER_STEP && remaining > 0; i++) {
+            float impact = remaining;
+            int hit = HIT_NONE;
+
+            // Top/bottom walls
+            if (ballSpeedY < 0) {
+                float t = Math.max(0, -ballY / ballSpeedY);
+                if (t < impact) {
+                    impact = t;
+                    hit = HIT_WALL;
+                }
+            } else if (ballSpeedY > 0) {
+                float t = Math.max(0, (courtHeight - BALL_SIZE - ballY) / ballSpeedY);
+                if (t < impact) {
+                    impact = t;
+                    hit = HIT_WALL;
+                }
+            }
+
+            // Paddles
+            if (sweep(PADDLE_OFFSET, player1Y, impact, ballSpeedX < 0)) {
+                impact = sweepTime;
+                hit = sweepHitFront && ballSpeedX < 0 ? HIT_LEFT_PADDLE : HIT_PADDLE_EDGE;
+            }
+            float rightPaddleX = courtWidth - PADDLE_OFFSET - PADDLE_WIDTH;
+            if (sweep(rightPaddleX, player2Y, impact, ballSpeedX > 0)) {
+                impact = sweepTime;
+                hit = sweepHitFront && ballSpeedX > 0 ? HIT_RIGHT_PADDLE : HIT_PADDLE_EDGE;
+            }
+
+            // Move ball up to the impact (or the end of the step)
+            ballX += ballSpeedX * impact;
+            ballY += ballSpeedY * impact;
+            remaining -= impact;
+
+            switch (hit) {
+                case HIT_WALL:
+                    ballSpeedY *= -1;
+                    ballY = ballSpeedY > 0 ? 0 : courtHeight - BALL_SIZE;
+                    emit(Event.WALL_BOUNCE);
+                    break;
+                case HIT_LEFT_PADDLE: {
+                    float hitPos = (ballY - player1Y) / PADDLE_HEIGHT;
+                    setBallVelocity(nextRallySpeed(), -45f + hitPos * 90f);
+                    ballX = PADDLE_OFFSET + PADDLE_WIDTH; // prevent sticking
+                    emit(Event.PADDLE_HIT);
+                    break;
+                }
+                case HIT_RIGHT_PADDLE: {
+                    float hitPos = (ballY - player2Y) / PADDLE_HEIGHT;
+                    setBallVelocity(nextRallySpeed(), 225f - hitPos * 90f);
+                    ballX = rightPaddleX - BALL_SIZE;
+                    emit(Event.PADDLE_HIT);
+                    break;
+                }
+                case HIT_PADDLE_EDGE:
+                    ballSpeedY *= -1;
+                    emit(Event.PADDLE_HIT);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        // Out of collision budget: the ball rests at its last contact for the
+        // rest of the step rather than moving on unchecked through a paddle or
+        // wall; the next step sweeps from here
+        ballY = clamp(ballY, 0, courtHeight - BALL_SIZE);
+
+        // Score
+        if (ballX < 0) {
+            player2Score++;
+            serveToPlayer1 = true;
+            emit(Event.SCORE);
+            resetBall();
+        }
+        if (ballX > courtWidth) {
+            player1Score++;
+            serveToPlayer1 = false;
+            emit(Event.SCORE);
+            resetBall();
+        }
+
+        // Check for winner
+        if (player1Score >= WINNING_SCORE || player2Score >= WINNING_SCORE) {
+            state = State.GAME_OVER;
+            emit(Event.GAME_OVER);
+        }
+    }
+
+    /**
+     * Swept AABB test of the moving ball against a static paddle at
+     * ({@code paddleX}, {@code paddleY}). Returns whether the ball touches it
+     * before {@code maxTime}; on a hit {@link #sweepTime} holds the time of
+     * impact and {@link #sweepHitFront} whether the paddle face (rather than
+     * its top or bottom edge) was struck. A ball already overlapping the
+     * paddle, e.g. because the paddle moved onto it, counts as an immediate
+     * front hit while it is {@code approaching} the paddle's goal line.
+     */
+    private boolean sweep(float paddleX, float paddleY, float maxTime, boolean approaching) {
+        float entryX, exitX, entryY, exitY;
+
+        if (ballSpeedX > 0) {
+            entryX = (paddleX - (ballX + BALL_SIZE)) / ballSpeedX;
+            exitX = (paddleX + PADDLE_WIDTH - ballX) / ballSpeedX;
+        } else if (ballSpeedX < 0) {
+            entryX = (paddleX + PADDLE_WIDTH - ballX) / ballSpeedX;
+            exitX = (paddleX - (ballX + BALL_SIZE)) / ballSpeedX;
+        } else if (ballX + BALL_SIZE > paddleX && ballX < paddleX + PADDLE_WIDTH) {
+            entryX = Float.NEGATIVE_INFINITY;
+            exitX = Float.POSITIVE_INFINITY;
+        } else {
+            return false;
+        }
+
+        if (ballSpeedY > 0) {
+            entryY = (paddleY - (ballY + BALL_SIZE)) / ballSpeedY;
+            exitY = (paddleY + PADDLE_HEIGHT - ballY) / ballSpeedY;
+        } else if (ballSpeedY < 0) {
+            entryY = (paddleY + PADDLE_HEIGHT - ballY) / ballSpeedY;
+            exitY = (paddleY - (ballY + BALL_SIZE)) / ballSpeedY;
+        } else if (ballY + BALL_SIZE > paddleY && ballY < paddleY + PADDLE_HEIGHT) {
+            entryY = Float.NEGATIVE_INFINITY;
+            exitY = Float.POSITIVE_INFINITY;
+        } else {
+            return false;
+        }
+
+        float entry = Math.max(entryX, entryY);
+        float exit = Math.min(exitX, exitY);
+        if (entry > exit || exit <= 0 || entry >= maxTime) {
+            return false;
+        }
+        if (entry < 0) {
+            if (!approaching)
+                return false;
+            sweepTime = 0;
+            sweepHitFront = true;
+        } else {
+            sweepTime = entry;
+            sweepHitFront = entryX >= entryY;
+        }
+        return true;
+    }
+
+    private float nextRallySpeed() {
+        float speed = (float) Math.sqrt(ballSpeedX * ballSpeedX + ballSpeedY * ballSpeedY);
+        return Math.min(speed * ballSpeedIncrease, maxBallSpeed);
+    }
+
+    private void setBallVelocity(float speed, float angleDegrees) {
+        double radians = Math.toRadians(angleDegrees);
+        ballSpeedX = speed * (float) Math.cos(radians);
+        ballSpeedY = speed * (float) Math.sin(radians);
+    }
+
+    private void emit(Event event) {
+        if (listener != null)
+            listener.onEvent(event);
+    }
+
+    // SplitMix64: a single long of state keeps the simulation cheap to copy.
+    private long nextLong() {
+        long z = (rngState += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private float nextFloat() {
+        return (nextLong() >>> 40) * 0x1.0p-24f;
+    }
+
+    private static float clamp(float value, float min, float max) {
+        return value < min ? min : (value > max ? max : value);
+    }
+
+    /** Copies the whole match state (and rules) of {@code other} into this simulation; the listener is kept. */
+    public void set(PongSimulation other) {
+        courtWidth = other.courtWidth;
+        courtHeight = other.courtHeight;
+        ballSpeedIncrease = other.ballSpeedIncrease;
+        maxBallSpeed = other.maxBallSpeed;
+        player1Y = other.player1Y;
+        player2Y = other.player2Y;
+        player1Score = other.player1Score;
+        player2Score = other.player2Score;
+        ballX = other.ballX;
+        ballY = other.ballY;
+        previousBallX = other.previousBallX;
+        previousBallY = other.previousBallY;
+        ballSpeedX = other.ballSpeedX;
+        ballSpeedY = other.ballSpeedY;
+        state = other.state;
+        serveToPlayer1 = other.serveToPlayer1;
+        paused = other.paused;
+        tick = other.tick;
+        resetTick = other.resetTick;
+        rngState = other.rngState;
+    }
+
+    /** Hash of the full match state; two simulations in sync produce the same value. */
+    public int checksum() {
+        int hash = 17;
+        hash = 31 * hash + Float.floatToIntBits(player1Y);
+        hash = 31 * hash + Float.floatToIntBits(player2Y);
+        hash = 31 * hash + player1Score;
+        hash = 31 * hash + player2Score;
+        hash = 31 * hash + Float.floatToIntBits(ballX);
+        hash = 31 * hash + Float.floatToIntBits(ballY);
+        hash = 31 * hash + Float.floatToIntBits(ballSpeedX);
+        hash = 31 * hash + Float.floatToIntBits(ballSpeedY);
+        hash = 31 * hash + state.ordinal();
+        hash = 31 * hash + (serveToPlayer1 ? 1 : 0);
+        hash = 31 * hash + (paused ? 1 : 0);
+        hash = 31 * hash + (int) (tick ^ (tick >>> 32));
+        hash = 31 * hash + (int) (rngState ^ (rngState >>> 32));
+        return hash;
+    }
+
+    // --- Packed state (PongMatchEngine slots) ---
+
+    void load(PongMatchEngine engine, int match) {
+        player1Y = engine.player1Y[match];
+        player2Y = engine.player2Y[match];
+        player1Score = engine.player1Score[match];
+        player2Score = engine.player2Score[match];
+        ballX = engine.ballX[match];
+        ballY = engine.ballY[match];
+        previousBallX = engine.previousBallX[match];
+        previousBallY = engine.previousBallY[match];
+        ballSpeedX = engine.ballSpeedX[match];
+        ballSpeedY = engine.ballSpeedY[match];
+        state = STATES[engine.state[match]];
+        serveToPlayer1 = engine.serveToPlayer1[match];
+        paused = engine.paused[match];
+        tick = engine.tick[match];
+        resetTick = engine.resetTick[match];
+        rngState = engine.rngState[match];
+    }
+
+    void store(PongMatchEngine engine, int match) {
+        engine.player1Y[match] = player1Y;
+        engine.player2Y[match] = player2Y;
+        engine.player1Score[match] = player1Score;
+        engine.player2Score[match] = player2Score;
+        engine.ballX[match] = ballX;
+        engine.ballY[match] = ballY;
+        engine.previousBallX[match] = previousBallX;
+        engine.previousBallY[match] = previousBallY;
+        engine.ballSpeedX[match] = ballSpeedX;
+        engine.ballSpeedY[match] = ballSpeedY;
+        engine.state[match] = (byte) state.ordinal();
+        engine.serveToPlayer1[match] = serveToPlayer1;
+        engine.paused[match] = paused;
+        engine.tick[match] = tick;
+        engine.resetTick[match] = resetTick;
+        engine.rngState[match] = rngState;
+    }
+
+    // --- Accessors ---
+
+    public float getCourtWidth() {
+        return courtWidth;
+    }
+
+    public float getCourtHeight() {
+        return courtHeight;
+    }
+
+    public float getPlayer1Y() {
+        return player1Y;
+    }
+
+    public float getPlayer2Y() {
+        return player2Y;
+    }
+
+    public int getPlayer1Score() {
+        return player1Score;
+    }
+
+    public int getPlayer2Score() {
+        return player2Score;
+    }
+
+    public float getBallX() {
+        return ballX;
+    }
+
+    public float getBallY() {
+        return ballY;
+    }
+
+    /** Ball position blended between the last two ticks, {@code alpha} in [0, 1]. */
+    public float getBallX(float alpha) {
+        return previousBallX + (ballX - previousBallX) * alpha;
+    }
+
+    public float getBallY(float alpha) {
+        return previousBallY + (ballY - previousBallY) * alpha;
+    }
+
+    public float getBallSpeedX() {
+        return ballSpeedX;
+    }
+
+    public float getBallSpeedY() {
+        return ballSpeedY;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    /** Seconds of simulated time since the ball was last put back on the serve spot. */
+    public float getTimeSinceReset() {
+        return (tick - resetTick) * FIXED_TIMESTEP;
+    }
+}
@@ -0,0 +1,145 @@
+package com.ponggame;
+
+import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.utils.Disposable;
+
+import java.util.Arrays;
+
+/**
+ * Rate-limits sound effects. Gameplay code only {@link #post}s an event into
+ * a preallocated ring, which allocates nothing and never touches the audio
+ * backend; {@link #update()} drains the ring once per frame. The mixer runs
+ * on the render thread only: the backend's source pool isn't thread-safe and
+ * the render thread already drives it (music, {@code audio.update()}).
+ * <p>
+ * Draining drops repeats of a sound that arrive within its coalescing window
+ * and caps how many voices each sound may have playing, stopping the oldest
+ * voice to make room. All {@link Sound#play}/{@link Sound#stop} calls for
+ * registered sounds must go through the mixer.
+ */
+class SoundMixer implements Disposable {
+    private final Sound[] sounds;
+    private final long[] coalesceNanos;
+    private final long[] lastPlayedNanos;
+    private final long[][] voices;
+    private final int[] nextVoice;
+    private int soundCount;
+
+    // 1. Event ring: written by post(), read by update()
+    private final int[] eventSound;
+    private final float[] eventVolume;
+    private final long[] eventNanos;
+    private final int mask;
+    private long head; // next event to play
+    private long tail; // next event to post
+
+    // 2. Metrics
+    private long played;
+    private long coalesced;
+    private long recycledVoices;
+    private long overflowed;
+
+    SoundMixer(int maxSounds, int queueCapacity) {
+        if (Integer.bitCount(queueCapacity) != 1)
+            throw new IllegalArgumentException("queueCapacity must be a power of two");
+        sounds = new Sound[maxSounds];
+        coalesceNanos = new long[maxSounds];
+        lastPlayedNanos = new long[maxSounds];
+        voices = new long[maxSounds][];
+        nextVoice = new int[maxSounds];
+        eventSound = new int[queueCapacity];
+        eventVolume = new float[queueCapacity];
+        eventNanos = new long[queueCapacity];
+        mask = queueCapacity - 1;
+    }
+
+    /**
+     * Registers a sound and returns its id for {@link #post}. Repeats within
+     * {@code coalesceSeconds} of the last play are dropped, and at most
+     * {@code maxVoices} copies play at once.
+     */
+    int add(Sound sound, int maxVoices, float coalesceSeconds) {
+        int id = soundCount++;
+        sounds[id] = sound;
+        coalesceNanos[id] = (long) (coalesceSeconds * 1e9);
+        lastPlayedNanos[id] = Long.MIN_VALUE / 2;
+        voices[id] = new long[maxVoices];
+        Arrays.fill(voices[id], -1);
+        return id;
+    }
+
+    /**
+     * Queues {@code sound} to be played at {@code volume} on the next
+     * {@link #update()}. Returns false (and counts an overflow) if the queue
+     * is full.
+     */
+    boolean post(int sound, float volume) {
+        if (tail - head > mask) {
+            overflowed++;
+            return false;
+        }
+        int slot = (int) (tail & mask);
+        eventSound[slot] = sound;
+        eventVolume[slot] = volume;
+        eventNanos[slot] = System.nanoTime();
+        tail++;
+        return true;
+    }
+
+    /**
+     * Plays the events posted since the last call; call once per frame.
+     * Returns how many reached the backend (not coalesced).
+     */
+    int update() {
+        long before = played;
+        for (; head != tail; head++) {
+            int slot = (int) (head & mask);
+            play(eventSound[slot], eventVolume[slot], eventNanos[slot]);
+        }
+        return (int) (played - before);
+    }
+
+    private void play(int sound, float volume, long postedNanos) {
+        if (postedNanos - lastPlayedNanos[sound] < coalesceNanos[sound]) {
+            coalesced++;
+            return;
+        }
+        lastPlayedNanos[sound] = postedNanos;
+
+        // Voices are reused round-robin, so the slot holds the oldest one
+        long[] soundVoices = voices[sound];
+        int slot = nextVoice[sound];
+        if (soundVoices[slot] != -1) {
+            sounds[sound].stop(soundVoices[slot]);
+            recycledVoices++;
+        }
+        soundVoices[slot] = sounds[sound].play(volume);
+        nextVoice[sound] = (slot + 1) % soundVoices.length;
+        played++;
+    }
+
+    long getPlayed() {
+        return played;
+    }
+
+    /** Events dropped because the same sound had just played. */
+    long getCoalesced() {
+        return coalesced;
+    }
+
+    /** Plays that had to stop a sound's oldest voice (it may already have ended). */
+    long getRecycledVoices() {
+        return recycledVoices;
+    }
+
+    /** Events dropped because the queue was full. */
+    long getOverflowed() {
+        return overflowed;
+    }
+
+    /** Drops the events not played yet; the sounds themselves are not disposed. */
+    @Override
+    public void dispose() {
+        head = tail;
+    }
+}
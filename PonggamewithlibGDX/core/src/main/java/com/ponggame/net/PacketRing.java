@@ -0,0 +1,55 @@
+package com.ponggame.net;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed-size single-producer/single-consumer queue of packets. Slots are
+ * preallocated so handing packets between the game and network threads
+ * allocates nothing.
+ */
+class PacketRing {
+    private final byte[][] slots;
+    private final int[] lengths;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong(); // next slot to read
+    private final AtomicLong tail = new AtomicLong(); // next slot to write
+
+    PacketRing(int capacity) {
+        if (Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("capacity must be a power of two");
+        slots = new byte[capacity][Transport.MAX_PACKET_SIZE];
+        lengths = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /** Copies the remaining bytes of {@code packet}; false if the ring is full. */
+    boolean offer(ByteBuffer packet) {
+        long t = tail.get();
+        if (t - head.get() > mask)
+            return false;
+        int slot = (int) (t & mask);
+        int length = Math.min(packet.remaining(), Transport.MAX_PACKET_SIZE);
+        packet.get(slots[slot], 0, length);
+        lengths[slot] = length;
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /** Copies the oldest packet into {@code packet} (cleared, then flipped); false if empty. */
+    boolean poll(ByteBuffer packet) {
+        long h = head.get();
+        if (h == tail.get())
+            return false;
+        int slot = (int) (h & mask);
+        packet.clear();
+        packet.put(slots[slot], 0, lengths[slot]);
+        packet.flip();
+        head.lazySet(h + 1);
+        return true;
+    }
+
+    boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+}
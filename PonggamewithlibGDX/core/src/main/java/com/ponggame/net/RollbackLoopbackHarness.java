@@ -0,0 +1,190 @@
+package com.ponggame.net;
+
+import com.ponggame.PongInput;
+import com.ponggame.PongSimulation;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Plays two bot-driven {@link RollbackSession}s against each other over real
+ * UDP sockets on the loopback interface, with latency, jitter and loss added
+ * by {@link SimulatedLink}s, in real time at 120 Hz.
+ * <p>
+ * At the end it checks that both peers computed identical states for every
+ * confirmed frame and prints the rollback metrics. Before that, a scripted
+ * check delivers a mispredicted frame and a frame a whole rollback window
+ * after it in the same receive drain, and checks the rollback still replays
+ * the right inputs.
+ * <pre>
+ * RollbackLoopbackHarness [latencyMs=60] [jitterMs=20] [loss=0.05] [seconds=20] [basePort=47001]
+ * </pre>
+ */
+public class RollbackLoopbackHarness {
+    public static void main(String[] args) throws IOException {
+        long latency = args.length > 0 ? Long.parseLong(args[0]) : 60;
+        long jitter = args.length > 1 ? Long.parseLong(args[1]) : 20;
+        float loss = args.length > 2 ? Float.parseFloat(args[2]) : 0.05f;
+        double seconds = args.length > 3 ? Double.parseDouble(args[3]) : 20;
+        int basePort = args.length > 4 ? Integer.parseInt(args[4]) : 47001;
+
+        if (!checkFarAheadDrain()) {
+            System.out.println("FAILED: far-ahead frame overwrote the input of a pending rollback");
+            System.exit(1);
+        }
+        System.out.println("Far-ahead drain check passed");
+
+        InetSocketAddress addressA = new InetSocketAddress("127.0.0.1", basePort);
+        InetSocketAddress addressB = new InetSocketAddress("127.0.0.1", basePort + 1);
+        long seed = System.nanoTime();
+        int frames = (int) (seconds / PongSimulation.FIXED_TIMESTEP);
+
+        try (UdpTransport udpA = new UdpTransport(addressA, addressB);
+                UdpTransport udpB = new UdpTransport(addressB, addressA)) {
+            SimulatedLink linkA = new SimulatedLink(udpA, latency, jitter, loss, seed);
+            SimulatedLink linkB = new SimulatedLink(udpB, latency, jitter, loss, seed + 1);
+
+            PongSimulation simulationA = new PongSimulation(800, 600, seed);
+            PongSimulation simulationB = new PongSimulation(800, 600, seed);
+            RollbackSession sessionA = new RollbackSession(simulationA, 1, linkA);
+            RollbackSession sessionB = new RollbackSession(simulationB, 2, linkB);
+            int[] checksumsA = new int[frames];
+            int[] checksumsB = new int[frames];
+            sessionA.setChecksumLog(checksumsA);
+            sessionB.setChecksumLog(checksumsB);
+
+            Bot botA = new Bot(1, seed + 2);
+            Bot botB = new Bot(2, seed + 3);
+            long tickNanos = (long) (PongSimulation.FIXED_TIMESTEP * 1e9);
+            long next = System.nanoTime();
+            long end = next + (long) (seconds * 1e9);
+
+            while (System.nanoTime() < end) {
+                linkA.pump();
+                linkB.pump();
+                sessionA.advance(botA.input(simulationA));
+                sessionB.advance(botB.input(simulationB));
+
+                next += tickNanos;
+                long wait = next - System.nanoTime();
+                if (wait > 0)
+                    LockSupport.parkNanos(wait);
+            }
+
+            int compared = Math.min(sessionA.getChecksummedFrames(), sessionB.getChecksummedFrames());
+            int firstDesync = -1;
+            for (int i = 0; i < compared && firstDesync < 0; i++) {
+                if (checksumsA[i] != checksumsB[i])
+                    firstDesync = i;
+            }
+
+            System.out.printf("Link: %dms +%dms jitter, %.0f%% loss, %.1fs%n", latency, jitter, loss * 100, seconds);
+            report("Peer A", sessionA, linkA);
+            report("Peer B", sessionB, linkB);
+            System.out.printf("Score A %d-%d, B %d-%d%n",
+                    simulationA.getPlayer1Score(), simulationA.getPlayer2Score(),
+                    simulationB.getPlayer1Score(), simulationB.getPlayer2Score());
+            if (firstDesync >= 0)
+                System.out.printf("DESYNC at confirmed frame %d of %d%n", firstDesync, compared);
+            else
+                System.out.printf("In sync: %d confirmed frames identical on both peers%n", compared);
+        }
+    }
+
+    // The local peer runs 10 frames predicting an idle remote paddle, then gets
+    // one packet confirming frames 0-79: frame 5 was actually "up" (a
+    // misprediction) and frame 69, which shares its ring slot, "down"
+    private static boolean checkFarAheadDrain() {
+        long seed = 42;
+        int ahead = 10, misprediction = 5, far = misprediction + RollbackSession.MAX_ROLLBACK;
+        int[] remote = new int[80];
+        for (int frame = 0; frame < remote.length; frame++)
+            remote[frame] = frame < misprediction ? PongInput.NONE
+                    : frame < far ? PongInput.P2_UP : PongInput.P2_DOWN;
+
+        ScriptedTransport transport = new ScriptedTransport();
+        PongSimulation simulation = new PongSimulation(800, 600, seed);
+        RollbackSession session = new RollbackSession(simulation, 1, transport);
+        for (int frame = 0; frame < ahead; frame++)
+            session.advance(PongInput.NONE);
+
+        ByteBuffer packet = ByteBuffer.allocate(Transport.MAX_PACKET_SIZE);
+        packet.putInt(-1).putInt(0).put((byte) remote.length);
+        for (int input : remote)
+            packet.put((byte) input);
+        packet.flip();
+        transport.deliver(packet);
+        session.advance(PongInput.NONE); // rolls back, then simulates frame 10
+
+        PongSimulation expected = new PongSimulation(800, 600, seed);
+        for (int frame = 0; frame <= ahead; frame++)
+            expected.step(remote[frame]);
+        return simulation.checksum() == expected.checksum();
+    }
+
+    /** In-memory transport: packets handed to deliver() are received in order, sends are dropped. */
+    private static class ScriptedTransport implements Transport {
+        private final ArrayDeque<byte[]> inbox = new ArrayDeque<>();
+
+        void deliver(ByteBuffer packet) {
+            byte[] bytes = new byte[packet.remaining()];
+            packet.get(bytes);
+            inbox.add(bytes);
+        }
+
+        @Override
+        public boolean send(ByteBuffer packet) {
+            return true;
+        }
+
+        @Override
+        public boolean receive(ByteBuffer packet) {
+            byte[] bytes = inbox.poll();
+            if (bytes == null)
+                return false;
+            packet.clear();
+            packet.put(bytes);
+            packet.flip();
+            return true;
+        }
+    }
+
+    private static void report(String name, RollbackSession session, SimulatedLink link) {
+        System.out.printf("%s: frame %d, %d rollbacks (avg depth %.1f, max %d), "
+                        + "%d frames re-simulated at %.0f frames/s, %d stalled ticks, %d/%d packets dropped%n",
+                name, session.getCurrentFrame(), session.getRollbacks(), session.getAverageRollbackDepth(),
+                session.getMaxRollbackDepth(), session.getResimulatedFrames(),
+                session.getResimulatedFramesPerSecond(), session.getStalledTicks(),
+                link.getDropped(), link.getSent());
+    }
+
+    /** Follows the ball with some hesitation so that its input is hard to predict. */
+    private static class Bot {
+        private final int player;
+        private final Random random;
+        private int held;
+
+        Bot(int player, long seed) {
+            this.player = player;
+            this.random = new Random(seed);
+        }
+
+        int input(PongSimulation simulation) {
+            if (simulation.getState() == PongSimulation.State.SERVING && random.nextInt(60) == 0)
+                return PongInput.SERVE;
+            if (simulation.getState() == PongSimulation.State.GAME_OVER && player == 1 && random.nextInt(60) == 0)
+                return PongInput.RESTART;
+            if (random.nextInt(8) == 0) {
+                float paddleY = player == 1 ? simulation.getPlayer1Y() : simulation.getPlayer2Y();
+                float target = simulation.getBallY() - PongSimulation.PADDLE_HEIGHT / 2f;
+                held = paddleY < target - 10 ? PongInput.P1_UP
+                        : paddleY > target + 10 ? PongInput.P1_DOWN : PongInput.NONE;
+            }
+            return held;
+        }
+    }
+}
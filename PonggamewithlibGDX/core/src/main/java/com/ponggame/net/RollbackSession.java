@@ -0,0 +1,276 @@
+package com.ponggame.net;
+
+import com.ponggame.PongInput;
+import com.ponggame.PongSimulation;
+
+import java.nio.ByteBuffer;
+
+/**
+ * GGPO-style rollback for a two-player {@link PongSimulation}.
+ * <p>
+ * Every tick the local input is applied immediately and sent to the peer,
+ * together with every earlier input the peer has not acknowledged yet (so a
+ * lost packet is repaired by the next one). The remote paddle is predicted by
+ * repeating the last confirmed remote held buttons. When a remote input
+ * arrives that differs from what was predicted, the simulation is restored
+ * from the snapshot taken before that tick and re-simulated to the present.
+ * <p>
+ * Snapshots are whole {@link PongSimulation} copies kept in a preallocated
+ * ring; a tick allocates nothing. Both peers must start from simulations
+ * built with the same court size and seed.
+ */
+public class RollbackSession {
+    /** Frames the simulation may run ahead of the last confirmed remote input. */
+    public static final int MAX_ROLLBACK = 64;
+
+    private static final int RING_MASK = MAX_ROLLBACK - 1;
+    // Local inputs stay around until the peer acknowledges them, which can
+    // lag a full rollback window behind the remote frames we have confirmed.
+    // Remote inputs are kept as long, until their frame has been reported
+    // confirmed
+    private static final int INPUT_HISTORY = 2 * MAX_ROLLBACK;
+    private static final int INPUT_MASK = INPUT_HISTORY - 1;
+    private static final int PACKET_HEADER_SIZE = 9;
+    private static final int MAX_INPUTS_PER_PACKET = Math.min(MAX_ROLLBACK,
+            Transport.MAX_PACKET_SIZE - PACKET_HEADER_SIZE);
+
+    private final PongSimulation simulation;
+    private final int localPlayer;
+    private final Transport transport;
+
+    // 1. Per-frame history, indexed by frame & RING_MASK (INPUT_MASK for inputs)
+    private final PongSimulation[] snapshots = new PongSimulation[MAX_ROLLBACK];
+    private final int[] localInputs = new int[INPUT_HISTORY];
+    private final int[] remoteInputs = new int[INPUT_HISTORY];
+
+    // 2. Frame counters
+    private int currentFrame;           // next frame to simulate
+    private int lastConfirmedRemote = -1;
+    private int lastAckedByRemote = -1;
+    private int lastConfirmedInput = PongInput.NONE;
+    private int rollbackFrame = -1;
+
+    // 3. Optional log of confirmed-state checksums, indexed by frame, and
+    // listener for confirmed frames
+    private int[] checksumLog;
+    private ConfirmedFrameListener confirmedFrameListener;
+    private int nextConfirmedFrame;
+
+    // 4. Metrics
+    private long rollbacks;
+    private long resimulatedFrames;
+    private long resimulationNanos;
+    private int maxRollbackDepth;
+    private long stalledTicks;
+
+    private final ByteBuffer packet = ByteBuffer.allocate(Transport.MAX_PACKET_SIZE);
+
+    /** Hears about every frame once both inputs are known, in frame order. */
+    public interface ConfirmedFrameListener {
+        /**
+         * @param input both players' input for the frame, as passed to {@link PongSimulation#step(int)}
+         * @param after the state after the frame; only valid during the call
+         */
+        void onConfirmedFrame(int frame, int input, PongSimulation after);
+    }
+
+    /**
+     * @param localPlayer 1 or 2; the local input uses the {@link PongInput#P1_UP}
+     *                    / {@link PongInput#P1_DOWN} bits whichever paddle it drives
+     */
+    public RollbackSession(PongSimulation simulation, int localPlayer, Transport transport) {
+        if (localPlayer != 1 && localPlayer != 2)
+            throw new IllegalArgumentException("localPlayer must be 1 or 2");
+        this.simulation = simulation;
+        this.localPlayer = localPlayer;
+        this.transport = transport;
+        for (int i = 0; i < MAX_ROLLBACK; i++) {
+            snapshots[i] = new PongSimulation(simulation.getCourtWidth(), simulation.getCourtHeight(), 0);
+        }
+    }
+
+    /** Records the checksum of every confirmed frame into {@code log} (until it is full). */
+    public void setChecksumLog(int[] log) {
+        this.checksumLog = log;
+    }
+
+    /** Reports every confirmed frame, e.g. to record the match as a replay. */
+    public void setConfirmedFrameListener(ConfirmedFrameListener listener) {
+        this.confirmedFrameListener = listener;
+    }
+
+    /**
+     * Runs one tick with {@code localInput}. Returns false, without advancing,
+     * when the peer is so far behind that the rollback window is exhausted.
+     */
+    public boolean advance(int localInput) {
+        receive();
+        rollbackIfNeeded();
+        reportConfirmedFrames();
+
+        if (currentFrame - lastConfirmedRemote >= MAX_ROLLBACK
+                || currentFrame - lastAckedByRemote >= INPUT_HISTORY) {
+            stalledTicks++;
+            send();
+            return false;
+        }
+
+        int slot = currentFrame & INPUT_MASK;
+        int input = toPlayerBits(localInput);
+        localInputs[slot] = input;
+        if (currentFrame > lastConfirmedRemote)
+            remoteInputs[slot] = predictRemote();
+        snapshots[currentFrame & RING_MASK].set(simulation);
+        simulation.step(input | remoteInputs[slot]);
+        currentFrame++;
+
+        send();
+        return true;
+    }
+
+    // Maps the local W/S style input onto this player's paddle bits
+    private int toPlayerBits(int input) {
+        if (localPlayer == 1)
+            return input & ~(PongInput.P2_UP | PongInput.P2_DOWN);
+        int bits = input & PongInput.PRESSED_MASK;
+        if (PongInput.has(input, PongInput.P1_UP))
+            bits |= PongInput.P2_UP;
+        if (PongInput.has(input, PongInput.P1_DOWN))
+            bits |= PongInput.P2_DOWN;
+        return bits;
+    }
+
+    private int predictRemote() {
+        // Held buttons tend to stay held; presses are never guessed
+        return lastConfirmedInput & PongInput.HELD_MASK;
+    }
+
+    private void receive() {
+        while (transport.receive(packet)) {
+            if (packet.remaining() < PACKET_HEADER_SIZE)
+                continue;
+            int ack = packet.getInt();
+            int startFrame = packet.getInt();
+            int count = packet.get() & 0xFF;
+            if (ack > lastAckedByRemote)
+                lastAckedByRemote = ack;
+
+            for (int i = 0; i < count && packet.hasRemaining(); i++) {
+                int frame = startFrame + i;
+                int input = packet.get() & 0xFF;
+                // Only accept the next contiguous frame; redundancy fills any gaps
+                if (frame != lastConfirmedRemote + 1)
+                    continue;
+                // Never confirm more than a rollback window past the oldest
+                // frame a pending rollback will replay (or the present)
+                if (frame >= (rollbackFrame >= 0 ? rollbackFrame : currentFrame) + MAX_ROLLBACK)
+                    break;
+                int slot = frame & INPUT_MASK;
+                if (frame < currentFrame && remoteInputs[slot] != input
+                        && (rollbackFrame < 0 || frame < rollbackFrame)) {
+                    rollbackFrame = frame;
+                }
+                remoteInputs[slot] = input;
+                lastConfirmedRemote = frame;
+                lastConfirmedInput = input;
+            }
+        }
+    }
+
+    private void rollbackIfNeeded() {
+        if (rollbackFrame < 0)
+            return;
+        long start = System.nanoTime();
+        int depth = currentFrame - rollbackFrame;
+        PongSimulation.Listener listener = simulation.getListener();
+        simulation.setListener(null); // events of replayed frames were already heard
+
+        simulation.set(snapshots[rollbackFrame & RING_MASK]);
+        for (int frame = rollbackFrame; frame < currentFrame; frame++) {
+            int slot = frame & INPUT_MASK;
+            if (frame > lastConfirmedRemote)
+                remoteInputs[slot] = predictRemote();
+            snapshots[frame & RING_MASK].set(simulation);
+            simulation.step(localInputs[slot] | remoteInputs[slot]);
+        }
+
+        simulation.setListener(listener);
+        rollbacks++;
+        resimulatedFrames += depth;
+        maxRollbackDepth = Math.max(maxRollbackDepth, depth);
+        resimulationNanos += System.nanoTime() - start;
+        rollbackFrame = -1;
+    }
+
+    private void reportConfirmedFrames() {
+        if (checksumLog == null && confirmedFrameListener == null)
+            return;
+        int confirmed = Math.min(lastConfirmedRemote, currentFrame - 1);
+        while (nextConfirmedFrame <= confirmed) {
+            int frame = nextConfirmedFrame++;
+            int after = frame + 1;
+            PongSimulation state = after == currentFrame ? simulation : snapshots[after & RING_MASK];
+            if (checksumLog != null && frame < checksumLog.length)
+                checksumLog[frame] = state.checksum();
+            if (confirmedFrameListener != null) {
+                int slot = frame & INPUT_MASK;
+                confirmedFrameListener.onConfirmedFrame(frame, localInputs[slot] | remoteInputs[slot], state);
+            }
+        }
+    }
+
+    private void send() {
+        // Oldest unacknowledged inputs first: the peer only accepts them in order
+        int first = lastAckedByRemote + 1;
+        int count = Math.min(currentFrame - first, MAX_INPUTS_PER_PACKET);
+        packet.clear();
+        packet.putInt(lastConfirmedRemote);
+        packet.putInt(first);
+        packet.put((byte) count);
+        for (int frame = first; frame < first + count; frame++) {
+            packet.put((byte) localInputs[frame & INPUT_MASK]);
+        }
+        packet.flip();
+        transport.send(packet);
+    }
+
+    // --- Metrics ---
+
+    public int getCurrentFrame() {
+        return currentFrame;
+    }
+
+    public int getLastConfirmedRemoteFrame() {
+        return lastConfirmedRemote;
+    }
+
+    /** Frames confirmed (both inputs known) whose checksum went into the log. */
+    public int getChecksummedFrames() {
+        return checksumLog == null ? 0 : Math.min(nextConfirmedFrame, checksumLog.length);
+    }
+
+    public long getRollbacks() {
+        return rollbacks;
+    }
+
+    public int getMaxRollbackDepth() {
+        return maxRollbackDepth;
+    }
+
+    public double getAverageRollbackDepth() {
+        return rollbacks == 0 ? 0 : resimulatedFrames / (double) rollbacks;
+    }
+
+    public long getResimulatedFrames() {
+        return resimulatedFrames;
+    }
+
+    /** Re-simulation speed while rolling back, in frames per second of CPU time. */
+    public double getResimulatedFramesPerSecond() {
+        return resimulationNanos == 0 ? 0 : resimulatedFrames * 1e9 / resimulationNanos;
+    }
+
+    public long getStalledTicks() {
+        return stalledTicks;
+    }
+}
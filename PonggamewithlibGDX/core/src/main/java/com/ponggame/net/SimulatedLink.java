@@ -0,0 +1,85 @@
+package com.ponggame.net;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * Wraps a {@link Transport} and degrades the outgoing direction: packets are
+ * held back by a latency plus random jitter (which may reorder them) and a
+ * share of them is dropped. {@link #pump()} hands due packets to the real
+ * transport and must be called regularly.
+ */
+public class SimulatedLink implements Transport {
+    private static final int CAPACITY = 1024;
+
+    private final Transport transport;
+    private final long latencyNanos;
+    private final long jitterNanos;
+    private final float lossRate;
+    private final Random random;
+
+    private final byte[][] packets = new byte[CAPACITY][MAX_PACKET_SIZE];
+    private final int[] lengths = new int[CAPACITY];
+    private final long[] releaseTimes = new long[CAPACITY];
+    private final boolean[] used = new boolean[CAPACITY];
+    private final ByteBuffer release = ByteBuffer.allocate(MAX_PACKET_SIZE);
+
+    private long sent;
+    private long dropped;
+
+    public SimulatedLink(Transport transport, long latencyMillis, long jitterMillis, float lossRate, long seed) {
+        this.transport = transport;
+        this.latencyNanos = latencyMillis * 1_000_000L;
+        this.jitterNanos = jitterMillis * 1_000_000L;
+        this.lossRate = lossRate;
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public boolean send(ByteBuffer packet) {
+        sent++;
+        if (random.nextFloat() < lossRate) {
+            dropped++;
+            return true;
+        }
+        for (int i = 0; i < CAPACITY; i++) {
+            if (!used[i]) {
+                lengths[i] = Math.min(packet.remaining(), MAX_PACKET_SIZE);
+                packet.get(packets[i], 0, lengths[i]);
+                long jitter = jitterNanos > 0 ? (long) (random.nextDouble() * jitterNanos) : 0;
+                releaseTimes[i] = System.nanoTime() + latencyNanos + jitter;
+                used[i] = true;
+                return true;
+            }
+        }
+        dropped++;
+        return false;
+    }
+
+    @Override
+    public boolean receive(ByteBuffer packet) {
+        return transport.receive(packet);
+    }
+
+    /** Sends every held packet whose delay has elapsed. */
+    public void pump() {
+        long now = System.nanoTime();
+        for (int i = 0; i < CAPACITY; i++) {
+            if (used[i] && releaseTimes[i] <= now) {
+                release.clear();
+                release.put(packets[i], 0, lengths[i]);
+                release.flip();
+                transport.send(release);
+                used[i] = false;
+            }
+        }
+    }
+
+    public long getSent() {
+        return sent;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+}
@@ -0,0 +1,21 @@
+package com.ponggame.net;
+
+import java.nio.ByteBuffer;
+
+/** Unreliable, unordered datagram link to the other player. */
+public interface Transport {
+    /** Maximum size of one packet in bytes. */
+    int MAX_PACKET_SIZE = 256;
+
+    /**
+     * Queues the bytes between the buffer's position and limit for sending.
+     * Returns false (and drops the packet) if the outbound queue is full.
+     */
+    boolean send(ByteBuffer packet);
+
+    /**
+     * Copies the next received packet into {@code packet}, cleared and then
+     * flipped for reading. Returns false if nothing has arrived.
+     */
+    boolean receive(ByteBuffer packet);
+}
@@ -0,0 +1,116 @@
+package com.ponggame.net;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+
+/**
+ * {@link Transport} over a non-blocking NIO {@link DatagramChannel}. All socket
+ * I/O happens on a daemon network thread; the game thread only copies packets
+ * in and out of two preallocated {@link PacketRing}s, so it never blocks on
+ * the network.
+ */
+public class UdpTransport implements Transport, Closeable {
+    private static final int RING_CAPACITY = 256;
+    private static final long SELECT_TIMEOUT_MS = 1;
+
+    private final DatagramChannel channel;
+    private final Selector selector;
+    private final SocketAddress remote;
+    private final PacketRing outbound = new PacketRing(RING_CAPACITY);
+    private final PacketRing inbound = new PacketRing(RING_CAPACITY);
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    // Network-thread buffer
+    private final ByteBuffer ioBuffer = ByteBuffer.allocateDirect(MAX_PACKET_SIZE);
+
+    // Counters (written by the network thread)
+    private volatile long packetsSent;
+    private volatile long packetsReceived;
+
+    public UdpTransport(InetSocketAddress local, InetSocketAddress remote) throws IOException {
+        this.remote = remote;
+        channel = DatagramChannel.open();
+        channel.bind(local);
+        channel.configureBlocking(false);
+        selector = Selector.open();
+        channel.register(selector, SelectionKey.OP_READ);
+
+        thread = new Thread(this::run, "pong-udp-" + channel.getLocalAddress());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public InetSocketAddress getLocalAddress() throws IOException {
+        return (InetSocketAddress) channel.getLocalAddress();
+    }
+
+    @Override
+    public boolean send(ByteBuffer packet) {
+        return outbound.offer(packet);
+    }
+
+    @Override
+    public boolean receive(ByteBuffer packet) {
+        return inbound.poll(packet);
+    }
+
+    public long getPacketsSent() {
+        return packetsSent;
+    }
+
+    public long getPacketsReceived() {
+        return packetsReceived;
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                selector.select(SELECT_TIMEOUT_MS);
+                selector.selectedKeys().clear();
+
+                // Drain everything that arrived; drop packets from strangers
+                SocketAddress from;
+                while (true) {
+                    ioBuffer.clear();
+                    from = channel.receive(ioBuffer);
+                    if (from == null)
+                        break;
+                    if (!from.equals(remote))
+                        continue;
+                    ioBuffer.flip();
+                    if (inbound.offer(ioBuffer))
+                        packetsReceived++;
+                }
+
+                // Flush what the game queued
+                while (outbound.poll(ioBuffer)) {
+                    channel.send(ioBuffer, remote);
+                    packetsSent++;
+                }
+            }
+        } catch (IOException e) {
+            if (running)
+                System.err.println("UdpTransport stopped: " + e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        selector.close();
+        channel.close();
+    }
+}
@@ -0,0 +1,73 @@
+package com.ponggame.headless;
+
+import com.badlogic.gdx.backends.headless.mock.graphics.MockGraphics;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.GL30;
+
+/**
+ * {@code Graphics} for "mock" mode. The headless backend's {@link MockGraphics}
+ * reports a 0x0 screen and a wall-clock delta time; this one fixes the size
+ * and advances the same step every frame, so every run plays out the same
+ * number of simulation ticks and timings stay comparable.
+ */
+class FixedStepGraphics extends MockGraphics {
+    private final int width, height;
+    private final float step;
+    private final GL20 gl = MockGL.create();
+
+    FixedStepGraphics(int width, int height, float step) {
+        this.width = width;
+        this.height = height;
+        this.step = step;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getBackBufferWidth() {
+        return width;
+    }
+
+    @Override
+    public int getBackBufferHeight() {
+        return height;
+    }
+
+    @Override
+    public float getDeltaTime() {
+        return step;
+    }
+
+    @Override
+    public float getRawDeltaTime() {
+        return step;
+    }
+
+    @Override
+    public int getFramesPerSecond() {
+        return Math.round(1 / step);
+    }
+
+    @Override
+    public GL20 getGL20() {
+        return gl;
+    }
+
+    @Override
+    public GL30 getGL30() {
+        return null;
+    }
+
+    @Override
+    public boolean isGL30Available() {
+        return false;
+    }
+}
@@ -0,0 +1,172 @@
+package com.ponggame.headless;
+
+import com.badlogic.gdx.ApplicationListener;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.PixmapIO;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.zip.Deflater;
+
+/**
+ * Wraps the game and runs it for {@code frames} frames, timing every
+ * {@code render()}: wall-clock time and CPU time of the render thread. At the
+ * end it writes a CSV ({@code frame,wall_ms,cpu_ms}) with every frame and
+ * prints a summary (mean, p50, p95, p99 and max) without the warm-up
+ * frames.
+ * <p>
+ * Optionally saves the framebuffer as a PNG every {@code dumpEvery} frames
+ * (only meaningful with a real GL); reading it back is not timed.
+ */
+class FrameTimingListener implements ApplicationListener {
+    // 1. Game and settings
+    private final ApplicationListener game;
+    private final int frames;
+    private final int warmup;
+    private final File csv;
+    private int dumpEvery;
+    private File dumpDir;
+    private boolean finish;
+    private FixedStepGraphics mockGraphics;
+
+    // 2. Per-frame timings
+    private final long[] wallNanos;
+    private final long[] cpuNanos;
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private int frame;
+
+    FrameTimingListener(ApplicationListener game, int frames, int warmup, File csv) {
+        this.game = game;
+        if (frames < 1)
+            throw new IllegalArgumentException("frames must be at least 1");
+        this.frames = frames;
+        this.warmup = Math.max(0, Math.min(warmup, frames - 1));
+        this.csv = csv;
+        wallNanos = new long[frames];
+        cpuNanos = new long[frames];
+    }
+
+    /** Saves the framebuffer to {@code dir} every {@code every} frames. */
+    void setDumps(int every, File dir) {
+        dumpEvery = every;
+        dumpDir = dir;
+    }
+
+    /** Waits for the GPU ({@code glFinish}) inside each frame's timing. */
+    void setFinish(boolean finish) {
+        this.finish = finish;
+    }
+
+    /** "mock" mode: installs {@code graphics} and its GL before creating the game. */
+    void setMockGraphics(FixedStepGraphics graphics) {
+        mockGraphics = graphics;
+    }
+
+    @Override
+    public void create() {
+        if (mockGraphics != null) {
+            Gdx.graphics = mockGraphics;
+            Gdx.gl = Gdx.gl20 = mockGraphics.getGL20();
+            Gdx.gl30 = null;
+        }
+        long start = System.nanoTime();
+        game.create();
+        System.out.printf(Locale.ROOT, "create(): %.1f ms%n", (System.nanoTime() - start) / 1e6);
+    }
+
+    // The headless backend passes 0x0; the real size is Gdx.graphics'
+    @Override
+    public void resize(int width, int height) {
+        game.resize(Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
+    }
+
+    @Override
+    public void render() {
+        if (frame >= frames)
+            return;
+        long cpuStart = threads.getCurrentThreadCpuTime();
+        long start = System.nanoTime();
+        game.render();
+        if (finish)
+            Gdx.gl.glFinish();
+        wallNanos[frame] = System.nanoTime() - start;
+        cpuNanos[frame] = threads.getCurrentThreadCpuTime() - cpuStart;
+
+        if (dumpEvery > 0 && frame % dumpEvery == 0)
+            dump(new File(dumpDir, String.format(Locale.ROOT, "frame-%05d.png", frame)));
+        if (++frame == frames)
+            Gdx.app.exit();
+    }
+
+    private void dump(File file) {
+        int width = Gdx.graphics.getBackBufferWidth();
+        int height = Gdx.graphics.getBackBufferHeight();
+        Pixmap pixmap = Pixmap.createFromFrameBuffer(0, 0, width, height);
+        try {
+            PixmapIO.writePNG(Gdx.files.absolute(file.getAbsolutePath()), pixmap, Deflater.DEFAULT_COMPRESSION, true);
+        } finally {
+            pixmap.dispose();
+        }
+    }
+
+    @Override
+    public void pause() {
+        game.pause();
+    }
+
+    @Override
+    public void resume() {
+        game.resume();
+    }
+
+    @Override
+    public void dispose() {
+        game.dispose();
+        writeCsv();
+        printSummary();
+    }
+
+    private void writeCsv() {
+        try (PrintWriter out = new PrintWriter(csv, "UTF-8")) {
+            out.println("frame,wall_ms,cpu_ms");
+            for (int i = 0; i < frame; i++)
+                out.printf(Locale.ROOT, "%d,%.4f,%.4f%n", i, wallNanos[i] / 1e6, cpuNanos[i] / 1e6);
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Could not write " + csv, e);
+        }
+    }
+
+    private void printSummary() {
+        int measured = frame - warmup;
+        if (measured <= 0) {
+            System.out.println("No frames measured");
+            return;
+        }
+        long[] wall = Arrays.copyOfRange(wallNanos, warmup, frame);
+        long[] cpu = Arrays.copyOfRange(cpuNanos, warmup, frame);
+        System.out.printf(Locale.ROOT, "%d frames (+%d warm-up) -> %s%n", measured, warmup, csv);
+        System.out.printf(Locale.ROOT, "  wall: %s%n", stats(wall));
+        System.out.printf(Locale.ROOT, "  CPU:  %s%n", stats(cpu));
+    }
+
+    private static String stats(long[] nanos) {
+        long sum = 0;
+        for (long value : nanos)
+            sum += value;
+        Arrays.sort(nanos);
+        return String.format(Locale.ROOT, "mean %.3f ms, p50 %.3f, p95 %.3f, p99 %.3f, max %.3f",
+                sum / 1e6 / nanos.length, percentile(nanos, 0.50), percentile(nanos, 0.95),
+                percentile(nanos, 0.99), nanos[nanos.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)] / 1e6;
+    }
+}
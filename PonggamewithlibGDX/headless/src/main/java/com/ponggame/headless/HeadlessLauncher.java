@@ -0,0 +1,108 @@
+package com.ponggame.headless;
+
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.backends.lwjgl3.Lwjgl3Application;
+import com.badlogic.gdx.backends.lwjgl3.Lwjgl3ApplicationConfiguration;
+import com.ponggame.PongAi;
+import com.ponggame.PongGame;
+
+import java.io.File;
+import java.util.Locale;
+
+/**
+ * Runs the game for a fixed number of frames without a visible window and
+ * records per-frame timings (see {@link FrameTimingListener}). Both paddles
+ * are computer-controlled so every frame has rallies to simulate and draw.
+ * <pre>
+ * HeadlessLauncher [--frames 600] [--warmup 60] [--size 800x600] [--gl mock|software]
+ *                  [--cpu EASY|MEDIUM|HARD] [--csv frames.csv]
+ *                  [--dump-every N] [--dump-dir dumps] [--finish]
+ * </pre>
+ */
+public class HeadlessLauncher {
+    private static final String USAGE = "Usage: HeadlessLauncher [--frames 600] [--warmup 60] [--size 800x600]"
+            + " [--gl mock|software] [--cpu EASY|MEDIUM|HARD] [--csv frames.csv]"
+            + " [--dump-every N] [--dump-dir dumps] [--finish]";
+
+    public static void main(String[] args) {
+        String gl = "mock";
+        int frames = 600, warmup = 60, width = 800, height = 600, dumpEvery = 0;
+        PongAi.Difficulty difficulty = PongAi.Difficulty.HARD;
+        File csv = new File("frames.csv");
+        File dumpDir = new File("dumps");
+        boolean finish = false;
+        for (int i = 0; i < args.length; i++) {
+            boolean hasValue = i + 1 < args.length;
+            if (args[i].equals("--frames") && hasValue)
+                frames = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--warmup") && hasValue)
+                warmup = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--size") && hasValue) {
+                String[] size = args[++i].split("x");
+                width = Integer.parseInt(size[0]);
+                height = Integer.parseInt(size[1]);
+            } else if (args[i].equals("--gl") && hasValue)
+                gl = args[++i];
+            else if (args[i].equals("--cpu") && hasValue)
+                difficulty = PongAi.Difficulty.valueOf(args[++i].toUpperCase(Locale.ROOT));
+            else if (args[i].equals("--csv") && hasValue)
+                csv = new File(args[++i]);
+            else if (args[i].equals("--dump-every") && hasValue)
+                dumpEvery = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--dump-dir") && hasValue)
+                dumpDir = new File(args[++i]);
+            else if (args[i].equals("--finish"))
+                finish = true;
+            else
+                usage("Unknown argument: " + args[i]);
+        }
+        if (frames < 1)
+            usage("--frames must be at least 1");
+        if (warmup < 0)
+            usage("--warmup can't be negative");
+
+        PongGame game = new PongGame();
+        game.setCpuPlayer(1, difficulty);
+        game.setCpuPlayer(2, difficulty);
+        FrameTimingListener listener = new FrameTimingListener(game, frames, warmup, csv);
+        listener.setFinish(finish);
+        if (gl.equals("mock")) {
+            // No pixels to dump: the mock GL draws nothing
+            if (dumpEvery > 0)
+                System.out.println("--dump-every needs --gl software; ignored");
+            listener.setMockGraphics(new FixedStepGraphics(width, height, 1 / 60f));
+            HeadlessApplicationConfiguration configuration = new HeadlessApplicationConfiguration();
+            configuration.updatesPerSecond = 0; // Never sleep between frames
+            new HeadlessApplication(listener, configuration);
+        } else if (gl.equals("software")) {
+            if (dumpEvery > 0) {
+                dumpDir.mkdirs();
+                listener.setDumps(dumpEvery, dumpDir);
+            }
+            new Lwjgl3Application(listener, getSoftwareConfiguration(width, height));
+        } else {
+            usage("Unknown GL: " + gl);
+        }
+    }
+
+    private static void usage(String problem) {
+        System.err.println(problem);
+        System.err.println(USAGE);
+        System.exit(2);
+    }
+
+    // A real GL context in a window that is never shown. Without a GPU, run it
+    // under Xvfb with LIBGL_ALWAYS_SOFTWARE=1 so Mesa uses llvmpipe.
+    private static Lwjgl3ApplicationConfiguration getSoftwareConfiguration(int width, int height) {
+        Lwjgl3ApplicationConfiguration configuration = new Lwjgl3ApplicationConfiguration();
+        configuration.setTitle("PongGame (headless)");
+        configuration.setWindowedMode(width, height);
+        configuration.setResizable(false);
+        configuration.setInitialVisible(false);
+        configuration.useVsync(false);
+        configuration.setForegroundFPS(0);
+        configuration.setIdleFPS(0);
+        return configuration;
+    }
+}
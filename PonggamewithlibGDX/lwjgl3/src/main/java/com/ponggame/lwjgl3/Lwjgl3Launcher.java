@@ -2,18 +2,50 @@ package com.ponggame.lwjgl3;
 
 import com.badlogic.gdx.backends.lwjgl3.Lwjgl3Application;
 import com.badlogic.gdx.backends.lwjgl3.Lwjgl3ApplicationConfiguration;
+import com.ponggame.PongAi;
 import com.ponggame.PongGame;
 
+import java.net.InetSocketAddress;
+import java.util.Locale;
+
 /** Launches the desktop (LWJGL3) application. */
 public class Lwjgl3Launcher {
     public static void main(String[] args) {
         if (StartupHelper.startNewJvmIfRequired())
             return; // This handles macOS support and helps on Windows.
-        createApplication();
+        createApplication(args);
     }
 
-    private static Lwjgl3Application createApplication() {
-        return new Lwjgl3Application(new PongGame(), getDefaultConfiguration());
+    private static Lwjgl3Application createApplication(String[] args) {
+        // --record <file> saves a replay that PongReplayReader can re-simulate
+        // (in a net match, of every frame both peers' inputs were confirmed for)
+        String replayPath = null;
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals("--record"))
+                replayPath = args[i + 1];
+        }
+        PongGame game = new PongGame(replayPath);
+
+        // --net <player 1|2> <local port> <remote host> <remote port> <shared seed>
+        for (int i = 0; i < args.length - 5; i++) {
+            if (args[i].equals("--net")) {
+                game.setNetplay(
+                        Integer.parseInt(args[i + 1]),
+                        new InetSocketAddress(Integer.parseInt(args[i + 2])),
+                        new InetSocketAddress(args[i + 3], Integer.parseInt(args[i + 4])),
+                        Long.parseLong(args[i + 5]));
+            }
+        }
+
+        // --cpu <player 1|2> <EASY|MEDIUM|HARD> lets the computer play that paddle
+        for (int i = 0; i < args.length - 2; i++) {
+            if (args[i].equals("--cpu")) {
+                game.setCpuPlayer(
+                        Integer.parseInt(args[i + 1]),
+                        PongAi.Difficulty.valueOf(args[i + 2].toUpperCase(Locale.ROOT)));
+            }
+        }
+        return new Lwjgl3Application(game, getDefaultConfiguration());
     }
 
     private static Lwjgl3ApplicationConfiguration getDefaultConfiguration() {